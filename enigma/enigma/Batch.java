@@ -0,0 +1,296 @@
+package enigma;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static enigma.EnigmaException.*;
+
+/** Runs many Enigma jobs in one JVM, each applying one configuration file
+ *  to one input file.  Each distinct configuration file is parsed once
+ *  and shared, and jobs run in parallel on a fixed pool of threads.  For
+ *  each job, a status line in the format of testing/test-correct and
+ *  testing/test-error is reported, in the order the jobs were added.
+ *
+ *  Jobs come from a directory or a manifest.  In a directory, each F.in
+ *  is converted with F.conf, or else default.conf in the same directory.
+ *  If F.out exists, the output must match it (ignoring differences in the
+ *  amount of white space); otherwise F.in must be rejected with an
+ *  error.  A manifest has one job per line, giving the names of a
+ *  configuration file, an input file and an output file, separated by
+ *  white space.  Blank lines and lines starting with "#" are ignored.
+ *
+ *  Each job runs as a Main with the options given to the Batch.  In
+ *  lenient mode, a job's reports are collected and then written
+ *  together, each prefixed by the job's name.
+ *  @author Sahil Gupta
+ */
+class Batch {
+
+    /** A Batch running jobs on THREADS > 0 threads, without options. */
+    Batch(int threads) {
+        this(threads, new HashMap<>(), null);
+    }
+
+    /** A Batch running jobs on THREADS > 0 threads, each with the Main
+     *  options in OPTIONS (see Main.BATCH_OPTIONS).  With --lenient,
+     *  ERRORS receives the jobs' reports. */
+    Batch(int threads, Map<String, String> options, PrintStream errors) {
+        _threads = threads;
+        _options = new HashMap<>(options);
+        _errors = errors;
+        _jobs = new ArrayList<>();
+        _configs = new ConcurrentHashMap<>();
+    }
+
+    /** Add a job for each F.in file in directory DIR. */
+    void addDirectory(File dir) {
+        File[] inputs = dir.listFiles((d, name) -> name.endsWith(".in"));
+        if (inputs == null) {
+            throw error("could not read directory %s", dir);
+        }
+        Arrays.sort(inputs);
+        for (File input : inputs) {
+            String base = input.getName();
+            base = base.substring(0, base.length() - ".in".length());
+            File config = new File(dir, base + ".conf");
+            if (!config.exists()) {
+                config = new File(dir, DEFAULT_CONFIG);
+            }
+            _jobs.add(new Job(config, input, null,
+                              new File(dir, base + ".out")));
+        }
+    }
+
+    /** Add the jobs listed in MANIFEST.  Relative file names are taken
+     *  relative to the directory containing MANIFEST. */
+    void addManifest(File manifest) {
+        File dir = manifest.getAbsoluteFile().getParentFile();
+        try (Scanner lines = new Scanner(manifest)) {
+            int lineNumber = 0;
+            while (lines.hasNextLine()) {
+                String line = lines.nextLine().trim();
+                lineNumber += 1;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length != 3) {
+                    throw error("%s:%d: expected CONFIG INPUT OUTPUT",
+                                manifest, lineNumber);
+                }
+                _jobs.add(new Job(resolve(dir, fields[0]),
+                                  resolve(dir, fields[1]),
+                                  resolve(dir, fields[2]), null));
+            }
+        } catch (IOException excp) {
+            throw error("could not open %s", manifest);
+        }
+    }
+
+    /** Run all my jobs, printing one status line for each to REPORT.
+     *  Returns the number of jobs that failed. */
+    int run(PrintStream report) {
+        ExecutorService pool = Executors.newFixedThreadPool(_threads);
+        try {
+            List<Future<String>> statuses = new ArrayList<>();
+            for (Job job : _jobs) {
+                statuses.add(pool.submit(() -> run(job)));
+            }
+            int failures = 0;
+            for (int i = 0; i < _jobs.size(); i += 1) {
+                String status = statuses.get(i).get();
+                if (!status.equals(OK)) {
+                    failures += 1;
+                }
+                report.println(_jobs.get(i).name() + ": " + status);
+            }
+            report.flush();
+            return failures;
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw error("interrupted");
+        } catch (ExecutionException excp) {
+            throw error("batch failed: %s", excp.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Run JOB and return its status. */
+    private String run(Job job) {
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        try {
+            Configuration config = configuration(job.config());
+            ByteArrayOutputStream reports = new ByteArrayOutputStream();
+            try (Reader input = new FileReader(job.input());
+                 PrintStream output = job.output() == null
+                     ? new PrintStream(captured)
+                     : new PrintStream(job.output());
+                 PrintStream errors = new PrintStream(reports)) {
+                try {
+                    new Main(config, input, output, _options, errors)
+                        .process();
+                } finally {
+                    errors.flush();
+                    report(job, reports.toString());
+                }
+            }
+        } catch (EnigmaException excp) {
+            if (job.expected() == null) {
+                return "ERROR (" + excp.getMessage() + ")";
+            }
+            return job.expected().exists()
+                ? "ERROR (bad exit code: 1 instead of 0)" : OK;
+        } catch (IOException excp) {
+            return "ERROR (" + excp.getMessage() + ")";
+        } catch (RuntimeException excp) {
+            return "ERROR (uncaught exception)";
+        }
+        if (job.expected() == null) {
+            return OK;
+        } else if (!job.expected().exists()) {
+            return "ERROR (did not report error; exit code was 0)";
+        }
+        try {
+            String expected = Files.readString(job.expected().toPath());
+            return sameIgnoringSpace(captured.toString(), expected)
+                ? OK : "ERROR (output)";
+        } catch (IOException excp) {
+            return "ERROR (could not read " + job.expected() + ")";
+        }
+    }
+
+    /** Write each line of REPORTS, made by lenient mode for JOB, to
+     *  _errors, prefixed by the name of JOB.  The lines of one job are
+     *  kept together. */
+    private void report(Job job, String reports) {
+        if (_errors == null || reports.isEmpty()) {
+            return;
+        }
+        synchronized (_errors) {
+            for (String line : reports.split("\n")) {
+                _errors.println(job.name() + ": " + line.stripTrailing());
+            }
+            _errors.flush();
+        }
+    }
+
+    /** Return the configuration in FILE, reading it only the first time
+     *  it is needed.  Jobs needing it meanwhile wait for it. */
+    private Configuration configuration(File file) throws IOException {
+        return _configs.computeIfAbsent(file.getCanonicalPath(),
+                                        name -> Configuration.load(name));
+    }
+
+    /** Return true iff TEXT1 and TEXT2 have the same lines, ignoring
+     *  differences in the amount of white space, as for "diff -b". */
+    static boolean sameIgnoringSpace(String text1, String text2) {
+        return normalize(text1).equals(normalize(text2));
+    }
+
+    /** Return the lines of TEXT with trailing white space removed and
+     *  other runs of white space reduced to single blanks. */
+    private static List<String> normalize(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String line : text.split("\n", -1)) {
+            lines.add(line.stripTrailing().replaceAll("\\s+", " "));
+        }
+        if (lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        return lines;
+    }
+
+    /** Return NAME as a file, relative to DIR unless it is absolute. */
+    private static File resolve(File dir, String name) {
+        File file = new File(name);
+        return file.isAbsolute() ? file : new File(dir, name);
+    }
+
+    /** One job. */
+    private static final class Job {
+        /** A job converting INPUT with CONFIG and writing the result to
+         *  OUTPUT, or, if OUTPUT is null, comparing it with EXPECTED. */
+        Job(File config, File input, File output, File expected) {
+            _config = config;
+            _input = input;
+            _output = output;
+            _expected = expected;
+        }
+
+        /** Return my configuration file. */
+        File config() {
+            return _config;
+        }
+
+        /** Return my input file. */
+        File input() {
+            return _input;
+        }
+
+        /** Return my output file, or null. */
+        File output() {
+            return _output;
+        }
+
+        /** Return the file holding my expected output, or null. */
+        File expected() {
+            return _expected;
+        }
+
+        /** Return the name used for me in status reports: the names of
+         *  my input file and its directory. */
+        String name() {
+            File dir = _input.getAbsoluteFile().getParentFile();
+            return (dir == null ? "" : dir.getName() + "/")
+                + _input.getName();
+        }
+
+        /** My configuration file. */
+        private final File _config;
+        /** My input file. */
+        private final File _input;
+        /** My output file, or null. */
+        private final File _output;
+        /** File holding my expected output, or null. */
+        private final File _expected;
+    }
+
+    /** Status of a job that passed. */
+    static final String OK = "OK";
+
+    /** Name of the configuration file used in a directory for inputs
+     *  without their own. */
+    static final String DEFAULT_CONFIG = "default.conf";
+
+    /** Number of threads running jobs. */
+    private final int _threads;
+
+    /** Main options given to each job. */
+    private final HashMap<String, String> _options;
+
+    /** Where lenient jobs' reports go, or null. */
+    private final PrintStream _errors;
+
+    /** My jobs, in the order added. */
+    private final ArrayList<Job> _jobs;
+
+    /** Configurations read so far, by canonical file name. */
+    private final ConcurrentHashMap<String, Configuration> _configs;
+}
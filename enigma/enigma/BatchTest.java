@@ -0,0 +1,143 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+/** Tests of Batch.
+ *  @author Sahil Gupta
+ */
+public class BatchTest {
+
+    /** A settings line for EnigmaProcessorTest.CONFIG. */
+    static final String SETTINGS =
+        "* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)\n";
+
+    /** Write TEXT to file NAME in DIR. */
+    private static void write(File dir, String name, String text)
+        throws IOException {
+        Files.writeString(new File(dir, name).toPath(), text);
+    }
+
+    /** Delete DIR and the files in it. */
+    private static void delete(File dir) {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testDirectory() throws IOException {
+        File dir = Files.createTempDirectory("batch").toFile();
+        try {
+            write(dir, Batch.DEFAULT_CONFIG, EnigmaProcessorTest.CONFIG);
+            write(dir, "a.in", SETTINGS + "FROM HIS SHOULDER HIAWATHA\n");
+            write(dir, "a.out", "QVPQS OKOIL   PUBKJ ZPISF XDW\r\n");
+            write(dir, "b.in", "* B Beta III IV Q AXLE\nFROM\n");
+            write(dir, "c.in", SETTINGS + "FROM HIS SHOULDER HIAWATHA\n");
+            write(dir, "c.out", "QVPQS OKOIL PUBKJ ZPISF XDX\n");
+            write(dir, "d.in", SETTINGS + "FROM\n");
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            Batch batch = new Batch(2);
+            batch.addDirectory(dir);
+            assertEquals(2, batch.run(new PrintStream(report)));
+            String name = dir.getName();
+            assertEquals(name + "/a.in: OK\n"
+                         + name + "/b.in: OK\n"
+                         + name + "/c.in: ERROR (output)\n"
+                         + name + "/d.in: ERROR (did not report error; "
+                         + "exit code was 0)\n",
+                         report.toString().replace("\r\n", "\n"));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testManifest() throws IOException {
+        File dir = Files.createTempDirectory("batch").toFile();
+        try {
+            write(dir, "x.conf", EnigmaProcessorTest.CONFIG);
+            write(dir, "a.in", SETTINGS + "FROM HIS SHOULDER HIAWATHA\n");
+            write(dir, "b.in", SETTINGS + "FROM HIS SHOULDER HIAWATHA\n"
+                  + "TOOK THE CAMERA OF ROSEWOOD\n");
+            write(dir, "jobs", "# config input output\n"
+                  + "x.conf a.in a.txt\n\n"
+                  + "x.conf b.in b.txt\n");
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            Batch batch = new Batch(1);
+            batch.addManifest(new File(dir, "jobs"));
+            assertEquals(0, batch.run(new PrintStream(report)));
+            assertTrue(Batch.sameIgnoringSpace(
+                "QVPQS OKOIL PUBKJ ZPISF XDW\n",
+                Files.readString(new File(dir, "a.txt").toPath())));
+            assertTrue(Batch.sameIgnoringSpace(
+                "QVPQS OKOIL PUBKJ ZPISF XDW\n"
+                + "BHCNS CXNUO AATZX SRCFY DGU\n",
+                Files.readString(new File(dir, "b.txt").toPath())));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testOptions() throws IOException {
+        File dir = Files.createTempDirectory("batch").toFile();
+        try {
+            write(dir, Batch.DEFAULT_CONFIG, EnigmaProcessorTest.CONFIG);
+            write(dir, "a.in", SETTINGS + "From his shoulder, Hiawatha\n");
+            write(dir, "a.out", "QVPQS OKOIL PUBKJ ,ZPIS FXDW\n");
+            write(dir, "b.in", SETTINGS + "FROM\n* B Beta III IV Q AXLE\n"
+                  + "FROM\n");
+            HashMap<String, String> options = new HashMap<>();
+            options.put("--lenient", null);
+            options.put("--passthrough", null);
+            ByteArrayOutputStream report = new ByteArrayOutputStream(),
+                errors = new ByteArrayOutputStream();
+            Batch batch = new Batch(2, options, new PrintStream(errors));
+            batch.addDirectory(dir);
+            assertEquals(0, batch.run(new PrintStream(report)));
+            assertEquals(dir.getName() + "/b.in: line 3: ",
+                         errors.toString().substring(0, dir.getName()
+                                                     .length() + 15));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testBadOption() {
+        HashMap<String, String> options = new HashMap<>();
+        options.put("--mmap", null);
+        new Main(SearchJobTest.config(), new StringReader(""),
+                 System.out, options, null);
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testBadManifest() throws IOException {
+        File dir = Files.createTempDirectory("batch").toFile();
+        try {
+            write(dir, "jobs", "x.conf a.in\n");
+            new Batch(1).addManifest(new File(dir, "jobs"));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testSameIgnoringSpace() {
+        assertTrue(Batch.sameIgnoringSpace("AB  CD\r\nEF\n", "AB CD\nEF"));
+        assertFalse(Batch.sameIgnoringSpace("AB CD\n", "ABCD\n"));
+        assertFalse(Batch.sameIgnoringSpace("AB\n\nCD\n", "AB\nCD\n"));
+    }
+
+}
@@ -0,0 +1,144 @@
+package enigma;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+/** A throughput benchmark for one configuration.  The input, held in
+ *  memory, is divided into segments, each a settings line and the message
+ *  lines that follow it.  After a warmup, the whole input is converted a
+ *  given number of rounds, timing each segment: applying its settings
+ *  and converting its messages.  Reading, parsing and printing are not
+ *  timed.
+ *  @author Sahil Gupta
+ */
+class Benchmark {
+
+    /** A benchmark of CONFIG on the text read from INPUT, in the format
+     *  read by Main.  Message lines before the first settings line are
+     *  ignored. */
+    Benchmark(Configuration config, Scanner input) {
+        _config = config;
+        _settings = new ArrayList<>();
+        _messages = new ArrayList<>();
+        int longest = 0;
+        while (input.hasNextLine()) {
+            String line = input.nextLine();
+            if (line.contains("*")) {
+                _settings.add(line);
+                _messages.add(new ArrayList<>());
+            } else if (!_settings.isEmpty()) {
+                char[] message = line.replace(" ", "").toCharArray();
+                _messages.get(_messages.size() - 1).add(message);
+                _chars += message.length;
+                longest = Math.max(longest, message.length);
+            }
+        }
+        if (_settings.isEmpty()) {
+            throw new EnigmaException("No configuration found.");
+        }
+        _buffer = new char[longest];
+    }
+
+    /** Convert my input once for at least WARMUPMILLIS milliseconds, then
+     *  ROUNDS > 0 more times, and print a report to OUT. */
+    void run(long warmupMillis, int rounds, PrintStream out) {
+        Machine machine = _config.newMachine();
+        long warmupEnd = System.nanoTime() + warmupMillis * MILLI;
+        long[] latencies = new long[_settings.size()];
+        int warmups = 0;
+        do {
+            round(machine, latencies, 0);
+            warmups += 1;
+        } while (System.nanoTime() < warmupEnd);
+
+        latencies = new long[_settings.size() * rounds];
+        long allocated0 = allocatedBytes();
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r += 1) {
+            round(machine, latencies, r * _settings.size());
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocated0;
+        Arrays.sort(latencies);
+
+        long chars = _chars * rounds;
+        out.printf("segments: %d, characters: %d per round%n",
+                   _settings.size(), _chars);
+        out.printf("rounds: %d after %d warmup%n", rounds, warmups);
+        out.printf("throughput: %.0f chars/s (%.2f ns/char)%n",
+                   chars * 1e9 / elapsed, (double) elapsed / chars);
+        out.printf("segment latency (us): p50 %.2f  p90 %.2f  p99 %.2f  "
+                   + "p99.9 %.2f  max %.2f%n",
+                   percentile(latencies, 0.5), percentile(latencies, 0.9),
+                   percentile(latencies, 0.99), percentile(latencies, 0.999),
+                   latencies[latencies.length - 1] / 1e3);
+        if (allocated0 < 0) {
+            out.println("allocation: unavailable");
+        } else {
+            out.printf("allocation: %.3f bytes/char%n",
+                       (double) allocated / chars);
+        }
+        out.flush();
+    }
+
+    /** Convert all of my input once with M, recording the time taken by
+     *  each segment in LATENCIES, starting at index FROM. */
+    private void round(Machine M, long[] latencies, int from) {
+        for (int s = 0; s < _settings.size(); s += 1) {
+            long t0 = System.nanoTime();
+            _config.setUp(M, _settings.get(s));
+            for (char[] message : _messages.get(s)) {
+                System.arraycopy(message, 0, _buffer, 0, message.length);
+                M.convert(_buffer, 0, message.length);
+            }
+            latencies[from + s] = System.nanoTime() - t0;
+        }
+    }
+
+    /** Return the P'th quantile of SORTED, a sorted array of
+     *  nanosecond times, in microseconds. */
+    private static double percentile(long[] sorted, double p) {
+        int i = (int) Math.min(sorted.length - 1,
+                               Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(i, 0)] / 1e3;
+    }
+
+    /** Return the number of bytes allocated so far by the current
+     *  thread, or -1 if the JVM cannot tell. */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun =
+                (com.sun.management.ThreadMXBean) bean;
+            if (sun.isThreadAllocatedMemorySupported()
+                && sun.isThreadAllocatedMemoryEnabled()) {
+                return sun.getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /** Nanoseconds per millisecond. */
+    private static final long MILLI = 1_000_000;
+
+    /** The configuration being measured. */
+    private final Configuration _config;
+
+    /** The settings line of each segment. */
+    private final List<String> _settings;
+
+    /** The message lines of each segment, without blanks. */
+    private final List<List<char[]>> _messages;
+
+    /** Total number of message characters. */
+    private long _chars;
+
+    /** Scratch space for converting one message. */
+    private final char[] _buffer;
+}
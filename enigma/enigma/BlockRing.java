@@ -0,0 +1,123 @@
+package enigma;
+
+/** A bounded ring of reusable byte blocks passed from one producer
+ *  thread to one consumer thread.  All blocks are allocated up front.
+ *  The producer claims an empty block, fills it and publishes it; the
+ *  consumer takes the oldest published block, uses it and releases it
+ *  for reuse.  The producer waits while every block is full and the
+ *  consumer while every block is empty, so neither can run more than
+ *  the ring's size ahead of the other.
+ *
+ *  Either side may fail the ring, after which both sides' waiting
+ *  methods throw instead of blocking, so that a failure in any stage of
+ *  a pipeline stops the others.
+ *  @author Sahil Gupta
+ */
+class BlockRing {
+
+    /** A ring of BLOCKS > 0 blocks of BLOCKSIZE > 0 bytes each. */
+    BlockRing(int blocks, int blockSize) {
+        _blocks = new byte[blocks][blockSize];
+        _lengths = new int[blocks];
+    }
+
+    /** Return the next empty block for the producer to fill, waiting
+     *  until one is free. */
+    synchronized byte[] claim() {
+        while (_head - _tail == _blocks.length && _failure == null) {
+            await();
+        }
+        checkFailure();
+        return _blocks[slot(_head)];
+    }
+
+    /** Make the block last returned by claim() available to the
+     *  consumer, holding LENGTH bytes. */
+    synchronized void publish(int length) {
+        _lengths[slot(_head)] = length;
+        _head += 1;
+        notifyAll();
+    }
+
+    /** Signal that the producer will publish no more blocks. */
+    synchronized void close() {
+        _closed = true;
+        notifyAll();
+    }
+
+    /** Return the oldest published block, waiting until there is one,
+     *  or null if the ring is closed and has none left. */
+    synchronized byte[] take() {
+        while (_tail == _head && !_closed && _failure == null) {
+            await();
+        }
+        checkFailure();
+        return _tail == _head ? null : _blocks[slot(_tail)];
+    }
+
+    /** Return the number of bytes in the block last returned by
+     *  take(). */
+    synchronized int length() {
+        return _lengths[slot(_tail)];
+    }
+
+    /** Return the block last returned by take() to the producer. */
+    synchronized void release() {
+        _tail += 1;
+        notifyAll();
+    }
+
+    /** Stop the ring because of CAUSE, unless it has already failed.
+     *  Waiting threads wake up and throw. */
+    synchronized void fail(Throwable cause) {
+        if (_failure == null) {
+            _failure = cause;
+        }
+        notifyAll();
+    }
+
+    /** Return the cause with which the ring failed, or null. */
+    synchronized Throwable failure() {
+        return _failure;
+    }
+
+    /** Throw if I have failed. */
+    private void checkFailure() {
+        if (_failure != null) {
+            throw new EnigmaException(_failure.getMessage(), false);
+        }
+    }
+
+    /** Wait to be notified, failing the ring if interrupted. */
+    private void await() {
+        try {
+            wait();
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            fail(new EnigmaException("Interrupted.", false));
+        }
+    }
+
+    /** Return the index in _blocks of block sequence number SEQ. */
+    private int slot(long seq) {
+        return (int) (seq % _blocks.length);
+    }
+
+    /** The blocks, used in rotation. */
+    private final byte[][] _blocks;
+
+    /** The number of bytes published in each block. */
+    private final int[] _lengths;
+
+    /** Number of blocks published so far. */
+    private long _head;
+
+    /** Number of blocks released so far. */
+    private long _tail;
+
+    /** True once the producer has finished. */
+    private boolean _closed;
+
+    /** Why the ring failed, or null. */
+    private Throwable _failure;
+}
@@ -0,0 +1,91 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of BlockRing and Pipeline.
+ *  @author Sahil Gupta
+ */
+public class BlockRingTest {
+
+    @Test(timeout = 10000)
+    public void testHandoff() throws InterruptedException {
+        BlockRing ring = new BlockRing(3, 4);
+        int count = 1000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i += 1) {
+                byte[] block = ring.claim();
+                block[0] = (byte) i;
+                ring.publish(1 + i % 4);
+            }
+            ring.close();
+        });
+        producer.start();
+        int i = 0;
+        for (byte[] block = ring.take(); block != null;
+             block = ring.take(), i += 1) {
+            assertEquals((byte) i, block[0]);
+            assertEquals(1 + i % 4, ring.length());
+            ring.release();
+        }
+        assertEquals(count, i);
+        producer.join();
+        assertNull(ring.failure());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailWakesProducer() throws InterruptedException {
+        BlockRing ring = new BlockRing(2, 4);
+        EnigmaException[] caught = new EnigmaException[1];
+        Thread producer = new Thread(() -> {
+            try {
+                while (true) {
+                    ring.claim();
+                    ring.publish(4);
+                }
+            } catch (EnigmaException excp) {
+                caught[0] = excp;
+            }
+        });
+        producer.start();
+        ring.take();
+        ring.fail(new IOException("disk full"));
+        producer.join();
+        assertEquals("disk full", caught[0].getMessage());
+    }
+
+    @Test(timeout = 10000)
+    public void testPipeline() throws IOException {
+        byte[] data = new byte[100000];
+        new Random(3).nextBytes(data);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        Pipeline pipeline =
+            new Pipeline(new ByteArrayInputStream(data), sink, true, 3, 1000);
+        pipeline.start();
+        InputStream in = pipeline.input();
+        OutputStream out = pipeline.output();
+        byte[] buf = new byte[777];
+        for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+            for (int i = 0; i < n; i += 1) {
+                buf[i] ^= 1;
+            }
+            out.write(buf, 0, n);
+        }
+        out.flush();
+        pipeline.finish();
+        byte[] result = sink.toByteArray();
+        assertEquals(data.length, result.length);
+        for (int i = 0; i < data.length; i += 1) {
+            assertEquals(data[i] ^ 1, result[i]);
+        }
+    }
+
+}
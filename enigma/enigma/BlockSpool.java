@@ -0,0 +1,103 @@
+package enigma;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+
+/** A temporary file holding the characters of one line at a time,
+ *  written and then read back in blocks, so that a line can be checked
+ *  in full before any of it is converted, in memory that does not grow
+ *  with the line's length.  The file is created when first needed and
+ *  deleted by close.
+ *  @author Sahil Gupta
+ */
+class BlockSpool implements Closeable {
+
+    /** A spool that moves at most BLOCKSIZE > 0 characters at a time. */
+    BlockSpool(int blockSize) {
+        _bytes = ByteBuffer.allocate(blockSize * Character.BYTES);
+        _chars = _bytes.asCharBuffer();
+    }
+
+    /** Discard the characters added so far. */
+    void clear() {
+        _length = 0;
+    }
+
+    /** Append the first N characters of BUF, where N is at most my block
+     *  size. */
+    void add(char[] buf, int n) throws IOException {
+        if (_channel == null) {
+            _file = File.createTempFile(PREFIX, SUFFIX);
+            _file.deleteOnExit();
+            _channel = new RandomAccessFile(_file, "rw").getChannel();
+        }
+        _chars.clear();
+        _chars.put(buf, 0, n);
+        _bytes.clear();
+        _bytes.limit(n * Character.BYTES);
+        while (_bytes.hasRemaining()) {
+            _length += _channel.write(_bytes, _length);
+        }
+    }
+
+    /** Start reading back the characters added since the last clear. */
+    void rewind() {
+        _position = 0;
+    }
+
+    /** Read the next characters added, up to my block size, into BUF.
+     *  Returns the number read, or -1 if all have been read. */
+    int read(char[] buf) throws IOException {
+        if (_position == _length) {
+            return -1;
+        }
+        _bytes.clear();
+        _bytes.limit((int) Math.min(_bytes.capacity(), _length - _position));
+        while (_bytes.hasRemaining()) {
+            if (_channel.read(_bytes, _position + _bytes.position()) < 0) {
+                throw new IOException("spool file truncated");
+            }
+        }
+        _position += _bytes.limit();
+        int n = _bytes.limit() / Character.BYTES;
+        _chars.clear();
+        _chars.get(buf, 0, n);
+        return n;
+    }
+
+    /** Close and delete my file, if it was created. */
+    @Override
+    public void close() throws IOException {
+        if (_channel != null) {
+            _channel.close();
+            _file.delete();
+            _channel = null;
+        }
+    }
+
+    /** Prefix and suffix of the names of spool files. */
+    private static final String PREFIX = "enigma", SUFFIX = ".spool";
+
+    /** Staging buffer for one block, in bytes. */
+    private final ByteBuffer _bytes;
+
+    /** View of _bytes as characters. */
+    private final CharBuffer _chars;
+
+    /** My file, or null until it is created. */
+    private File _file;
+
+    /** Channel to _file, or null. */
+    private FileChannel _channel;
+
+    /** Number of bytes added since the last clear. */
+    private long _length;
+
+    /** Number of bytes read back since the last rewind. */
+    private long _position;
+}
@@ -0,0 +1,74 @@
+package enigma;
+
+/** A precomputed classification of every char for one alphabet.  A char
+ *  is a letter if it, or its upper- or lower-case form, is in the
+ *  alphabet; all other chars pass through conversion unchanged and do not
+ *  step the rotors.  Classification is a single table lookup, so a line
+ *  can be split into letters and passed-through characters in one pass
+ *  and its letters converted without further checks.
+ *  @author Sahil Gupta
+ */
+class CharClassifier {
+
+    /** A classifier for ALPHA. */
+    CharClassifier(Alphabet alpha) {
+        if (alpha.size() > Short.MAX_VALUE) {
+            throw new EnigmaException("Alphabet too large to classify.");
+        }
+        _alphabet = alpha;
+        _table = new short[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c += 1) {
+            int index = alpha.index((char) c);
+            if (index == -1) {
+                index = alpha.index(Character.toUpperCase((char) c));
+            }
+            if (index == -1) {
+                index = alpha.index(Character.toLowerCase((char) c));
+            }
+            _table[c] = (short) index;
+        }
+    }
+
+    /** Return the alphabet index of C after folding its case, or PASS
+     *  if C is not a letter. */
+    int classify(char c) {
+        return _table[c];
+    }
+
+    /** Store the alphabet indices of the letters among the first N
+     *  characters of BUF, in order, in INDICES, and return how many there
+     *  are. */
+    int letters(char[] buf, int n, int[] indices) {
+        int k = 0;
+        for (int i = 0; i < n; i += 1) {
+            int index = _table[buf[i]];
+            if (index != PASS) {
+                indices[k] = index;
+                k += 1;
+            }
+        }
+        return k;
+    }
+
+    /** Replace the letters among the first N characters of BUF, in order,
+     *  by the letters of my alphabet whose indices are in INDICES,
+     *  leaving other characters unchanged. */
+    void merge(char[] buf, int n, int[] indices) {
+        int k = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (_table[buf[i]] != PASS) {
+                buf[i] = _alphabet.toChar(indices[k]);
+                k += 1;
+            }
+        }
+    }
+
+    /** Classification of characters that are not letters. */
+    static final int PASS = -1;
+
+    /** The alphabet classified. */
+    private final Alphabet _alphabet;
+
+    /** The alphabet index of each char after case folding, or PASS. */
+    private final short[] _table;
+}
@@ -0,0 +1,46 @@
+package enigma;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** Tests of CharClassifier.
+ *  @author Sahil Gupta
+ */
+public class CharClassifierTest {
+
+    @Test
+    public void testClassify() {
+        CharClassifier upper = new CharClassifier(UPPER);
+        assertEquals(0, upper.classify('A'));
+        assertEquals(0, upper.classify('a'));
+        assertEquals(25, upper.classify('z'));
+        assertEquals(CharClassifier.PASS, upper.classify('!'));
+        assertEquals(CharClassifier.PASS, upper.classify('4'));
+        assertEquals(CharClassifier.PASS, upper.classify('\u00e9'));
+        CharClassifier lower = new CharClassifier(new Alphabet("abc"));
+        assertEquals(1, lower.classify('B'));
+        assertEquals(CharClassifier.PASS, lower.classify('D'));
+    }
+
+    @Test
+    public void testPassthrough() {
+        Machine plain = navalMachine(), mixed = navalMachine();
+        CharClassifier classifier = new CharClassifier(UPPER);
+        char[] text = "Hi, Hiawatha! 42 took".toCharArray();
+        int[] indices = new int[text.length];
+        int k = classifier.letters(text, text.length, indices);
+        assertEquals(14, k);
+        mixed.convert(indices, 0, k);
+        classifier.merge(text, text.length, indices);
+
+        String expected = plain.convert("HIHIAWATHATOOK");
+        assertEquals(expected.substring(0, 2) + ", "
+                     + expected.substring(2, 10) + "! 42 "
+                     + expected.substring(10), new String(text));
+        assertEquals(plain.processed(), mixed.processed());
+    }
+
+}
@@ -0,0 +1,79 @@
+package enigma;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static enigma.EnigmaException.*;
+
+/** A saved point in a long run of Main: the machine state after some
+ *  number of input lines, and the length of the output at that point.
+ *  @author Sahil Gupta
+ */
+final class Checkpoint implements Serializable {
+
+    /** A checkpoint taken with the machine in STATE after LINES lines of
+     *  input were processed and OUTPUTLENGTH bytes of output written. */
+    Checkpoint(MachineState state, long lines, long outputLength) {
+        _state = state;
+        _lines = lines;
+        _outputLength = outputLength;
+    }
+
+    /** Return the machine state. */
+    MachineState state() {
+        return _state;
+    }
+
+    /** Return the number of input lines processed. */
+    long lines() {
+        return _lines;
+    }
+
+    /** Return the number of bytes of output written. */
+    long outputLength() {
+        return _outputLength;
+    }
+
+    /** Write me to FILE, replacing any previous checkpoint there only once
+     *  I have been written completely. */
+    void write(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (ObjectOutputStream out =
+                 new ObjectOutputStream(new FileOutputStream(temp))) {
+            out.writeObject(this);
+        }
+        Files.move(temp.toPath(), file.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Return the checkpoint stored in FILE. */
+    static Checkpoint read(File file) {
+        try (ObjectInputStream in =
+                 new ObjectInputStream(new FileInputStream(file))) {
+            return (Checkpoint) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException
+                 excp) {
+            throw error("could not read checkpoint %s", file);
+        }
+    }
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /** The machine state. */
+    private final MachineState _state;
+
+    /** Number of input lines processed. */
+    private final long _lines;
+
+    /** Number of bytes of output written. */
+    private final long _outputLength;
+}
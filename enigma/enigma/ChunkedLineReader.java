@@ -0,0 +1,109 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/** A reader of lines of text that hands each line over in pieces, so
+ *  that lines of any length can be processed in constant memory.  Lines
+ *  end with "\n", "\r\n" or "\r"; line terminators are not returned.
+ *  @author Sahil Gupta
+ */
+class ChunkedLineReader {
+
+    /** A reader of the lines of IN, which it reads BLOCKSIZE > 0
+     *  characters at a time. */
+    ChunkedLineReader(Reader in, int blockSize) {
+        _in = in;
+        _buf = new char[blockSize];
+    }
+
+    /** Move to the start of the next line, skipping whatever is left of
+     *  the current one.  Returns false if there are no more lines. */
+    boolean nextLine() throws IOException {
+        while (read(null, 0, Integer.MAX_VALUE) != -1) {
+            continue;
+        }
+        if (!fill()) {
+            return false;
+        }
+        if (_afterReturn) {
+            _afterReturn = false;
+            if (_buf[_pos] == '\n') {
+                _pos += 1;
+                if (!fill()) {
+                    return false;
+                }
+            }
+        }
+        _inLine = true;
+        return true;
+    }
+
+    /** Read up to LEN characters of the current line into DST, starting
+     *  at OFF, or discard them if DST is null.  Returns the number of
+     *  characters read, or -1 if the line has no more. */
+    int read(char[] dst, int off, int len) throws IOException {
+        if (!_inLine) {
+            return -1;
+        }
+        int n = 0;
+        while (n < len) {
+            if (!fill()) {
+                _inLine = false;
+                break;
+            }
+            char c = _buf[_pos];
+            _pos += 1;
+            if (c == '\n' || c == '\r') {
+                _inLine = false;
+                _afterReturn = c == '\r';
+                break;
+            }
+            if (dst != null) {
+                dst[off + n] = c;
+            }
+            n += 1;
+        }
+        return n == 0 && !_inLine ? -1 : n;
+    }
+
+    /** Close my underlying Reader. */
+    void close() throws IOException {
+        _in.close();
+    }
+
+    /** Make sure _buf holds at least one unread character, reading a
+     *  block if necessary.  Returns false at end of input. */
+    private boolean fill() throws IOException {
+        if (_pos < _limit) {
+            return true;
+        }
+        int n;
+        do {
+            n = _in.read(_buf, 0, _buf.length);
+        } while (n == 0);
+        _pos = 0;
+        _limit = Math.max(n, 0);
+        return n > 0;
+    }
+
+    /** Source of my characters. */
+    private final Reader _in;
+
+    /** Characters read from _in, of which those in [_pos, _limit) have
+     *  not yet been returned. */
+    private final char[] _buf;
+
+    /** Position of the next unread character in _buf. */
+    private int _pos;
+
+    /** End of the valid characters in _buf. */
+    private int _limit;
+
+    /** True while the current line has characters left to read. */
+    private boolean _inLine;
+
+    /** True if the last line ended with "\r", so that a following "\n"
+     *  belongs to the same terminator. */
+    private boolean _afterReturn;
+}
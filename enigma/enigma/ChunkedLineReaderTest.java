@@ -0,0 +1,70 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Tests of ChunkedLineReader.
+ *  @author Sahil Gupta
+ */
+public class ChunkedLineReaderTest {
+
+    /** Return the lines of TEXT as read by a ChunkedLineReader with
+     *  blocks of BLOCK characters, reading PIECE characters at a time. */
+    private List<String> lines(String text, int block, int piece)
+        throws IOException {
+        ChunkedLineReader reader =
+            new ChunkedLineReader(new StringReader(text), block);
+        List<String> result = new ArrayList<>();
+        char[] buf = new char[piece];
+        while (reader.nextLine()) {
+            StringBuilder line = new StringBuilder();
+            for (int n = reader.read(buf, 0, piece); n != -1;
+                 n = reader.read(buf, 0, piece)) {
+                assertTrue(n > 0 && n <= piece);
+                line.append(buf, 0, n);
+            }
+            result.add(line.toString());
+        }
+        return result;
+    }
+
+    @Test
+    public void testTerminators() throws IOException {
+        String text = "AB C\nDEFGH\r\n\r\nIJ\rK\r\r\nLMNOPQRSTU";
+        List<String> expected = List.of("AB C", "DEFGH", "", "IJ", "K", "",
+                                        "LMNOPQRSTU");
+        for (int block = 1; block <= text.length() + 1; block += 1) {
+            for (int piece = 1; piece <= 12; piece += 1) {
+                assertEquals(expected, lines(text, block, piece));
+            }
+        }
+    }
+
+    @Test
+    public void testFinalNewline() throws IOException {
+        assertEquals(List.of("A", "B"), lines("A\nB\n", 2, 3));
+        assertEquals(List.of(), lines("", 2, 3));
+        assertEquals(List.of(""), lines("\r\n", 1, 1));
+    }
+
+    @Test
+    public void testSkipRestOfLine() throws IOException {
+        ChunkedLineReader reader =
+            new ChunkedLineReader(new StringReader("ABCDEFG\r\nHI\n"), 2);
+        char[] buf = new char[3];
+        assertTrue(reader.nextLine());
+        assertEquals(3, reader.read(buf, 0, 3));
+        assertEquals("ABC", new String(buf));
+        assertTrue(reader.nextLine());
+        assertEquals(2, reader.read(buf, 0, 3));
+        assertEquals(-1, reader.read(buf, 0, 3));
+        assertFalse(reader.nextLine());
+    }
+
+}
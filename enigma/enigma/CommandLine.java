@@ -0,0 +1,87 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static enigma.EnigmaException.*;
+
+/** The arguments of one of this package's programs: options, of the form
+ *  --NAME or --NAME=VALUE, which may appear anywhere and must each be
+ *  one that the program recognizes, and the other arguments, in order.
+ *  @author Sahil Gupta
+ */
+class CommandLine {
+
+    /** The arguments ARGS of a program recognizing the options named in
+     *  NAMES. */
+    CommandLine(String[] args, List<String> names) {
+        _arguments = new ArrayList<>();
+        _options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int eq = arg.indexOf('=');
+                String name = eq == -1 ? arg : arg.substring(0, eq);
+                if (!names.contains(name)) {
+                    throw error("unknown option %s", name);
+                }
+                _options.put(name, eq == -1 ? null : arg.substring(eq + 1));
+            } else {
+                _arguments.add(arg);
+            }
+        }
+    }
+
+    /** Return the arguments that are not options, in order. */
+    ArrayList<String> arguments() {
+        return _arguments;
+    }
+
+    /** Return the options given, mapped to their values (null for
+     *  options given without one). */
+    HashMap<String, String> options() {
+        return _options;
+    }
+
+    /** Return true iff option NAME was given. */
+    boolean has(String name) {
+        return _options.containsKey(name);
+    }
+
+    /** Return the value of option NAME, which must have been given one,
+     *  or null if it is absent. */
+    String value(String name) {
+        if (has(name) && _options.get(name) == null) {
+            throw error("%s requires a value", name);
+        }
+        return _options.get(name);
+    }
+
+    /** Return the non-negative value of the numeric option NAME, or
+     *  DEFAULTVALUE if it is absent. */
+    long number(String name, long defaultValue) {
+        if (!has(name)) {
+            return defaultValue;
+        }
+        return number(name, _options.get(name));
+    }
+
+    /** Return VALUE, given for option NAME, as a non-negative number. */
+    static long number(String name, String value) {
+        try {
+            long n = Long.parseLong(value);
+            if (n >= 0) {
+                return n;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through. */
+        }
+        throw error("%s requires a non-negative number", name);
+    }
+
+    /** The arguments that are not options. */
+    private final ArrayList<String> _arguments;
+
+    /** The options given, mapped to their values. */
+    private final HashMap<String, String> _options;
+}
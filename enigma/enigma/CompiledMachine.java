@@ -0,0 +1,33 @@
+package enigma;
+
+/** A machine specialized to one choice of rotors, ring settings, and
+ *  plugboard by MachineCompiler.  It converts letter indices as the
+ *  Machine it was compiled from would, starting from that machine's
+ *  rotor positions at the time of compilation, but keeps its own rotor
+ *  positions: converting with one does not disturb the other.
+ *  @author Sahil Gupta
+ */
+interface CompiledMachine {
+
+    /** Return the conversion of letter index C, after first advancing
+     *  the rotors, as Machine.convert(int) does. */
+    int convert(int c);
+
+    /** Put the core setting (Rotor.setting()) of each rotor slot but the
+     *  reflector's in SETTINGS, leftmost first. */
+    void settings(int[] settings);
+
+    /** Set the core settings of my rotors from SETTINGS, indexed as by
+     *  settings().  Rotors that never move, and whose left neighbors
+     *  never move, were folded into the reflector when I was compiled;
+     *  their entries are ignored. */
+    void setSettings(int[] settings);
+
+    /** Replace the LEN letter indices of BUF starting at OFF with their
+     *  conversions. */
+    default void convert(int[] buf, int off, int len) {
+        for (int i = off; i < off + len; i += 1) {
+            buf[i] = convert(buf[i]);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+
+import static enigma.EnigmaException.*;
+
+/** A parsed machine configuration: an alphabet, the rotor and pawl
+ *  counts, and the descriptions of all available rotors.  A
+ *  Configuration is read once and may then build any number of
+ *  independent machines, each with its own rotor state.
+ *  @author Sahil Gupta
+ */
+class Configuration {
+
+    /** A configuration read from CONFIG, which must have the format
+     *  specified in the assignment. */
+    Configuration(Scanner config) {
+        _names = new ArrayList<>();
+        _types = new ArrayList<>();
+        _notches = new ArrayList<>();
+        _perms = new ArrayList<>();
+        try {
+
+            if (!config.hasNext()) {
+                throw new EnigmaException("Incorrect format. Empty file.");
+            }
+            _alphabet = new Alphabet(config.next());
+
+            if (!config.hasNextInt()) {
+                throw new EnigmaException("Incorrect format. "
+                       + "Rotor count parameter not found.");
+            }
+            _numRotors = config.nextInt();
+
+            if (!config.hasNextInt()) {
+                throw new EnigmaException("Incorrect format. "
+                       + "Pawl count parameter not found.");
+            }
+            _numPawls = config.nextInt();
+
+            while (config.hasNext()) {
+                readRotor(config);
+            }
+        } catch (NoSuchElementException excp) {
+            throw error("configuration file truncated");
+        }
+        newMachine();
+    }
+
+    /** Return the configuration in the file named NAME. */
+    static Configuration load(String name) {
+        try (Scanner config = new Scanner(new File(name))) {
+            return new Configuration(config);
+        } catch (IOException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Read a rotor description from CONFIG and record it. */
+    private void readRotor(Scanner config) {
+        try {
+            String name = config.next();
+            String typeNotches = config.next();
+            String cycles = "";
+            while (config.hasNext(CYCLE)) {
+                cycles += config.next(CYCLE) + " ";
+            }
+            char type = typeNotches.charAt(0);
+            Permutation perm = new Permutation(cycles, _alphabet);
+
+            if (type != 'M' && type != 'N' && type != 'R') {
+                throw new EnigmaException("\""
+                           + type + "\" is not a type of rotor.");
+            }
+            _names.add(name);
+            _types.add(type);
+            _notches.add(typeNotches.substring(1));
+            _perms.add(perm);
+            makeRotor(_names.size() - 1);
+        } catch (NoSuchElementException excp) {
+            throw error("bad rotor description");
+        }
+    }
+
+    /** Return a new rotor built from description number K. */
+    private Rotor makeRotor(int k) {
+        switch (_types.get(k)) {
+        case 'M':
+            return new MovingRotor(_names.get(k), _perms.get(k),
+                                   _notches.get(k));
+        case 'N':
+            return new FixedRotor(_names.get(k), _perms.get(k));
+        default:
+            return new Reflector(_names.get(k), _perms.get(k));
+        }
+    }
+
+    /** Return a new machine with this configuration.  Its rotors are not
+     *  shared with any other machine. */
+    Machine newMachine() {
+        ArrayList<Rotor> rotors = new ArrayList<>();
+        for (int k = 0; k < _names.size(); k += 1) {
+            rotors.add(makeRotor(k));
+        }
+        return new Machine(_alphabet, _numRotors, _numPawls, rotors);
+    }
+
+    /** Return my alphabet. */
+    Alphabet alphabet() {
+        return _alphabet;
+    }
+
+    /** Return the names of my rotors, in the order they were described. */
+    List<String> rotorNames() {
+        return _names;
+    }
+
+    /** Return a string identifying everything about me that affects
+     *  conversion: my alphabet, slot and pawl counts, and the name, type,
+     *  notches and wiring of each rotor.  Files derived from a
+     *  configuration record its id, so that they are not reused after it
+     *  is edited.  The id is ID_LENGTH hexadecimal digits. */
+    String id() {
+        StringBuilder desc = new StringBuilder();
+        for (int c = 0; c < _alphabet.size(); c += 1) {
+            desc.append(_alphabet.toChar(c));
+        }
+        desc.append(' ').append(_numRotors).append(' ').append(_numPawls);
+        for (int k = 0; k < _names.size(); k += 1) {
+            desc.append(' ').append(_names.get(k)).append(' ')
+                .append(_types.get(k)).append(_notches.get(k))
+                .append(Arrays.toString(_perms.get(k).table()));
+        }
+        return digest(desc.toString());
+    }
+
+    /** Return the SHA-256 digest of TEXT, encoded in UTF-8, as ID_LENGTH
+     *  hexadecimal digits. */
+    static String digest(String text) {
+        return digest(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Return the SHA-256 digest of CONTENTS as ID_LENGTH hexadecimal
+     *  digits. */
+    static String digest(byte[] contents) {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance(DIGEST_ALGORITHM)
+                .digest(contents);
+        } catch (NoSuchAlgorithmException excp) {
+            throw new IllegalStateException(excp);
+        }
+        StringBuilder hex = new StringBuilder(ID_LENGTH);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> HEX_BITS) & HEX_MASK, HEX))
+                .append(Character.forDigit(b & HEX_MASK, HEX));
+        }
+        return hex.toString();
+    }
+
+    /** Return the type letter (M, N, or R) of the rotor named NAME, or
+     *  0 if there is none. */
+    char rotorType(String name) {
+        int k = _names.indexOf(name);
+        return k == -1 ? 0 : _types.get(k);
+    }
+
+    /** Return the number of rotor slots. */
+    int numRotors() {
+        return _numRotors;
+    }
+
+    /** Return the number of pawls. */
+    int numPawls() {
+        return _numPawls;
+    }
+
+    /** Return every valid choice of rotors for my slots, reflector
+     *  first: a reflector, then distinct non-moving rotors in the slots
+     *  before the last numPawls(), then distinct moving rotors in those.
+     *  Orders are listed with earlier slots varying slowest. */
+    List<String[]> rotorOrders() {
+        ArrayList<String[]> orders = new ArrayList<>();
+        String[] slots = new String[_numRotors];
+        for (String name : _names) {
+            if (rotorType(name) == 'R') {
+                slots[0] = name;
+                addOrders(orders, slots, 1);
+            }
+        }
+        return orders;
+    }
+
+    /** Add to ORDERS each valid way of filling SLOTS from index I
+     *  onward with rotors not already in SLOTS[1 .. I-1]. */
+    private void addOrders(List<String[]> orders, String[] slots, int i) {
+        if (i == slots.length) {
+            orders.add(slots.clone());
+            return;
+        }
+        char type = i < _numRotors - _numPawls ? 'N' : 'M';
+        for (String name : _names) {
+            boolean used = false;
+            for (int j = 1; j < i; j += 1) {
+                used |= slots[j].equals(name);
+            }
+            if (!used && rotorType(name) == type) {
+                slots[i] = name;
+                addOrders(orders, slots, i + 1);
+            }
+        }
+    }
+
+    /** Return the settings line, in the format read by setUp, for the
+     *  rotors named in ORDER (reflector first) with start positions
+     *  POSITIONS, read as a number in base alphabet size with the
+     *  rightmost rotor least significant, and no ring setting or
+     *  plugboard. */
+    String settings(String[] order, long positions) {
+        StringBuilder line = new StringBuilder("*");
+        for (String rotor : order) {
+            line.append(' ').append(rotor);
+        }
+        char[] setting = new char[order.length - 1];
+        for (int i = setting.length - 1; i >= 0; i -= 1) {
+            setting[i] = _alphabet.toChar((int) (positions
+                                                  % _alphabet.size()));
+            positions /= _alphabet.size();
+        }
+        return line.append(' ').append(setting).toString();
+    }
+
+    /** Set M according to the specification given on SETTINGS,
+     *  which must have the format specified in the assignment. */
+    void setUp(Machine M, String settings) {
+        try {
+            Scanner settingsFeed = new Scanner(settings);
+            settingsFeed.next();
+            String[] rotorInserts = new String[M.numRotors()];
+
+            for (int i = 0; i < rotorInserts.length; i += 1) {
+                rotorInserts[i] = settingsFeed.next();
+            }
+
+            for (int i = 0; i < rotorInserts.length; i += 1) {
+                String name = rotorInserts[i];
+                for (int j = i + 1; j < rotorInserts.length; j += 1) {
+                    if (name.equals(rotorInserts[j])) {
+                        throw DUPLICATE_ROTOR;
+                    }
+                }
+            }
+
+            String notchSettings = settingsFeed.next();
+            String plugboardCycles = "";
+            Pattern q = Pattern.compile("[^\\(]*");
+
+            String ringSettings = "";
+            for (int i = 0; i < M.numRotors() - 1; i += 1) {
+                ringSettings += _alphabet.toChar(0);
+            }
+
+            if (settingsFeed.hasNext(q)) {
+                ringSettings = settingsFeed.next();
+            }
+
+            while (settingsFeed.hasNext(CYCLE)) {
+                plugboardCycles += settingsFeed.next(CYCLE) + " ";
+            }
+
+            M.insertRotors(rotorInserts);
+            M.setRotors(notchSettings);
+            M.setRingSetting(ringSettings);
+            M.setPlugboard(new Permutation(plugboardCycles, _alphabet));
+
+        } catch (NoSuchElementException e) {
+            throw BAD_SETTINGS;
+        }
+    }
+
+    /** Thrown when a settings line names a rotor twice. */
+    private static final EnigmaException DUPLICATE_ROTOR =
+        new EnigmaException("Cannot insert the same rotor twice.", false);
+
+    /** Thrown when a settings line is missing fields. */
+    private static final EnigmaException BAD_SETTINGS =
+        new EnigmaException("Bad rotor settings.", false);
+
+    /** Length of an id, and of a digest. */
+    static final int ID_LENGTH = 64;
+
+    /** Digest used for ids. */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /** Radix of digests, the number of bits in each of their digits, and
+     *  a mask selecting one digit. */
+    private static final int HEX = 16, HEX_BITS = 4, HEX_MASK = HEX - 1;
+
+    /** Pattern matching one cycle of a permutation description. */
+    private static final Pattern CYCLE = Pattern.compile("\\(.*\\)");
+
+    /** My alphabet. */
+    private Alphabet _alphabet;
+
+    /** Number of rotor slots. */
+    private int _numRotors;
+
+    /** Number of pawls. */
+    private int _numPawls;
+
+    /** Names of the available rotors. */
+    private ArrayList<String> _names;
+
+    /** Type letters (M, N, or R) of the available rotors. */
+    private ArrayList<Character> _types;
+
+    /** Notch letters of the available rotors. */
+    private ArrayList<String> _notches;
+
+    /** Permutations of the available rotors. */
+    private ArrayList<Permutation> _perms;
+}
@@ -0,0 +1,155 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static enigma.EnigmaException.*;
+
+/** Finds the offsets in a ciphertext at which a crib (a guessed piece of
+ *  plaintext) can lie.  Because every reflector is a derangement, a
+ *  machine never encodes a letter as itself, so a crib cannot lie at any
+ *  offset where one of its letters would sit over the same ciphertext
+ *  letter.
+ *
+ *  The ciphertext is kept as one bitset of positions per letter.  For
+ *  each crib letter, the positions of that letter, shifted back by its
+ *  place in the crib, are excluded 64 offsets at a time, so a crib of
+ *  length M is placed in a ciphertext of length N in about M * N / 64
+ *  word operations.
+ *  @author Sahil Gupta
+ */
+class CribFinder {
+
+    /** A finder for CIPHERTEXT, all of whose characters must be in
+     *  ALPHABET. */
+    CribFinder(Alphabet alphabet, CharSequence ciphertext) {
+        _alphabet = alphabet;
+        _length = ciphertext.length();
+        _words = (_length + Long.SIZE - 1) / Long.SIZE;
+        _positions = new long[alphabet.size()][_words + 1];
+        for (int i = 0; i < _length; i += 1) {
+            _positions[letter(ciphertext.charAt(i))][i / Long.SIZE] |=
+                1L << (i % Long.SIZE);
+        }
+    }
+
+    /** Return the index of C in my alphabet, which must contain it. */
+    private int letter(char c) {
+        int index = _alphabet.index(c);
+        if (index == -1) {
+            throw error("Character \"%c\" is not in the alphabet.", c);
+        }
+        return index;
+    }
+
+    /** Return the length of my ciphertext. */
+    int length() {
+        return _length;
+    }
+
+    /** Return a bitset (bit K of word K / 64) of the offsets at which
+     *  CRIB can lie in my ciphertext.  Its length is enough words for
+     *  length() bits. */
+    long[] placementBits(CharSequence crib) {
+        int m = crib.length();
+        long[] excluded = new long[_words];
+        if (m > _length) {
+            return excluded;
+        }
+        for (int j = 0; j < m; j += 1) {
+            long[] bits = _positions[letter(crib.charAt(j))];
+            int ws = j / Long.SIZE, bs = j % Long.SIZE;
+            for (int w = 0; w + ws < _words; w += 1) {
+                long shifted = bits[w + ws] >>> bs;
+                if (bs != 0) {
+                    shifted |= bits[w + ws + 1] << (Long.SIZE - bs);
+                }
+                excluded[w] |= shifted;
+            }
+        }
+        int last = _length - m;
+        for (int w = 0; w < _words; w += 1) {
+            long valid;
+            if ((w + 1) * Long.SIZE - 1 <= last) {
+                valid = -1L;
+            } else if (w * Long.SIZE > last) {
+                valid = 0;
+            } else {
+                valid = (-1L) >>> (Long.SIZE - 1 - (last - w * Long.SIZE));
+            }
+            excluded[w] = ~excluded[w] & valid;
+        }
+        return excluded;
+    }
+
+    /** Return the offsets, in increasing order, at which CRIB can lie in
+     *  my ciphertext. */
+    int[] placements(CharSequence crib) {
+        long[] bits = placementBits(crib);
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        int[] result = new int[count];
+        int k = 0;
+        for (int w = 0; w < bits.length; w += 1) {
+            for (long word = bits[w]; word != 0; word &= word - 1) {
+                result[k] = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                k += 1;
+            }
+        }
+        return result;
+    }
+
+    /** List the possible offsets of cribs in a ciphertext, as specified by
+     *  ARGS.  ARGS[0] names a configuration file (only its alphabet is
+     *  used), ARGS[1] names a file of ciphertext (whitespace is ignored),
+     *  and the remaining ARGS are cribs.  Prints one line per crib: the
+     *  crib, a colon, and its offsets separated by spaces. */
+    public static void main(String... args) {
+        try {
+            if (args.length < 3) {
+                throw error("usage: java enigma.CribFinder CONFIG "
+                            + "CIPHERTEXT CRIB...");
+            }
+            Configuration config = Configuration.load(args[0]);
+            String text;
+            try {
+                text = new String(Files.readAllBytes(new File(args[1])
+                                                     .toPath()));
+            } catch (IOException excp) {
+                throw error("could not read %s", args[1]);
+            }
+            CribFinder finder = new CribFinder(config.alphabet(),
+                                               text.replaceAll("\\s", ""));
+            StringBuilder out = new StringBuilder();
+            for (int i = 2; i < args.length; i += 1) {
+                out.append(args[i]).append(':');
+                for (int offset : finder.placements(args[i])) {
+                    out.append(' ').append(offset);
+                }
+                out.append(System.lineSeparator());
+            }
+            System.out.print(out);
+            return;
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** The alphabet of my ciphertext. */
+    private final Alphabet _alphabet;
+
+    /** Length of my ciphertext. */
+    private final int _length;
+
+    /** Number of words in a bitset of _length bits. */
+    private final int _words;
+
+    /** _positions[c] has bit K set iff ciphertext character K is letter
+     *  C.  Each has one extra zero word so shifts can read past the
+     *  end. */
+    private final long[][] _positions;
+}
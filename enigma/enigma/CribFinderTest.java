@@ -0,0 +1,65 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of CribFinder.
+ *  @author Sahil Gupta
+ */
+public class CribFinderTest {
+
+    /** Return the offsets at which CRIB can lie in TEXT, found the slow
+     *  way. */
+    private int[] bruteForce(String text, String crib) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int i = 0; i + crib.length() <= text.length(); i += 1) {
+            boolean ok = true;
+            for (int j = 0; j < crib.length(); j += 1) {
+                ok &= text.charAt(i + j) != crib.charAt(j);
+            }
+            if (ok) {
+                result.add(i);
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void testAgainstBruteForce() {
+        Alphabet alpha = new Alphabet("ABCD");
+        Random random = new Random(61);
+        for (int trial = 0; trial < 200; trial += 1) {
+            StringBuilder text = new StringBuilder();
+            int n = random.nextInt(300);
+            for (int i = 0; i < n; i += 1) {
+                text.append(alpha.toChar(random.nextInt(alpha.size())));
+            }
+            StringBuilder crib = new StringBuilder();
+            int m = 1 + random.nextInt(80);
+            for (int i = 0; i < m; i += 1) {
+                crib.append(alpha.toChar(random.nextInt(alpha.size())));
+            }
+            CribFinder finder = new CribFinder(alpha, text);
+            assertArrayEquals(bruteForce(text.toString(), crib.toString()),
+                              finder.placements(crib));
+        }
+    }
+
+    @Test
+    public void testMachineOutput() {
+        Machine machine = TestUtils.navalMachine();
+        String plain = "XXXXXWETTERVORHERSAGEXXXXX";
+        String cipher = machine.convert(plain);
+        int[] offsets = new CribFinder(TestUtils.UPPER, cipher)
+            .placements("WETTERVORHERSAGE");
+        boolean found = false;
+        for (int offset : offsets) {
+            found |= offset == 5;
+        }
+        assertTrue(found);
+    }
+}
@@ -0,0 +1,398 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import static enigma.EnigmaException.*;
+
+/** A catalog of the characteristics of every rotor order and start
+ *  position of a configuration, in the manner of Rejewski's card
+ *  catalog.  If A1 ... A6 are the substitutions a machine applies to the
+ *  first six letters of a message, the characteristic of its start
+ *  position is the cycle structure of the three products A4 A1, A5 A2,
+ *  and A6 A3.  Doubled message keys (indicators) reveal those products
+ *  directly, so a day's indicators narrow the start position to the few
+ *  with a matching characteristic.  Ring settings are at the first
+ *  letter and the plugboard is empty, as in SearchJob; the plugboard
+ *  changes the products only by conjugation, so it leaves their cycle
+ *  structure alone.
+ *
+ *  A catalog file is built once and then memory-mapped, so a lookup is
+ *  a probe of a hash index followed by a read of the matching keys,
+ *  with nothing loaded into the heap beforehand; catalogs larger than
+ *  one mapping are mapped in windows.  It holds a header,
+ *  then an open-addressing index whose slots each hold a characteristic
+ *  and the start and length of its run of keys, then every key (rotor
+ *  order times positions per order, plus start positions, as in
+ *  SearchJob), grouped by characteristic.  Characteristics are kept as
+ *  64-bit hashes of their cycle lengths.
+ *  @author Sahil Gupta
+ */
+class CycleCatalog {
+
+    /** Build a catalog for CONFIG in FILE, replacing any file there.
+     *  The characteristics are computed twice, once to size the runs of
+     *  keys and once to fill them, so that the heap holds only one entry
+     *  per distinct characteristic. */
+    static void build(Configuration config, File file) {
+        if (config.rotorOrders().size() * positions(config)
+            > Integer.MAX_VALUE) {
+            throw error("too many settings to catalog");
+        }
+        LongMap<int[]> runs = new LongMap<>();
+        long[][] distinct = { new long[INITIAL_DISTINCT] };
+        int[] numDistinct = { 0 };
+        scan(config, ch -> {
+            int[] run = runs.get(ch);
+            if (run == null) {
+                run = new int[RUN_FIELDS];
+                runs.put(ch, run);
+                if (numDistinct[0] == distinct[0].length) {
+                    distinct[0] = Arrays.copyOf(distinct[0],
+                                                2 * numDistinct[0]);
+                }
+                distinct[0][numDistinct[0]] = ch;
+                numDistinct[0] += 1;
+            }
+            run[COUNT] += 1;
+        });
+        int slots = LongSet.tableSize(numDistinct[0]);
+        long numKeys = config.rotorOrders().size() * positions(config);
+        if (slots > MAX_SLOTS) {
+            throw error("catalog too large");
+        }
+        try (FileChannel out = FileChannel.open(
+                 file.toPath(), StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING,
+                 StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer index = out.map(FileChannel.MapMode.READ_WRITE,
+                                             0, slotOffset(slots));
+            index.putInt(MAGIC).putInt(slots).putInt((int) numKeys)
+                .put(config.id().getBytes(StandardCharsets.US_ASCII));
+            int start = 0;
+            for (int i = 0; i < numDistinct[0]; i += 1) {
+                long ch = distinct[0][i];
+                int[] run = runs.get(ch);
+                run[START] = run[FILL] = start;
+                start += run[COUNT];
+                int slot = LongSet.slot(ch, slots - 1);
+                while (index.getInt(slotOffset(slot) + COUNT_OFFSET) != 0) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                index.putLong(slotOffset(slot), ch)
+                    .putInt(slotOffset(slot) + START_OFFSET, run[START])
+                    .putInt(slotOffset(slot) + COUNT_OFFSET, run[COUNT]);
+            }
+            MappedByteBuffer[] windows =
+                mapKeys(out, FileChannel.MapMode.READ_WRITE, slots,
+                        (int) numKeys);
+            int[] key = { 0 };
+            scan(config, ch -> {
+                int[] run = runs.get(ch);
+                windows[run[FILL] / KEYS_PER_WINDOW]
+                    .putInt(run[FILL] % KEYS_PER_WINDOW * Integer.BYTES,
+                            key[0]);
+                run[FILL] += 1;
+                key[0] += 1;
+            });
+            index.force();
+            for (MappedByteBuffer window : windows) {
+                window.force();
+            }
+        } catch (IOException excp) {
+            throw error("could not write catalog %s", file);
+        }
+    }
+
+    /** Call ACTION on the characteristic of every key of CONFIG, in
+     *  order of key. */
+    private static void scan(Configuration config, LongConsumer action) {
+        Alphabet alphabet = config.alphabet();
+        int n = alphabet.size();
+        int[][] first = new int[PRODUCTS][n], products = new int[PRODUCTS][n];
+        int[] lengths = new int[n];
+        for (String[] order : config.rotorOrders()) {
+            Machine machine = config.newMachine();
+            machine.insertRotors(order);
+            machine.setRingSetting(String.valueOf(alphabet.toChar(0))
+                                   .repeat(machine.numRotors() - 1));
+            TrialEnumerator trials =
+                new TrialEnumerator(machine, 2 * PRODUCTS);
+            do {
+                for (int i = 0; i < PRODUCTS; i += 1) {
+                    System.arraycopy(trials.table(i), 0, first[i], 0, n);
+                }
+                for (int i = 0; i < PRODUCTS; i += 1) {
+                    Permutation.compose(first[i], trials.table(i + PRODUCTS),
+                                        products[i]);
+                }
+                action.accept(characteristic(products, lengths));
+            } while (trials.next());
+        }
+    }
+
+    /** Map the NUMKEYS keys of the catalog open on CHANNEL, whose index
+     *  has SLOTS slots, in MODE, as a sequence of windows each holding
+     *  KEYS_PER_WINDOW keys (but the last). */
+    private static MappedByteBuffer[] mapKeys(FileChannel channel,
+                                              FileChannel.MapMode mode,
+                                              int slots, int numKeys)
+        throws IOException {
+        int count = (numKeys + KEYS_PER_WINDOW - 1) / KEYS_PER_WINDOW;
+        MappedByteBuffer[] windows = new MappedByteBuffer[count];
+        for (int w = 0; w < count; w += 1) {
+            int keys = Math.min(KEYS_PER_WINDOW, numKeys - w * KEYS_PER_WINDOW);
+            windows[w] = channel.map(mode, slotOffset(slots)
+                                     + (long) w * KEYS_PER_WINDOW
+                                     * Integer.BYTES,
+                                     (long) keys * Integer.BYTES);
+        }
+        return windows;
+    }
+
+    /** The catalog for CONFIG in FILE, built by build. */
+    CycleCatalog(Configuration config, File file) {
+        _config = config;
+        _orders = config.rotorOrders();
+        _positions = positions(config);
+        try (FileChannel in = FileChannel.open(file.toPath(),
+                                               StandardOpenOption.READ)) {
+            if (in.size() < HEADER_BYTES) {
+                throw error("%s is not a catalog", file);
+            }
+            MappedByteBuffer header =
+                in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw error("%s is not a catalog", file);
+            }
+            byte[] id = new byte[Configuration.ID_LENGTH];
+            header.get(ID_OFFSET, id);
+            if (!config.id().equals(new String(id,
+                                               StandardCharsets.US_ASCII))) {
+                throw error("catalog %s is for a different configuration",
+                            file);
+            }
+            _slots = header.getInt(Integer.BYTES);
+            int numKeys = header.getInt(2 * Integer.BYTES);
+            if (_slots <= 0 || _slots > MAX_SLOTS || numKeys < 0
+                || in.size() != slotOffset(_slots)
+                   + (long) numKeys * Integer.BYTES) {
+                throw error("catalog %s is damaged", file);
+            }
+            _index = in.map(FileChannel.MapMode.READ_ONLY, 0,
+                            slotOffset(_slots));
+            _windows = mapKeys(in, FileChannel.MapMode.READ_ONLY, _slots,
+                               numKeys);
+        } catch (IOException excp) {
+            throw error("could not read catalog %s", file);
+        }
+    }
+
+    /** Return the keys of all settings with characteristic CH, as
+     *  computed by characteristic. */
+    long[] lookup(long ch) {
+        int slot = LongSet.slot(ch, _slots - 1);
+        while (true) {
+            int at = slotOffset(slot);
+            int count = _index.getInt(at + COUNT_OFFSET);
+            if (count == 0) {
+                return new long[0];
+            } else if (_index.getLong(at) == ch) {
+                int start = _index.getInt(at + START_OFFSET);
+                long[] result = new long[count];
+                for (int i = 0; i < count; i += 1) {
+                    int k = start + i;
+                    result[i] = _windows[k / KEYS_PER_WINDOW]
+                        .getInt(k % KEYS_PER_WINDOW * Integer.BYTES);
+                }
+                return result;
+            }
+            slot = (slot + 1) & (_slots - 1);
+        }
+    }
+
+    /** Return the settings line for KEY. */
+    String describe(long key) {
+        return _config.settings(_orders.get((int) (key / _positions)),
+                                key % _positions);
+    }
+
+    /** Return the characteristic of the three products of PRODUCTS,
+     *  using LENGTHS, whose length is the alphabet size, as scratch. */
+    static long characteristic(int[][] products, int[] lengths) {
+        long h = HASH_BASIS;
+        for (int[] product : products) {
+            int k = Permutation.cycles(product, null, lengths);
+            Arrays.sort(lengths, 0, k);
+            for (int i = 0; i < k; i += 1) {
+                h = (h ^ lengths[i]) * HASH_PRIME;
+            }
+            h = (h ^ PRODUCT_END) * HASH_PRIME;
+        }
+        return h;
+    }
+
+    /** Return the characteristic given by INDICATORS, the doubled
+     *  message keys of a day's messages, in ALPHABET.  Each indicator has
+     *  2 * PRODUCTS characters. */
+    static long characteristic(Alphabet alphabet, List<String> indicators) {
+        int n = alphabet.size();
+        int[][] products = new int[PRODUCTS][n];
+        for (int[] product : products) {
+            Arrays.fill(product, -1);
+        }
+        for (String indicator : indicators) {
+            if (indicator.length() != 2 * PRODUCTS) {
+                throw error("bad indicator: %s", indicator);
+            }
+            for (int i = 0; i < PRODUCTS; i += 1) {
+                int from = alphabet.index(indicator.charAt(i)),
+                    to = alphabet.index(indicator.charAt(i + PRODUCTS));
+                if (from < 0 || to < 0) {
+                    throw error("bad indicator: %s", indicator);
+                }
+                if (products[i][from] >= 0 && products[i][from] != to) {
+                    throw error("inconsistent indicator: %s", indicator);
+                }
+                products[i][from] = to;
+            }
+        }
+        for (int[] product : products) {
+            for (int c : product) {
+                if (c < 0) {
+                    throw error("too few indicators to determine the "
+                                + "characteristic");
+                }
+            }
+        }
+        return characteristic(products, new int[n]);
+    }
+
+    /** Build or search a catalog.  ARGS is either
+     *      build CONFIG CATALOG
+     *  or
+     *      find CONFIG CATALOG INDICATORS
+     *  where INDICATORS names a file of whitespace-separated doubled
+     *  message keys.  find prints the settings line of each start
+     *  position whose characteristic matches the indicators. */
+    public static void main(String... args) {
+        try {
+            if (args.length < 3 || !(args[0].equals("build")
+                                     && args.length == 3
+                                     || args[0].equals("find")
+                                     && args.length == 4)) {
+                throw error("usage: java enigma.CycleCatalog build CONFIG "
+                            + "CATALOG | find CONFIG CATALOG INDICATORS");
+            }
+            Configuration config = Configuration.load(args[1]);
+            if (args[0].equals("build")) {
+                build(config, new File(args[2]));
+                return;
+            }
+            List<String> indicators;
+            try {
+                indicators = List.of(new String(Files.readAllBytes(
+                    new File(args[3]).toPath())).trim().split("\\s+"));
+            } catch (IOException excp) {
+                throw error("could not read %s", args[3]);
+            }
+            CycleCatalog catalog = new CycleCatalog(config, new File(args[2]));
+            StringBuilder out = new StringBuilder();
+            for (long key : catalog.lookup(characteristic(config.alphabet(),
+                                                          indicators))) {
+                out.append(catalog.describe(key))
+                    .append(System.lineSeparator());
+            }
+            System.out.print(out);
+            return;
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** Return the number of start positions of each rotor order of
+     *  CONFIG. */
+    private static long positions(Configuration config) {
+        long positions = 1;
+        for (int i = 1; i < config.numRotors(); i += 1) {
+            positions *= config.alphabet().size();
+        }
+        return positions;
+    }
+
+    /** Return the offset in a catalog file of index slot SLOT. */
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    /** Number of products in a characteristic: the length of a message
+     *  key. */
+    static final int PRODUCTS = 3;
+
+    /** First word of a catalog file. */
+    private static final int MAGIC = 0x454E4343;
+
+    /** Offset in the header of the id of the configuration (see
+     *  Configuration.id), which follows the magic number, number of
+     *  index slots, and number of keys. */
+    private static final int ID_OFFSET = 3 * Integer.BYTES;
+
+    /** Size of the header. */
+    private static final int HEADER_BYTES =
+        ID_OFFSET + Configuration.ID_LENGTH;
+
+    /** Size of an index slot: characteristic, start, and count. */
+    private static final int SLOT_BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+    /** Offsets within a slot of the start and count of its run. */
+    private static final int START_OFFSET = Long.BYTES,
+        COUNT_OFFSET = Long.BYTES + Integer.BYTES;
+
+    /** Largest number of index slots, so that the header and index fit
+     *  in one mapping. */
+    private static final int MAX_SLOTS =
+        (Integer.MAX_VALUE - HEADER_BYTES) / SLOT_BYTES / 2;
+
+    /** Number of keys in each mapped window of the keys (1 GB). */
+    private static final int KEYS_PER_WINDOW = 1 << 28;
+
+    /** Initial size of the array of distinct characteristics. */
+    private static final int INITIAL_DISTINCT = 1024;
+
+    /** Fields of the per-characteristic runs used while building. */
+    private static final int COUNT = 0, START = 1, FILL = 2, RUN_FIELDS = 3;
+
+    /** FNV-1a constants used to hash cycle lengths. */
+    private static final long HASH_BASIS = 0xcbf29ce484222325L,
+        HASH_PRIME = 0x100000001b3L;
+
+    /** Value hashed after each product's cycle lengths. */
+    private static final int PRODUCT_END = 0;
+
+    /** The configuration. */
+    private final Configuration _config;
+
+    /** Its rotor orders. */
+    private final List<String[]> _orders;
+
+    /** Start positions per rotor order. */
+    private final long _positions;
+
+    /** The mapped header and index. */
+    private final MappedByteBuffer _index;
+
+    /** The mapped keys, KEYS_PER_WINDOW to a window. */
+    private final MappedByteBuffer[] _windows;
+
+    /** Number of index slots. */
+    private final int _slots;
+}
@@ -0,0 +1,61 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+/** Tests of CycleCatalog.
+ *  @author Sahil Gupta
+ */
+public class CycleCatalogTest {
+
+    /** A small configuration: three slots, so that a catalog is quick to
+     *  build. */
+    static final String CONFIG =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZ 3 2\n"
+        + " I MQ (AELTPHQXRU) (BKNW) (CMOY) (DFG) (IV) (JZ) (S)\n"
+        + " III MV (ABDHPEJT) (CFLVMZOYQIRWUKXSG) (N)\n"
+        + " IV MJ (AEPLIYWCOXMRFZBSTGJQNH) (DV) (KU)\n"
+        + " B R (AE) (BN) (CK) (DQ) (FU) (GY) (HW) (IJ) (LO) (MP)\n"
+        + "     (RX) (SZ) (TV)\n";
+
+    @Test
+    public void testFindFromIndicators() throws IOException {
+        Configuration config = new Configuration(new Scanner(CONFIG));
+        String settings = "* B IV I QR";
+        Random random = new Random(37);
+        ArrayList<String> indicators = new ArrayList<>();
+        for (int m = 0; m < 300; m += 1) {
+            Machine machine = config.newMachine();
+            config.setUp(machine, settings);
+            String key = "";
+            for (int i = 0; i < CycleCatalog.PRODUCTS; i += 1) {
+                key += (char) ('A' + random.nextInt(26));
+            }
+            indicators.add(machine.convert(key + key));
+        }
+        File file = File.createTempFile("catalog", ".cat");
+        try {
+            CycleCatalog.build(config, file);
+            CycleCatalog catalog = new CycleCatalog(config, file);
+            long[] keys = catalog.lookup(
+                CycleCatalog.characteristic(config.alphabet(), indicators));
+            ArrayList<String> found = new ArrayList<>();
+            for (long key : keys) {
+                found.add(catalog.describe(key));
+            }
+            assertTrue(found.contains(settings));
+            assertTrue(keys.length < 26 * 26 * 6 / 10);
+            assertEquals(0, catalog.lookup(0).length);
+        } finally {
+            file.delete();
+        }
+    }
+
+}
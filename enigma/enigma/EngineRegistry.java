@@ -0,0 +1,207 @@
+package enigma;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** A registry of EnigmaEngines for configuration files, for long-running
+ *  services that use several configurations.  Each file is read once when
+ *  registered; after that, a background thread watches it and rebuilds
+ *  its engine when its contents change.  Engines are cached by a hash of
+ *  the file contents, so files with the same contents share an engine and
+ *  a change that only touches a file is not parsed again.  The
+ *  MAX_PREVIOUS engines most recently replaced are also kept, so a change
+ *  that restores recent earlier contents gets the earlier engine back.
+ *
+ *  Looking up an engine never parses or waits: it returns the latest
+ *  engine built for the file.  A reload replaces that engine in one step,
+ *  so new work picks up the new configuration, while work already holding
+ *  the old engine (and settings made by it) carries on unaffected.  If a
+ *  changed file cannot be parsed, the old engine stays in place and the
+ *  error is kept for reloadError.
+ *  @author Sahil Gupta
+ */
+public final class EngineRegistry implements Closeable {
+
+    /** An empty registry, with its watcher thread started. */
+    public EngineRegistry() throws IOException {
+        _watcher = FileSystems.getDefault().newWatchService();
+        _engines = new ConcurrentHashMap<>();
+        _hashes = new ConcurrentHashMap<>();
+        _cache = new ConcurrentHashMap<>();
+        _previous = new LinkedHashMap<>(MAX_PREVIOUS, LOAD_FACTOR, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                    Map.Entry<String, EnigmaEngine> eldest) {
+                    return size() > MAX_PREVIOUS;
+                }
+            };
+        _errors = new ConcurrentHashMap<>();
+        _watched = ConcurrentHashMap.newKeySet();
+        Thread thread = new Thread(this::watch, "enigma-config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Read the configuration in FILE, if it is not registered already,
+     *  start watching it, and return its engine. */
+    public EnigmaEngine register(Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        EnigmaEngine engine = _engines.get(path);
+        if (engine != null) {
+            return engine;
+        }
+        synchronized (this) {
+            Path dir = path.getParent();
+            if (_watched.add(dir)) {
+                dir.register(_watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                             StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+            if (!_engines.containsKey(path)) {
+                load(path, Files.readAllBytes(path));
+            }
+        }
+        return _engines.get(path);
+    }
+
+    /** Returns the current engine for the registered file FILE. */
+    public EnigmaEngine get(Path file) {
+        EnigmaEngine engine = _engines.get(file.toAbsolutePath().normalize());
+        if (engine == null) {
+            throw new IllegalArgumentException(file + " is not registered");
+        }
+        return engine;
+    }
+
+    /** Returns the error from the last attempt to reload FILE, or null if
+     *  it succeeded. */
+    public String reloadError(Path file) {
+        return _errors.get(file.toAbsolutePath().normalize());
+    }
+
+    /** Stop watching files.  Engines already obtained stay usable. */
+    @Override
+    public void close() throws IOException {
+        _watcher.close();
+    }
+
+    /** Reread the registered file PATH and replace its engine if its
+     *  contents have changed.  Called by the watcher thread. */
+    void reload(Path path) {
+        try {
+            load(path, Files.readAllBytes(path));
+            _errors.remove(path);
+        } catch (IOException | IllegalArgumentException excp) {
+            _errors.put(path, String.valueOf(excp.getMessage()));
+        }
+    }
+
+    /** Make the engine for CONTENTS, building it unless one is cached,
+     *  the current engine for PATH, and move cached engines no longer
+     *  current for any file to _previous. */
+    private synchronized void load(Path path, byte[] contents) {
+        String hash = Configuration.digest(contents);
+        if (hash.equals(_hashes.get(path))) {
+            return;
+        }
+        EnigmaEngine engine = _cache.get(hash);
+        if (engine == null) {
+            engine = _previous.remove(hash);
+        }
+        if (engine == null) {
+            engine = EnigmaEngine.fromString(
+                new String(contents, StandardCharsets.UTF_8));
+        }
+        _cache.put(hash, engine);
+        _engines.put(path, engine);
+        _hashes.put(path, hash);
+        Set<String> current = new HashSet<>(_hashes.values());
+        Iterator<Map.Entry<String, EnigmaEngine>> entries =
+            _cache.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, EnigmaEngine> entry = entries.next();
+            if (!current.contains(entry.getKey())) {
+                _previous.put(entry.getKey(), entry.getValue());
+                entries.remove();
+            }
+        }
+    }
+
+    /** Body of the watcher thread: reload registered files as they
+     *  change, until the registry is closed. */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = _watcher.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        reloadAll(dir);
+                    } else {
+                        Path path = dir.resolve((Path) event.context());
+                        if (_engines.containsKey(path)) {
+                            reload(path);
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException excp) {
+            return;
+        }
+    }
+
+    /** Reload every registered file in DIR, after events were lost. */
+    private void reloadAll(Path dir) {
+        for (Path path : _engines.keySet()) {
+            if (dir.equals(path.getParent())) {
+                reload(path);
+            }
+        }
+    }
+
+    /** Number of engines no longer current for any file that are kept
+     *  for reuse. */
+    static final int MAX_PREVIOUS = 8;
+
+    /** Load factor of _previous. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** Notifies me of changes to the directories of registered files. */
+    private final WatchService _watcher;
+
+    /** The current engine for each registered file. */
+    private final Map<Path, EnigmaEngine> _engines;
+
+    /** The hash of the contents from which each registered file's current
+     *  engine was built. */
+    private final Map<Path, String> _hashes;
+
+    /** Current engines by the hash of the contents they were built
+     *  from. */
+    private final Map<String, EnigmaEngine> _cache;
+
+    /** The engines most recently replaced and no longer current, by hash,
+     *  least recently used first.  Guarded by this registry's lock. */
+    private final LinkedHashMap<String, EnigmaEngine> _previous;
+
+    /** The error from the last failed reload of each file. */
+    private final Map<Path, String> _errors;
+
+    /** Directories registered with _watcher. */
+    private final Set<Path> _watched;
+}
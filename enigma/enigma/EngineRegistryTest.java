@@ -0,0 +1,129 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.Assert.*;
+
+/** Tests of EngineRegistry.
+ *  @author Sahil Gupta
+ */
+public class EngineRegistryTest {
+
+    /** EnigmaProcessorTest.CONFIG with rotor I's wiring changed. */
+    static final String CHANGED =
+        EnigmaProcessorTest.CONFIG.replace("(AELTPHQXRU)", "(AELTPHQXUR)");
+
+    /** Write TEXT to FILE by renaming a new file over it, as editors
+     *  do. */
+    private static void replace(Path file, String text) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, text);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Delete DIR and the files in it. */
+    private static void delete(Path dir) throws IOException {
+        for (Path file : Files.list(dir).toArray(Path[]::new)) {
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testCacheAndReload() throws IOException {
+        Path dir = Files.createTempDirectory("registry");
+        try (EngineRegistry registry = new EngineRegistry()) {
+            Path a = dir.resolve("a.conf"), b = dir.resolve("b.conf");
+            Files.writeString(a, EnigmaProcessorTest.CONFIG);
+            Files.writeString(b, EnigmaProcessorTest.CONFIG);
+            EnigmaEngine engine = registry.register(a);
+            assertSame(engine, registry.register(b));
+            assertSame(engine, registry.get(a));
+            EnigmaSettings old = engine.settings(EnigmaEngineTest.SETTINGS);
+
+            Files.writeString(a, EnigmaProcessorTest.CONFIG);
+            registry.reload(a.toAbsolutePath());
+            assertSame(engine, registry.get(a));
+
+            Files.writeString(a, CHANGED);
+            registry.reload(a.toAbsolutePath());
+            EnigmaEngine changed = registry.get(a);
+            assertNotSame(engine, changed);
+            assertSame(engine, registry.get(b));
+            assertEquals(EnigmaEngineTest.CIPHER,
+                         engine.encrypt(old, EnigmaEngineTest.PLAIN));
+            assertNotEquals(EnigmaEngineTest.CIPHER,
+                            changed.encrypt(
+                                changed.settings(EnigmaEngineTest.SETTINGS),
+                                EnigmaEngineTest.PLAIN));
+
+            Files.writeString(a, "ABC 5");
+            registry.reload(a.toAbsolutePath());
+            assertSame(changed, registry.get(a));
+            assertNotNull(registry.reloadError(a));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testRevert() throws IOException {
+        Path dir = Files.createTempDirectory("registry");
+        try (EngineRegistry registry = new EngineRegistry()) {
+            Path file = dir.resolve("default.conf");
+            Files.writeString(file, EnigmaProcessorTest.CONFIG);
+            EnigmaEngine engine = registry.register(file);
+            Files.writeString(file, CHANGED);
+            registry.reload(file.toAbsolutePath());
+            EnigmaEngine changed = registry.get(file);
+            assertNotSame(engine, changed);
+            Files.writeString(file, EnigmaProcessorTest.CONFIG);
+            registry.reload(file.toAbsolutePath());
+            assertSame(engine, registry.get(file));
+            Files.writeString(file, CHANGED);
+            registry.reload(file.toAbsolutePath());
+            assertSame(changed, registry.get(file));
+
+            for (int i = 0; i <= EngineRegistry.MAX_PREVIOUS; i += 1) {
+                Files.writeString(file, CHANGED + "\n".repeat(i + 1));
+                registry.reload(file.toAbsolutePath());
+            }
+            Files.writeString(file, EnigmaProcessorTest.CONFIG);
+            registry.reload(file.toAbsolutePath());
+            assertNotSame(engine, registry.get(file));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testWatch() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("registry");
+        try (EngineRegistry registry = new EngineRegistry()) {
+            Path file = dir.resolve("default.conf");
+            Files.writeString(file, EnigmaProcessorTest.CONFIG);
+            EnigmaEngine engine = registry.register(file);
+            replace(file, CHANGED);
+            while (registry.get(file) == engine) {
+                Thread.sleep(50);
+            }
+            assertNull(registry.reloadError(file));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnregistered() throws IOException {
+        try (EngineRegistry registry = new EngineRegistry()) {
+            registry.get(Path.of("nowhere.conf"));
+        }
+    }
+
+}
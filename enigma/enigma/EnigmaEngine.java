@@ -0,0 +1,247 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+/** An Enigma engine for use as a library, so that other programs can
+ *  encrypt in-process rather than by running Main on files.  An engine is
+ *  built once from a configuration, in the format Main reads, and may be
+ *  shared between threads.  Settings lines are parsed once into
+ *  EnigmaSettings; each call then starts from its settings, so calls do
+ *  not affect each other.  Each thread reuses its own machine and scratch
+ *  buffer; the char[] and byte[] methods convert in place, without
+ *  copying the text.  A thread that uses the same settings repeatedly
+ *  only resets its machine's rotor positions between calls.
+ *
+ *  An Enigma machine is its own inverse, so decrypt does the same as
+ *  encrypt.  Every character converted must be in the configuration's
+ *  alphabet.  Bad configurations, settings and text are reported with
+ *  IllegalArgumentException, leaving the text unchanged.
+ *  @author Sahil Gupta
+ */
+public final class EnigmaEngine {
+
+    /** An engine using CONFIG. */
+    private EnigmaEngine(Configuration config) {
+        _config = config;
+        _alphabet = config.alphabet();
+        boolean bytes = true;
+        for (int i = 0; i < _alphabet.size(); i += 1) {
+            bytes &= _alphabet.toChar(i) <= BYTE_MASK;
+        }
+        _singleBytes = bytes;
+        _sessions = ThreadLocal.withInitial(
+            () -> new Session(_config.newMachine()));
+    }
+
+    /** Returns an engine for the configuration whose text is CONFIG. */
+    public static EnigmaEngine fromString(String config) {
+        return fromScanner(new Scanner(config));
+    }
+
+    /** Returns an engine for the configuration in the file PATH. */
+    public static EnigmaEngine fromPath(Path path) throws IOException {
+        return fromString(Files.readString(path));
+    }
+
+    /** Returns an engine for the configuration read from IN, which is
+     *  read to its end but not closed. */
+    public static EnigmaEngine fromStream(InputStream in)
+        throws IOException {
+        return fromString(new String(in.readAllBytes(),
+                                     StandardCharsets.UTF_8));
+    }
+
+    /** Return an engine for the configuration read from CONFIG. */
+    private static EnigmaEngine fromScanner(Scanner config) {
+        try {
+            return new EnigmaEngine(new Configuration(config));
+        } catch (EnigmaException excp) {
+            throw new IllegalArgumentException(excp.getMessage(), excp);
+        }
+    }
+
+    /** Returns the settings given by LINE, a settings line in the format
+     *  Main reads, such as "* B Beta III IV I AXLE (YF) (ZH)". */
+    public EnigmaSettings settings(String line) {
+        if (!line.trim().startsWith("*")) {
+            throw new IllegalArgumentException(
+                "Settings line must start with \"*\".");
+        }
+        Session session = _sessions.get();
+        Machine machine = session.machine();
+        session.setSettings(null);
+        try {
+            _config.setUp(machine, line);
+        } catch (EnigmaException excp) {
+            throw new IllegalArgumentException(excp.getMessage(), excp);
+        }
+        return new EnigmaSettings(this, line, machine.snapshot(),
+                                  machine.plugboard());
+    }
+
+    /** Returns the encryption of TEXT with SETTINGS. */
+    public String encrypt(EnigmaSettings settings, CharSequence text) {
+        Session session = start(settings);
+        char[] buf = session.buffer(text.length());
+        for (int i = 0; i < text.length(); i += 1) {
+            buf[i] = text.charAt(i);
+        }
+        convert(session.machine(), buf, 0, text.length());
+        return new String(buf, 0, text.length());
+    }
+
+    /** Returns the decryption of TEXT with SETTINGS. */
+    public String decrypt(EnigmaSettings settings, CharSequence text) {
+        return encrypt(settings, text);
+    }
+
+    /** Encrypt the LEN characters of BUF starting at OFF with SETTINGS,
+     *  in place. */
+    public void encrypt(EnigmaSettings settings, char[] buf, int off,
+                        int len) {
+        checkRange(buf.length, off, len);
+        convert(start(settings).machine(), buf, off, len);
+    }
+
+    /** Decrypt the LEN characters of BUF starting at OFF with SETTINGS,
+     *  in place. */
+    public void decrypt(EnigmaSettings settings, char[] buf, int off,
+                        int len) {
+        encrypt(settings, buf, off, len);
+    }
+
+    /** Encrypt the LEN bytes of BUF starting at OFF with SETTINGS, in
+     *  place.  Each byte holds one character in ISO 8859-1, so every
+     *  character of the alphabet used must fit in a byte. */
+    public void encrypt(EnigmaSettings settings, byte[] buf, int off,
+                        int len) {
+        checkRange(buf.length, off, len);
+        if (!_singleBytes) {
+            throw new IllegalArgumentException(
+                "Alphabet does not fit in single bytes.");
+        }
+        Machine machine = start(settings).machine();
+        for (int i = off; i < off + len; i += 1) {
+            checkChar((char) (buf[i] & BYTE_MASK));
+        }
+        for (int i = off; i < off + len; i += 1) {
+            int c = _alphabet.index((char) (buf[i] & BYTE_MASK));
+            buf[i] = (byte) _alphabet.toChar(machine.convert(c));
+        }
+    }
+
+    /** Decrypt the LEN bytes of BUF starting at OFF with SETTINGS, in
+     *  place, as for encrypt. */
+    public void decrypt(EnigmaSettings settings, byte[] buf, int off,
+                        int len) {
+        encrypt(settings, buf, off, len);
+    }
+
+    /** Return this thread's session, with its machine set to
+     *  SETTINGS. */
+    private Session start(EnigmaSettings settings) {
+        if (settings.engine() != this) {
+            throw new IllegalArgumentException(
+                "Settings belong to another engine.");
+        }
+        Session session = _sessions.get();
+        if (session.settings() == settings) {
+            session.machine().restorePositions(settings.state());
+        } else {
+            session.machine().restore(settings.state(),
+                                      settings.plugboard());
+            session.setSettings(settings);
+        }
+        return session;
+    }
+
+    /** Convert the LEN characters of BUF starting at OFF with M, after
+     *  checking that all are in my alphabet. */
+    private void convert(Machine M, char[] buf, int off, int len) {
+        for (int i = off; i < off + len; i += 1) {
+            checkChar(buf[i]);
+        }
+        M.convert(buf, off, len);
+    }
+
+    /** Throw if C is not in my alphabet. */
+    private void checkChar(char c) {
+        if (_alphabet.index(c) == -1) {
+            throw new IllegalArgumentException(
+                "Character \"" + c + "\" is not in the alphabet.");
+        }
+    }
+
+    /** Throw if OFF and LEN do not describe part of an array of length
+     *  LENGTH. */
+    private static void checkRange(int length, int off, int len) {
+        if (off < 0 || len < 0 || len > length - off) {
+            throw new IndexOutOfBoundsException(
+                "Bad offset or length: " + off + ", " + len);
+        }
+    }
+
+    /** One thread's machine and scratch buffer. */
+    private static final class Session {
+        /** A session using MACHINE. */
+        Session(Machine machine) {
+            _machine = machine;
+            _buffer = new char[INITIAL_BUFFER];
+        }
+
+        /** Return my machine. */
+        Machine machine() {
+            return _machine;
+        }
+
+        /** Return the settings my machine was last restored to, or null
+         *  if it has been set up otherwise since. */
+        EnigmaSettings settings() {
+            return _settings;
+        }
+
+        /** Record that my machine was last restored to SETTINGS. */
+        void setSettings(EnigmaSettings settings) {
+            _settings = settings;
+        }
+
+        /** Return my scratch buffer, grown if needed to hold at least
+         *  SIZE characters. */
+        char[] buffer(int size) {
+            if (_buffer.length < size) {
+                _buffer = new char[Math.max(size, 2 * _buffer.length)];
+            }
+            return _buffer;
+        }
+
+        /** My machine. */
+        private final Machine _machine;
+        /** My scratch buffer. */
+        private char[] _buffer;
+        /** Settings my machine was last restored to, or null. */
+        private EnigmaSettings _settings;
+    }
+
+    /** Initial size of each session's scratch buffer. */
+    private static final int INITIAL_BUFFER = 256;
+
+    /** Mask selecting the unsigned value of a byte. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** My configuration. */
+    private final Configuration _config;
+
+    /** My configuration's alphabet. */
+    private final Alphabet _alphabet;
+
+    /** True iff every character of my alphabet fits in one byte. */
+    private final boolean _singleBytes;
+
+    /** Each thread's session. */
+    private final ThreadLocal<Session> _sessions;
+}
@@ -0,0 +1,144 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Tests of EnigmaEngine.
+ *  @author Sahil Gupta
+ */
+public class EnigmaEngineTest {
+
+    /** Settings used with EnigmaProcessorTest.CONFIG. */
+    static final String SETTINGS =
+        "* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)";
+
+    /** Plaintext. */
+    static final String PLAIN = "FROMHISSHOULDERHIAWATHA";
+
+    /** PLAIN encrypted with SETTINGS. */
+    static final String CIPHER = "QVPQSOKOILPUBKJZPISFXDW";
+
+    @Test
+    public void testStrings() {
+        EnigmaEngine engine =
+            EnigmaEngine.fromString(EnigmaProcessorTest.CONFIG);
+        EnigmaSettings settings = engine.settings(SETTINGS);
+        assertEquals(SETTINGS, settings.toString());
+        assertEquals(CIPHER, engine.encrypt(settings, PLAIN));
+        assertEquals(CIPHER, engine.encrypt(settings,
+                                            new StringBuilder(PLAIN)));
+        assertEquals(PLAIN, engine.decrypt(settings, CIPHER));
+    }
+
+    @Test
+    public void testReuse() {
+        EnigmaEngine engine =
+            EnigmaEngine.fromString(EnigmaProcessorTest.CONFIG);
+        EnigmaSettings settings = engine.settings(SETTINGS),
+            other = engine.settings("* B Beta I III IV MMMM AAAA (AB)");
+        assertEquals(CIPHER, engine.encrypt(settings, PLAIN));
+        assertEquals(CIPHER, engine.encrypt(settings, PLAIN));
+        String otherCipher = engine.encrypt(other, PLAIN);
+        assertEquals(CIPHER, engine.encrypt(settings, PLAIN));
+        engine.settings("* B Beta IV I III ZZZZ");
+        assertEquals(CIPHER, engine.encrypt(settings, PLAIN));
+        try {
+            engine.settings("* B Beta III IV Q AXLE");
+            fail("accepted a bad settings line");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+        assertEquals(CIPHER, engine.encrypt(settings, PLAIN));
+        assertEquals(otherCipher, engine.encrypt(other, PLAIN));
+        assertEquals(otherCipher, engine.encrypt(other, PLAIN));
+    }
+
+    @Test
+    public void testArrays() throws IOException {
+        EnigmaEngine engine = EnigmaEngine.fromStream(
+            new ByteArrayInputStream(EnigmaProcessorTest.CONFIG.getBytes(
+                StandardCharsets.UTF_8)));
+        EnigmaSettings settings = engine.settings(SETTINGS);
+        char[] chars = ("<" + PLAIN + ">").toCharArray();
+        engine.encrypt(settings, chars, 1, PLAIN.length());
+        assertEquals("<" + CIPHER + ">", new String(chars));
+        byte[] bytes = CIPHER.getBytes(StandardCharsets.ISO_8859_1);
+        engine.decrypt(settings, bytes, 0, bytes.length);
+        assertEquals(PLAIN, new String(bytes, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testErrors() {
+        EnigmaEngine engine =
+            EnigmaEngine.fromString(EnigmaProcessorTest.CONFIG);
+        EnigmaSettings settings = engine.settings(SETTINGS);
+        char[] text = "FROM HIS".toCharArray();
+        try {
+            engine.encrypt(settings, text, 0, text.length);
+            fail("blank accepted");
+        } catch (IllegalArgumentException excp) {
+            assertEquals("FROM HIS", new String(text));
+        }
+        String[] bad = { "B Beta III IV I AXLE", "* B Beta III IV Q AXLE",
+                         "* B Beta III IV I AXL" };
+        for (String line : bad) {
+            try {
+                engine.settings(line);
+                fail("bad settings accepted: " + line);
+            } catch (IllegalArgumentException excp) {
+                /* Expected. */
+            }
+        }
+        try {
+            EnigmaEngine.fromString(EnigmaProcessorTest.CONFIG)
+                .encrypt(settings, PLAIN);
+            fail("settings from another engine accepted");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+        try {
+            EnigmaEngine.fromString("ABC 5");
+            fail("bad configuration accepted");
+        } catch (IllegalArgumentException excp) {
+            /* Expected. */
+        }
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        EnigmaEngine engine =
+            EnigmaEngine.fromString(EnigmaProcessorTest.CONFIG);
+        EnigmaSettings settings = engine.settings(SETTINGS);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t += 1) {
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i += 1) {
+                        if (!engine.encrypt(settings, PLAIN)
+                            .equals(CIPHER)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -1,26 +1,34 @@
-package enigma;
-
-/** A general-purpose error-reporting exception for this package.  All
- *  anticipated user or I/O errors should be reported through this
- *  exception, with the message being the error message to be printed.
- *  @author P. N. Hilfinger
- */
-class EnigmaException extends RuntimeException {
-
-    /** An exception whose getMessage() value is MSG. */
-    EnigmaException(String msg) {
-        super(msg);
-    }
-
-    /** A utility method that returns a new exception with a message
-     *  formed from MSGFORMAT and ARGUMENTS, interpreted as for the
-     *  String.format method or the standard printf methods.
-     *
-     *  The use is thus 'throw error(...)', which tells the compiler that
-     *  execution will terminate at that point, and avoid insistance on
-     *  an explicit return in a value-returning function.)  */
-    static EnigmaException error(String msgFormat, Object... arguments) {
-        return new EnigmaException(String.format(msgFormat, arguments));
-    }
-
-}
+package enigma;
+
+/** A general-purpose error-reporting exception for this package.  All
+ *  anticipated user or I/O errors should be reported through this
+ *  exception, with the message being the error message to be printed.
+ *  @author P. N. Hilfinger
+ */
+class EnigmaException extends RuntimeException {
+
+    /** An exception whose getMessage() value is MSG. */
+    EnigmaException(String msg) {
+        super(msg);
+    }
+
+    /** An exception whose getMessage() value is MSG and which records a
+     *  stack trace only if STACKTRACE.  Without one, it is cheap enough
+     *  to create for each bad line of a large batch and, having no
+     *  per-throw state, may be created once and thrown repeatedly. */
+    EnigmaException(String msg, boolean stackTrace) {
+        super(msg, null, false, stackTrace);
+    }
+
+    /** A utility method that returns a new exception with a message
+     *  formed from MSGFORMAT and ARGUMENTS, interpreted as for the
+     *  String.format method or the standard printf methods.
+     *
+     *  The use is thus 'throw error(...)', which tells the compiler that
+     *  execution will terminate at that point, and avoid insistance on
+     *  an explicit return in a value-returning function.)  */
+    static EnigmaException error(String msgFormat, Object... arguments) {
+        return new EnigmaException(String.format(msgFormat, arguments));
+    }
+
+}
@@ -0,0 +1,84 @@
+package enigma;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/** An InputStream that encodes/decodes the bytes read from another
+ *  InputStream with an Enigma machine.  Each byte is taken as the
+ *  ISO-8859-1 code of a character in the machine's alphabet.  The
+ *  machine's rotors keep their state from one read to the next.
+ *  @author Sahil Gupta
+ */
+class EnigmaInputStream extends FilterInputStream {
+
+    /** A stream that converts the bytes of IN with MACHINE, which must
+     *  already be configured. */
+    EnigmaInputStream(InputStream in, Machine machine) {
+        super(in);
+        _machine = machine;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n == -1 ? -1 : one[0] & BYTE_MASK;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            ByteBuffer buf = ByteBuffer.wrap(b, off, n);
+            try {
+                _machine.convert(buf.duplicate(), buf);
+            } catch (EnigmaException excp) {
+                throw new IOException(excp.getMessage(), excp);
+            }
+        }
+        return n;
+    }
+
+    /** Skip N bytes, which must still pass through the machine so that
+     *  the rotors stay in step with the message.  Returns the number of
+     *  bytes actually skipped. */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] scratch = new byte[(int) Math.min(n, SKIP_BLOCK)];
+        long skipped = 0;
+        while (skipped < n) {
+            int k = read(scratch, 0,
+                         (int) Math.min(n - skipped, scratch.length));
+            if (k == -1) {
+                break;
+            }
+            skipped += k;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("reset not supported");
+    }
+
+    /** Mask selecting the unsigned value of a byte. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** Largest number of bytes skipped in one read. */
+    private static final int SKIP_BLOCK = 8192;
+
+    /** The machine converting my bytes. */
+    private final Machine _machine;
+}
@@ -0,0 +1,54 @@
+package enigma;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/** An OutputStream that encodes/decodes bytes with an Enigma machine
+ *  before passing them on to another OutputStream.  Each byte is taken
+ *  as the ISO-8859-1 code of a character in the machine's alphabet.
+ *  The machine's rotors keep their state from one write to the next,
+ *  and callers' arrays are never modified.
+ *  @author Sahil Gupta
+ */
+class EnigmaOutputStream extends FilterOutputStream {
+
+    /** A stream that converts bytes with MACHINE, which must already be
+     *  configured, and writes the results to OUT. */
+    EnigmaOutputStream(OutputStream out, Machine machine) {
+        super(out);
+        _machine = machine;
+        _buffer = ByteBuffer.allocate(BLOCK);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, _buffer.capacity());
+            _buffer.clear();
+            try {
+                _machine.convert(ByteBuffer.wrap(b, off, n), _buffer);
+            } catch (EnigmaException excp) {
+                throw new IOException(excp.getMessage(), excp);
+            }
+            out.write(_buffer.array(), 0, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** Size of my conversion buffer. */
+    private static final int BLOCK = 8192;
+
+    /** The machine converting my bytes. */
+    private final Machine _machine;
+
+    /** Reusable buffer receiving converted bytes. */
+    private final ByteBuffer _buffer;
+}
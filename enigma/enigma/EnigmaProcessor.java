@@ -0,0 +1,280 @@
+package enigma;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** A Flow.Processor that converts a stream of messages with an Enigma
+ *  machine.  Each item carries an optional settings line and a message;
+ *  each result is the converted message, without spaces.  A settings line
+ *  takes effect for its own message and all that follow it.
+ *
+ *  The processor has one subscriber, whose machine is built from a shared
+ *  Configuration when it subscribes.  It never requests more items from
+ *  upstream than its subscriber has asked for, and never more than its
+ *  buffer size at once, so its queue is bounded.  All conversion and
+ *  delivery happens on a given Executor, one task at a time.
+ *  @author Sahil Gupta
+ */
+class EnigmaProcessor
+    implements Flow.Processor<EnigmaProcessor.Message, String> {
+
+    /** One input item: a SETTINGS line (or null to keep the current
+     *  settings) and a message TEXT. */
+    static final class Message {
+        /** A message TEXT to be converted after applying SETTINGS,
+         *  which may be null. */
+        Message(String settings, String text) {
+            _settings = settings;
+            _text = Objects.requireNonNull(text);
+        }
+
+        /** Return my settings line, or null. */
+        String settings() {
+            return _settings;
+        }
+
+        /** Return my message text. */
+        String text() {
+            return _text;
+        }
+
+        /** My settings line, or null. */
+        private final String _settings;
+        /** My message text. */
+        private final String _text;
+    }
+
+    /** A processor that builds machines from CONFIG, runs on EXECUTOR, and
+     *  holds at most BUFFERSIZE > 0 unprocessed items. */
+    EnigmaProcessor(Configuration config, Executor executor,
+                    int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("buffer size must be > 0");
+        }
+        _config = config;
+        _executor = executor;
+        _bufferSize = bufferSize;
+        _queue = new ConcurrentLinkedQueue<>();
+        _demand = new AtomicLong();
+        _wip = new AtomicInteger();
+    }
+
+    /** A processor with a default buffer size that builds machines from
+     *  CONFIG and runs on EXECUTOR. */
+    EnigmaProcessor(Configuration config, Executor executor) {
+        this(config, executor, DEFAULT_BUFFER);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        Objects.requireNonNull(subscriber);
+        synchronized (this) {
+            if (_downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                        public void request(long n) { }
+                        public void cancel() { }
+                    });
+                subscriber.onError(new IllegalStateException(
+                        "EnigmaProcessor allows only one subscriber"));
+                return;
+            }
+            _machine = _config.newMachine();
+            _downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                    if (n <= 0) {
+                        _requestError = new IllegalArgumentException(
+                                "non-positive request");
+                    } else {
+                        _demand.getAndAccumulate(n, (a, b) ->
+                            a + b < 0 ? Long.MAX_VALUE : a + b);
+                    }
+                    schedule();
+                }
+
+                public void cancel() {
+                    _cancelled = true;
+                    schedule();
+                }
+            });
+        schedule();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (_upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        _upstream = subscription;
+        schedule();
+    }
+
+    @Override
+    public void onNext(Message item) {
+        _queue.offer(item);
+        schedule();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        _error = throwable;
+        _done = true;
+        schedule();
+    }
+
+    @Override
+    public void onComplete() {
+        _done = true;
+        schedule();
+    }
+
+    /** Arrange for drain() to run on my executor unless it is already
+     *  running, in which case it will notice the new work itself. */
+    private void schedule() {
+        if (_wip.getAndIncrement() == 0) {
+            _executor.execute(this::drain);
+        }
+    }
+
+    /** Deliver converted items while there is demand, complete or fail
+     *  the subscriber when upstream has finished, and top up the items
+     *  requested from upstream.  Only ever runs on one thread at a
+     *  time. */
+    private void drain() {
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super String> down = _downstream;
+            if (down != null && _upstream != null && !_terminated) {
+                if (_cancelled) {
+                    terminate(null, false);
+                } else if (_requestError != null) {
+                    terminate(_requestError, true);
+                } else {
+                    emit(down);
+                }
+            }
+            missed = _wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /** Send as many converted items to DOWN as demand allows, then
+     *  finish or request more from upstream. */
+    private void emit(Flow.Subscriber<? super String> down) {
+        while (_demand.get() > 0 && !_cancelled) {
+            Message item = _queue.poll();
+            if (item == null) {
+                break;
+            }
+            _outstanding -= 1;
+            String result;
+            try {
+                result = convert(item);
+            } catch (EnigmaException excp) {
+                terminate(excp, true);
+                return;
+            }
+            if (_demand.get() != Long.MAX_VALUE) {
+                _demand.decrementAndGet();
+            }
+            down.onNext(result);
+        }
+        if (_done && _queue.isEmpty()) {
+            terminate(_error, false);
+            return;
+        }
+        long credit = Math.min(_demand.get(), _bufferSize) - _outstanding;
+        if (credit > 0 && !_done) {
+            _outstanding += credit;
+            _upstream.request(credit);
+        }
+    }
+
+    /** Return the conversion of ITEM by my machine. */
+    private String convert(Message item) {
+        if (item.settings() != null) {
+            _config.setUp(_machine, item.settings());
+            _configured = true;
+        } else if (!_configured) {
+            throw new EnigmaException("No configuration found.");
+        }
+        return _machine.convert(item.text().replace(" ", ""));
+    }
+
+    /** Stop processing, cancelling upstream if CANCELUPSTREAM, and
+     *  signalling ERROR (or completion if ERROR is null) to my subscriber
+     *  unless it has cancelled. */
+    private void terminate(Throwable error, boolean cancelUpstream) {
+        _terminated = true;
+        _queue.clear();
+        if (cancelUpstream || _cancelled) {
+            _upstream.cancel();
+        }
+        if (!_cancelled) {
+            if (error != null) {
+                _downstream.onError(error);
+            } else {
+                _downstream.onComplete();
+            }
+        }
+    }
+
+    /** Buffer size used when none is given. */
+    static final int DEFAULT_BUFFER = 64;
+
+    /** The configuration from which my machine is built. */
+    private final Configuration _config;
+
+    /** Runs my conversion and delivery. */
+    private final Executor _executor;
+
+    /** Largest number of items requested from upstream and not yet
+     *  delivered. */
+    private final int _bufferSize;
+
+    /** Items received from upstream and not yet converted. */
+    private final ConcurrentLinkedQueue<Message> _queue;
+
+    /** Items requested by my subscriber and not yet delivered. */
+    private final AtomicLong _demand;
+
+    /** Count of schedule() calls not yet seen by drain(). */
+    private final AtomicInteger _wip;
+
+    /** My subscriber's machine. */
+    private Machine _machine;
+
+    /** True once a settings line has been applied to _machine. */
+    private boolean _configured;
+
+    /** My subscriber, or null. */
+    private volatile Flow.Subscriber<? super String> _downstream;
+
+    /** My subscription to upstream, or null. */
+    private volatile Flow.Subscription _upstream;
+
+    /** Items requested from upstream and not yet delivered.  Only
+     *  touched by drain(). */
+    private long _outstanding;
+
+    /** True once upstream has completed or failed. */
+    private volatile boolean _done;
+
+    /** The failure reported by upstream, or null. */
+    private volatile Throwable _error;
+
+    /** Set when my subscriber makes an invalid request. */
+    private volatile Throwable _requestError;
+
+    /** True once my subscriber has cancelled. */
+    private volatile boolean _cancelled;
+
+    /** True once my subscriber has been completed, failed or
+     *  cancelled. */
+    private boolean _terminated;
+}
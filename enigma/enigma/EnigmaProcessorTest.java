@@ -0,0 +1,113 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/** Tests of EnigmaProcessor.
+ *  @author Sahil Gupta
+ */
+public class EnigmaProcessorTest {
+
+    /** A configuration holding a few of the naval rotors. */
+    static final String CONFIG =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZ 5 3\n"
+        + " I MQ (AELTPHQXRU) (BKNW) (CMOY) (DFG) (IV) (JZ) (S)\n"
+        + " III MV (ABDHPEJT) (CFLVMZOYQIRWUKXSG) (N)\n"
+        + " IV MJ (AEPLIYWCOXMRFZBSTGJQNH) (DV) (KU)\n"
+        + " Beta N (ALBEVFCYODJWUGNMQTZSKPR) (HIX)\n"
+        + " B R (AE) (BN) (CK) (DQ) (FU) (GY) (HW) (IJ) (LO) (MP)\n"
+        + "     (RX) (SZ) (TV)\n";
+
+    /** A subscriber that requests one item at a time and records what it
+     *  receives. */
+    static class Collector implements Flow.Subscriber<String> {
+        public void onSubscribe(Flow.Subscription subscription) {
+            _subscription = subscription;
+            subscription.request(1);
+        }
+
+        public void onNext(String item) {
+            items.add(item);
+            _subscription.request(1);
+        }
+
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        public void onComplete() {
+            done.countDown();
+        }
+
+        /** Items received. */
+        final List<String> items = new ArrayList<>();
+        /** Failure received, if any. */
+        Throwable error;
+        /** Released on completion or failure. */
+        final CountDownLatch done = new CountDownLatch(1);
+        /** My subscription. */
+        private Flow.Subscription _subscription;
+    }
+
+    @Test
+    public void testConvertsInOrder() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Configuration config = new Configuration(new Scanner(CONFIG));
+            EnigmaProcessor processor = new EnigmaProcessor(config, pool, 2);
+            Collector collector = new Collector();
+            processor.subscribe(collector);
+            SubmissionPublisher<EnigmaProcessor.Message> publisher =
+                new SubmissionPublisher<>(pool, 4);
+            publisher.subscribe(processor);
+
+            String settings =
+                "* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)";
+            publisher.submit(new EnigmaProcessor.Message(settings,
+                    "FROM HIS SHOULDER HIAWATHA"));
+            publisher.submit(new EnigmaProcessor.Message(null,
+                    "TOOK THE CAMERA OF ROSEWOOD"));
+            publisher.close();
+            assertTrue(collector.done.await(5, TimeUnit.SECONDS));
+
+            assertNull(collector.error);
+            assertEquals(List.of("QVPQSOKOILPUBKJZPISFXDW",
+                                 "BHCNSCXNUOAATZXSRCFYDGU"),
+                         collector.items);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMissingSettings() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Configuration config = new Configuration(new Scanner(CONFIG));
+            EnigmaProcessor processor = new EnigmaProcessor(config, pool);
+            Collector collector = new Collector();
+            processor.subscribe(collector);
+            SubmissionPublisher<EnigmaProcessor.Message> publisher =
+                new SubmissionPublisher<>(pool, 4);
+            publisher.subscribe(processor);
+            publisher.submit(new EnigmaProcessor.Message(null, "HELLO"));
+            assertTrue(collector.done.await(5, TimeUnit.SECONDS));
+            assertTrue(collector.error instanceof EnigmaException);
+            publisher.close();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package enigma;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/** A Reader that encodes/decodes the characters read from another Reader
+ *  with an Enigma machine.  The machine's rotors keep their state from
+ *  one read to the next, so a message may be read in pieces of any size.
+ *  Every character read must be in the machine's alphabet.
+ *  @author Sahil Gupta
+ */
+class EnigmaReader extends FilterReader {
+
+    /** A Reader that converts the characters of IN with MACHINE, which
+     *  must already be configured. */
+    EnigmaReader(Reader in, Machine machine) {
+        super(in);
+        _machine = machine;
+    }
+
+    @Override
+    public int read() throws IOException {
+        char[] one = new char[1];
+        int n = read(one, 0, 1);
+        return n == -1 ? -1 : one[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int n = in.read(cbuf, off, len);
+        if (n > 0) {
+            try {
+                _machine.convert(cbuf, off, n);
+            } catch (EnigmaException excp) {
+                throw new IOException(excp.getMessage(), excp);
+            }
+        }
+        return n;
+    }
+
+    /** Skip N characters, which must still pass through the machine so
+     *  that the rotors stay in step with the message.  Returns the
+     *  number of characters actually skipped. */
+    @Override
+    public long skip(long n) throws IOException {
+        char[] scratch = new char[(int) Math.min(n, SKIP_BLOCK)];
+        long skipped = 0;
+        while (skipped < n) {
+            int k = read(scratch, 0,
+                         (int) Math.min(n - skipped, scratch.length));
+            if (k == -1) {
+                break;
+            }
+            skipped += k;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset not supported");
+    }
+
+    /** Largest number of characters skipped in one read. */
+    private static final int SKIP_BLOCK = 8192;
+
+    /** The machine converting my characters. */
+    private final Machine _machine;
+}
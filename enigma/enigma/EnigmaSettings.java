@@ -0,0 +1,54 @@
+package enigma;
+
+/** A settings line parsed and checked by an EnigmaEngine: the choice of
+ *  rotors, their positions and ring settings, and the plugboard.
+ *  Settings are immutable, may be shared between threads, and may be used
+ *  for any number of messages; each use starts from the same state.  They
+ *  may only be used with the engine that made them.
+ *  @author Sahil Gupta
+ */
+public final class EnigmaSettings {
+
+    /** Settings for ENGINE, given by settings line LINE, that put a
+     *  machine in STATE, whose plugboard is PLUGBOARD. */
+    EnigmaSettings(EnigmaEngine engine, String line, MachineState state,
+                   Permutation plugboard) {
+        _engine = engine;
+        _line = line;
+        _state = state;
+        _plugboard = plugboard;
+    }
+
+    /** Return the engine that made me. */
+    EnigmaEngine engine() {
+        return _engine;
+    }
+
+    /** Return the machine state I describe. */
+    MachineState state() {
+        return _state;
+    }
+
+    /** Return the plugboard of state(), parsed once for all uses. */
+    Permutation plugboard() {
+        return _plugboard;
+    }
+
+    /** Returns the settings line from which I was parsed. */
+    @Override
+    public String toString() {
+        return _line;
+    }
+
+    /** The engine that made me. */
+    private final EnigmaEngine _engine;
+
+    /** My settings line. */
+    private final String _line;
+
+    /** The machine state I describe. */
+    private final MachineState _state;
+
+    /** The plugboard of _state. */
+    private final Permutation _plugboard;
+}
@@ -0,0 +1,89 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/** Tests of the Enigma stream adapters.
+ *  @author Sahil Gupta
+ */
+public class EnigmaStreamTest {
+
+    /** A message long enough to cross several rotor turnovers. */
+    private static final String MESSAGE =
+        "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD"
+        + "MADEOFSLIDINGFOLDINGROSEWOODNEATLYPUTITALLTOGETHER";
+
+    /** Return MESSAGE as converted by a fresh naval machine. */
+    private String expected() {
+        return TestUtils.navalMachine().convert(MESSAGE);
+    }
+
+    @Test
+    public void testReaderInPieces() throws IOException {
+        Reader reader = new EnigmaReader(new StringReader(MESSAGE),
+                                         TestUtils.navalMachine());
+        StringBuilder result = new StringBuilder();
+        char[] buf = new char[7];
+        int n;
+        while ((n = reader.read(buf, 0, buf.length)) != -1) {
+            result.append(buf, 0, n);
+        }
+        assertEquals(expected(), result.toString());
+    }
+
+    @Test
+    public void testWriterRoundTrip() throws IOException {
+        StringWriter sink = new StringWriter();
+        Writer writer = new EnigmaWriter(sink, TestUtils.navalMachine());
+        writer.write(MESSAGE.substring(0, 3));
+        writer.write(MESSAGE.charAt(3));
+        writer.write(MESSAGE.substring(4).toCharArray());
+        writer.flush();
+        assertEquals(expected(), sink.toString());
+
+        Reader back = new EnigmaReader(new StringReader(sink.toString()),
+                                       TestUtils.navalMachine());
+        char[] buf = new char[MESSAGE.length()];
+        assertEquals(buf.length, back.read(buf, 0, buf.length));
+        assertEquals(MESSAGE, new String(buf));
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        byte[] bytes = MESSAGE.getBytes(StandardCharsets.ISO_8859_1);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        OutputStream out = new EnigmaOutputStream(sink,
+                                                  TestUtils.navalMachine());
+        out.write(bytes, 0, 10);
+        out.write(bytes[10]);
+        out.write(bytes, 11, bytes.length - 11);
+        assertEquals(expected(),
+                     sink.toString(StandardCharsets.ISO_8859_1));
+
+        InputStream in =
+            new EnigmaInputStream(new ByteArrayInputStream(bytes),
+                                  TestUtils.navalMachine());
+        assertEquals(expected(),
+                     new String(in.readAllBytes(),
+                                StandardCharsets.ISO_8859_1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadCharacter() throws IOException {
+        Reader reader = new EnigmaReader(new StringReader("AB1"),
+                                         TestUtils.navalMachine());
+        reader.read(new char[3], 0, 3);
+    }
+}
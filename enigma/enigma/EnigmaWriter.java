@@ -0,0 +1,70 @@
+package enigma;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/** A Writer that encodes/decodes characters with an Enigma machine
+ *  before passing them on to another Writer.  The machine's rotors keep
+ *  their state from one write to the next, and callers' buffers are
+ *  never modified.  Every character written must be in the machine's
+ *  alphabet.
+ *  @author Sahil Gupta
+ */
+class EnigmaWriter extends FilterWriter {
+
+    /** A Writer that converts characters with MACHINE, which must already
+     *  be configured, and writes the results to OUT. */
+    EnigmaWriter(Writer out, Machine machine) {
+        super(out);
+        _machine = machine;
+        _buffer = new char[BLOCK];
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        _buffer[0] = (char) c;
+        convertAndWrite(1);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, _buffer.length);
+            System.arraycopy(cbuf, off, _buffer, 0, n);
+            convertAndWrite(n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, _buffer.length);
+            str.getChars(off, off + n, _buffer, 0);
+            convertAndWrite(n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** Convert the first N characters of _buffer and write them out. */
+    private void convertAndWrite(int n) throws IOException {
+        try {
+            _machine.convert(_buffer, 0, n);
+        } catch (EnigmaException excp) {
+            throw new IOException(excp.getMessage(), excp);
+        }
+        out.write(_buffer, 0, n);
+    }
+
+    /** Size of my conversion buffer. */
+    private static final int BLOCK = 8192;
+
+    /** The machine converting my characters. */
+    private final Machine _machine;
+
+    /** Reusable buffer holding characters being converted. */
+    private final char[] _buffer;
+}
@@ -0,0 +1,342 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static enigma.EnigmaException.*;
+
+/** Resumable key search.
+ *  @author Sahil Gupta
+ */
+class KeySearch {
+
+    /** Search for the settings of the ciphertext in ARGS[1], using the
+     *  configuration in ARGS[0].  Options may follow:
+     *    --crib=WORD@OFFSET  score trials by agreement with the known
+     *                        plaintext WORD at OFFSET, rather than by
+     *                        English letter frequencies.  Without
+     *                        @OFFSET, WORD is tried at every offset
+     *                        where CribFinder says it can lie.
+     *    --top=K             report the best K trials (default 10).
+     *    --threads=N         search with N threads (default: one per
+     *                        processor).
+     *    --streams           decrypt trials with a StreamEngine, one
+     *                        trial per vector lane when the Vector API
+     *                        is present, rather than one at a time with
+     *                        a TrialEnumerator.  The results are the
+     *                        same.
+     *    --tables=DIR        read the composites of each unit's slow
+     *                        rotors from PositionTables files in DIR,
+     *                        building those missing, rather than
+     *                        building them on the heap.  Cannot be used
+     *                        with --streams.
+     *    --journal=FILE      record each finished work unit in FILE, and
+     *                        on restart skip the units it records.
+     *    --serve=PORT        rather than searching, hand out work units
+     *                        to workers connecting on PORT (see
+     *                        SearchCoordinator).
+     *    --bind=ADDRESS      with --serve, listen on ADDRESS (0.0.0.0
+     *                        for every interface) rather than only on
+     *                        the loopback interface, so that workers on
+     *                        other hosts can connect.  Workers are not
+     *                        authenticated.
+     *    --spawn=N           with --serve, start N worker JVMs on this
+     *                        host, each running --threads threads.
+     *    --connect=HOST:PORT work as a worker for the coordinator at
+     *                        HOST:PORT, with --threads connections, and
+     *                        print nothing.  The other arguments must
+     *                        match the coordinator's.
+     *  Prints one line per trial, best first: its score, settings line,
+     *  and decryption. */
+    public static void main(String... args) {
+        try {
+            CommandLine line = new CommandLine(args, OPTIONS);
+            if (line.arguments().size() != 2) {
+                throw error("usage: java enigma.KeySearch CONFIG CIPHERTEXT "
+                            + "[--crib=WORD[@OFFSET]] [--top=K] "
+                            + "[--threads=N] [--streams] [--tables=DIR] "
+                            + "[--journal=FILE] "
+                            + "[--serve=PORT [--bind=ADDRESS] "
+                            + "[--spawn=N]] "
+                            + "[--connect=HOST:PORT]");
+            }
+            System.out.print(new KeySearch(line).run());
+            return;
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** A search as specified by the command line LINE, as described in
+     *  main. */
+    KeySearch(CommandLine line) {
+        _line = line;
+        _configFile = line.arguments().get(0);
+        _cipherFile = line.arguments().get(1);
+        Configuration config = Configuration.load(_configFile);
+        String text;
+        try {
+            text = new String(Files.readAllBytes(new File(_cipherFile)
+                                                 .toPath()));
+        } catch (IOException excp) {
+            throw error("could not read %s", _cipherFile);
+        }
+        String crib = null;
+        int offset = SearchJob.ANY_OFFSET;
+        if (line.has("--crib")) {
+            String spec = line.value("--crib");
+            int at = spec.lastIndexOf('@');
+            crib = at < 0 ? spec : spec.substring(0, at);
+            if (at >= 0) {
+                offset = intValue("--crib", spec.substring(at + 1));
+            }
+        }
+        int top = toInt(line.number("--top", DEFAULT_TOP));
+        _threads = toInt(line.number("--threads", Runtime.getRuntime()
+                                     .availableProcessors()));
+        _job = new SearchJob(config, text.replaceAll("\\s", ""), crib,
+                             offset, top);
+        _job.setStreams(line.has("--streams"));
+        if (line.has("--tables")) {
+            if (line.has("--streams")) {
+                throw error("--tables cannot be used with --streams");
+            }
+            File dir = new File(line.value("--tables"));
+            if (!dir.isDirectory()) {
+                throw error("%s is not a directory", dir);
+            }
+            _job.setTables(dir);
+        }
+        _journal = line.has("--journal")
+            ? new File(line.value("--journal")) : null;
+    }
+
+    /** Return VALUE, part of the value of option NAME, as a non-negative
+     *  int. */
+    private static int intValue(String name, String value) {
+        return toInt(CommandLine.number(name, value));
+    }
+
+    /** Return the non-negative N as an int, limited to the largest
+     *  int. */
+    private static int toInt(long n) {
+        return (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    /** Run the search to completion and return its report. */
+    String run() {
+        if (_line.has("--connect")) {
+            work(_line.value("--connect"));
+            return "";
+        }
+        TopK best = search();
+        StringBuilder out = new StringBuilder();
+        int[] scores = best.scores();
+        long[] keys = best.keys();
+        for (int i = 0; i < scores.length; i += 1) {
+            out.append(scores[i]).append(' ')
+                .append(_job.describe(keys[i])).append(' ')
+                .append(_job.decrypt(keys[i]))
+                .append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    /** Run every work unit not already journaled and return the best
+     *  trials of the whole job. */
+    TopK search() {
+        TopK best = _job.newTopK();
+        SearchJournal journal = _journal == null ? null
+            : new SearchJournal(_journal, _job.id(), best);
+        if (_line.has("--serve")) {
+            try {
+                return serve(best, journal);
+            } finally {
+                if (journal != null) {
+                    journal.close();
+                }
+            }
+        }
+        BitSet done = journal == null ? new BitSet() : journal.done();
+        ExecutorService pool =
+            Executors.newFixedThreadPool(Math.max(1, _threads));
+        try {
+            ArrayList<Future<?>> pending = new ArrayList<>();
+            for (int unit = 0; unit < _job.units(); unit += 1) {
+                if (done.get(unit)) {
+                    continue;
+                }
+                final int u = unit;
+                pending.add(pool.submit(() -> {
+                    TopK found = _job.runUnit(u, best);
+                    if (journal != null) {
+                        journal.record(u, found);
+                    }
+                    best.addAll(found);
+                }));
+            }
+            for (Future<?> task : pending) {
+                task.get();
+            }
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw error("search interrupted");
+        } catch (ExecutionException excp) {
+            if (excp.getCause() instanceof EnigmaException) {
+                throw (EnigmaException) excp.getCause();
+            }
+            throw error("search failed: %s", excp.getCause());
+        } finally {
+            pool.shutdownNow();
+            if (journal != null) {
+                journal.close();
+            }
+        }
+        return best;
+    }
+
+    /** Coordinate workers until the search is finished, collecting its
+     *  trials in BEST and recording finished units in JOURNAL, if not
+     *  null.  Returns BEST. */
+    private TopK serve(TopK best, SearchJournal journal) {
+        int port = intValue("--serve", _line.value("--serve"));
+        InetAddress address = InetAddress.getLoopbackAddress();
+        if (_line.has("--bind")) {
+            try {
+                address = InetAddress.getByName(_line.value("--bind"));
+            } catch (UnknownHostException excp) {
+                throw error("unknown address %s", _line.value("--bind"));
+            }
+        }
+        SearchCoordinator coordinator =
+            new SearchCoordinator(_job, address, port, best, journal);
+        int spawn = toInt(_line.number("--spawn", 0));
+        ArrayList<Process> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < spawn; i += 1) {
+                workers.add(spawnWorker(coordinator.host(),
+                                        coordinator.port()));
+            }
+            return coordinator.run();
+        } finally {
+            for (Process worker : workers) {
+                try {
+                    if (!worker.waitFor(SPAWN_WAIT, TimeUnit.MILLISECONDS)) {
+                        worker.destroy();
+                    }
+                } catch (InterruptedException excp) {
+                    worker.destroy();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /** Start a worker JVM on this host for the coordinator at HOST and
+     *  PORT, and return its process. */
+    private Process spawnWorker(String host, int port) {
+        ArrayList<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java")
+                    .toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(KeySearch.class.getName());
+        command.add(_configFile);
+        command.add(_cipherFile);
+        for (String option : WORKER_OPTIONS) {
+            if (_line.has(option)) {
+                String value = _line.options().get(option);
+                command.add(value == null ? option : option + "=" + value);
+            }
+        }
+        command.add("--connect=" + host + ":" + port);
+        try {
+            return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        } catch (IOException excp) {
+            throw error("could not start worker: %s", excp.getMessage());
+        }
+    }
+
+    /** Work for the coordinator at ADDRESS (HOST:PORT) with one
+     *  connection per search thread until it says to quit. */
+    private void work(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            throw error("bad coordinator address: %s", address);
+        }
+        String host = address.substring(0, colon);
+        int port = intValue("--connect", address.substring(colon + 1));
+        ExecutorService pool =
+            Executors.newFixedThreadPool(Math.max(1, _threads));
+        try {
+            ArrayList<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, _threads); i += 1) {
+                workers.add(pool.submit(() ->
+                    new SearchWorker(_job, host, port).run()));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw error("worker interrupted");
+        } catch (ExecutionException excp) {
+            if (excp.getCause() instanceof EnigmaException) {
+                throw (EnigmaException) excp.getCause();
+            }
+            throw error("worker failed: %s", excp.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Recognized options. */
+    private static final List<String> OPTIONS =
+        List.of("--crib", "--top", "--threads", "--streams", "--tables",
+                "--journal", "--serve", "--bind", "--spawn", "--connect");
+
+    /** Options passed on to spawned workers. */
+    private static final List<String> WORKER_OPTIONS =
+        List.of("--crib", "--top", "--threads", "--streams", "--tables");
+
+    /** Milliseconds allowed for spawned workers to exit once the search
+     *  is finished. */
+    private static final long SPAWN_WAIT = 10000;
+
+    /** Default number of trials reported. */
+    private static final int DEFAULT_TOP = 10;
+
+    /** Name of the configuration file. */
+    private final String _configFile;
+
+    /** Name of the ciphertext file. */
+    private final String _cipherFile;
+
+    /** The command line, as described in main. */
+    private final CommandLine _line;
+
+    /** The search. */
+    private final SearchJob _job;
+
+    /** Journal file, or null. */
+    private final File _journal;
+
+    /** Number of search threads. */
+    private final int _threads;
+}
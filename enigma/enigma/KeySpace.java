@@ -0,0 +1,202 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import static enigma.Rotor.mod;
+
+/** Groups the start states of a machine's inserted rotors that convert
+ *  messages of a given length identically, so that a search need only
+ *  try one representative of each group.
+ *
+ *  A rotor's wiring depends only on its core setting, its position less
+ *  its ring setting (see Machine.setRingSetting).  The ring setting
+ *  matters only through the times at which the rotor sits at a notch,
+ *  and then only if the rotor to its left has a pawl.  Over a message of
+ *  length L a rotor shows only the core settings it passes through, so
+ *  every ring setting that puts the same subset of those settings at a
+ *  notch gives the same sequence of core settings and hence the same
+ *  output.  For a slow rotor that passes through a handful of settings,
+ *  this leaves a handful of ring settings out of the alphabet size; for
+ *  a rotor whose left neighbour never moves, it leaves one.
+ *
+ *  Positions, ring settings and core settings are given as arrays of
+ *  numRotors() - 1 indices, the first referring to the leftmost rotor
+ *  other than the reflector, as in Machine.setRotors.
+ *  @author Sahil Gupta
+ */
+class KeySpace {
+
+    /** A key space for the rotors currently inserted in MACHINE and
+     *  messages of LENGTH > 0 characters. */
+    KeySpace(Machine machine, int length) {
+        if (length <= 0) {
+            throw new EnigmaException("Message length must be positive.");
+        }
+        _k = machine.numRotors();
+        _n = machine.alphabet().size();
+        _length = length;
+        _stepper = new Stepper(machine);
+        _s = new int[_k];
+        _seen = new boolean[_k][_n];
+        _hits = new long[(length + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /** Return true iff the ring setting of slot J can affect the
+     *  output. */
+    private boolean ringMatters(int j) {
+        return j > 0 && _stepper.rotates(j - 1) && _stepper.hasNotches(j);
+    }
+
+    /** Return true iff slot J, at core setting S with ring setting R, is
+     *  at one of its notches. */
+    private boolean atNotch(int j, int s, int r) {
+        return _stepper.atNotch(j, s, r);
+    }
+
+    /** Run the stepping of the machine from CORES with ring settings RINGS
+     *  (both indexed as described in the class comment) for my message
+     *  length.  Record in _seen the core settings each slot shows when
+     *  the notches are checked, and if WATCH > 0, record in _hits the
+     *  checks at which slot WATCH is at a notch. */
+    private void simulate(int[] cores, int[] rings, int watch) {
+        _s[0] = 0;
+        System.arraycopy(cores, 0, _s, 1, _k - 1);
+        for (boolean[] seen : _seen) {
+            Arrays.fill(seen, false);
+        }
+        Arrays.fill(_hits, 0);
+        for (int t = 0; t < _length; t += 1) {
+            for (int j = 1; j < _k; j += 1) {
+                _seen[j][_s[j]] = true;
+            }
+            if (watch > 0 && atNotch(watch, _s[watch], rings[watch - 1])) {
+                _hits[t / Long.SIZE] |= 1L << (t % Long.SIZE);
+            }
+            _stepper.step(_s, rings);
+        }
+    }
+
+    /** Replace RINGS by the smallest ring settings that convert messages
+     *  of my length exactly as POSITIONS and RINGS do, and adjust
+     *  POSITIONS to keep the core settings unchanged.  Equivalent start
+     *  states are all mapped to the same representative. */
+    void canonicalize(int[] positions, int[] rings) {
+        int[] cores = new int[_k - 1];
+        for (int i = 0; i < cores.length; i += 1) {
+            cores[i] = mod(positions[i] - rings[i], _n);
+        }
+        simulate(cores, rings, 0);
+        for (int j = 1; j < _k; j += 1) {
+            int ring = 0;
+            if (ringMatters(j)) {
+                while (!sameNotches(j, ring, rings[j - 1])) {
+                    ring += 1;
+                }
+            }
+            rings[j - 1] = ring;
+            positions[j - 1] = mod(cores[j - 1] + ring, _n);
+        }
+    }
+
+    /** Return true iff ring settings R1 and R2 put slot J at a notch at
+     *  the same core settings among those recorded in _seen. */
+    private boolean sameNotches(int j, int r1, int r2) {
+        for (int s = 0; s < _n; s += 1) {
+            if (_seen[j][s] && atNotch(j, s, r1) != atNotch(j, s, r2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Call ACTION(POSITIONS, RINGS) once for each class of equivalent
+     *  start states with core settings CORES, passing its canonical
+     *  representative.  The arrays passed to ACTION are reused between
+     *  calls.  Returns the number of classes. */
+    int forEachRepresentative(int[] cores,
+                              BiConsumer<int[], int[]> action) {
+        int[] rings = new int[_k - 1];
+        int[] positions = new int[_k - 1];
+        int[] check = new int[_k - 1];
+        int[] checkRings = new int[_k - 1];
+        return visit(cores, rings, _k - 1, positions, check, checkRings,
+                     action);
+    }
+
+    /** Return the number of classes of equivalent start states with core
+     *  settings CORES. */
+    int countRepresentatives(int[] cores) {
+        return forEachRepresentative(cores, (p, r) -> { });
+    }
+
+    /** Choose ring settings for slots J down to 1 (with slots after J
+     *  already chosen in RINGS and those before it 0), calling ACTION on
+     *  each resulting canonical start state with core settings CORES.
+     *  POSITIONS, CHECK and CHECKRINGS are scratch arrays.  Returns the
+     *  number of start states passed to ACTION. */
+    private int visit(int[] cores, int[] rings, int j, int[] positions,
+                      int[] check, int[] checkRings,
+                      BiConsumer<int[], int[]> action) {
+        if (j == 0) {
+            for (int i = 0; i < cores.length; i += 1) {
+                positions[i] = mod(cores[i] + rings[i], _n);
+            }
+            System.arraycopy(positions, 0, check, 0, check.length);
+            System.arraycopy(rings, 0, checkRings, 0, rings.length);
+            canonicalize(check, checkRings);
+            if (!Arrays.equals(checkRings, rings)) {
+                return 0;
+            }
+            action.accept(positions, rings);
+            return 1;
+        }
+        if (!ringMatters(j)) {
+            rings[j - 1] = 0;
+            return visit(cores, rings, j - 1, positions, check, checkRings,
+                         action);
+        }
+        ArrayList<long[]> patterns = new ArrayList<>();
+        int count = 0;
+        for (int r = 0; r < _n; r += 1) {
+            rings[j - 1] = r;
+            simulate(cores, rings, j);
+            boolean fresh = true;
+            for (long[] pattern : patterns) {
+                fresh &= !Arrays.equals(pattern, _hits);
+            }
+            if (fresh) {
+                patterns.add(_hits.clone());
+                count += visit(cores, rings, j - 1, positions, check,
+                               checkRings, action);
+                rings[j - 1] = r;
+            }
+        }
+        rings[j - 1] = 0;
+        return count;
+    }
+
+    /** Number of rotor slots, including the reflector. */
+    private final int _k;
+
+    /** Alphabet size. */
+    private final int _n;
+
+    /** Message length. */
+    private final int _length;
+
+    /** The stepping rule of the rotors. */
+    private final Stepper _stepper;
+
+    /** Core settings of each slot during simulate. */
+    private final int[] _s;
+
+    /** _seen[j][s] is true iff slot J showed core setting S in the last
+     *  simulate. */
+    private final boolean[][] _seen;
+
+    /** Bitset of the checks at which the watched slot was at a notch in
+     *  the last simulate. */
+    private final long[] _hits;
+}
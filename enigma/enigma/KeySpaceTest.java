@@ -0,0 +1,60 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/** Tests of KeySpace.
+ *  @author Sahil Gupta
+ */
+public class KeySpaceTest {
+
+    /** Length of the test message. */
+    private static final int LENGTH = 40;
+
+    /** Return the letters of INDICES in the upper-case alphabet. */
+    private String letters(int[] indices) {
+        StringBuilder result = new StringBuilder();
+        for (int i : indices) {
+            result.append(TestUtils.UPPER.toChar(i));
+        }
+        return result.toString();
+    }
+
+    /** Return the conversion of MSG by M started at POSITIONS and
+     *  RINGS. */
+    private String convert(Machine m, String msg, int[] positions,
+                           int[] rings) {
+        m.setRotors(letters(positions));
+        m.setRingSetting(letters(rings));
+        return m.convert(msg);
+    }
+
+    @Test
+    public void testClassesAgainstBruteForce() {
+        Machine machine = TestUtils.navalMachine();
+        KeySpace space = new KeySpace(machine, LENGTH);
+        String msg = "A".repeat(LENGTH);
+        int[] cores = {0, 23, 8, 16};
+        HashSet<String> reps = new HashSet<>();
+        for (int r = 0; r < 26 * 26 * 26; r += 1) {
+            int[] rings = {0, r / 676, r / 26 % 26, r % 26};
+            int[] positions = new int[4];
+            for (int i = 0; i < 4; i += 1) {
+                positions[i] = (cores[i] + rings[i]) % 26;
+            }
+            String expected = convert(machine, msg, positions, rings);
+            space.canonicalize(positions, rings);
+            assertEquals(expected, convert(machine, msg, positions, rings));
+            reps.add(letters(positions) + letters(rings));
+        }
+        HashSet<String> visited = new HashSet<>();
+        int count = space.forEachRepresentative(cores, (p, r) ->
+            visited.add(letters(p) + letters(r)));
+        assertEquals(reps, visited);
+        assertEquals(reps.size(), count);
+        assertTrue(count < 26 * 26 * 26 / 10);
+    }
+}
@@ -0,0 +1,190 @@
+package enigma;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Random;
+
+import static enigma.EnigmaException.*;
+
+/** A generator of reproducible synthetic input for a configuration.  The
+ *  same configuration, seed and parameters always give the same text.
+ *  Each segment is a random valid settings line, naming a random choice
+ *  of rotors with random positions, ring settings and plugboard, followed
+ *  by message lines of random letters in groups of five.
+ *  @author Sahil Gupta
+ */
+class LoadGenerator {
+
+    /** Shapes of the distribution of message lengths. */
+    enum Shape {
+        /** Every message has the mean length. */
+        FIXED,
+        /** Lengths are uniform between 1 and twice the mean. */
+        UNIFORM,
+        /** Lengths are exponentially distributed about the mean, so
+         *  that most messages are short and a few are long. */
+        EXPONENTIAL
+    }
+
+    /** A generator for CONFIG, whose random choices start from SEED. */
+    LoadGenerator(Configuration config, long seed) {
+        _alphabet = config.alphabet();
+        _orders = config.rotorOrders();
+        if (_orders.isEmpty()) {
+            throw error("configuration allows no choice of rotors");
+        }
+        _random = new Random(seed);
+    }
+
+    /** Return a random valid settings line. */
+    String settings() {
+        String[] order = _orders.get(_random.nextInt(_orders.size()));
+        StringBuilder line = new StringBuilder("*");
+        for (String rotor : order) {
+            line.append(' ').append(rotor);
+        }
+        line.append(' ').append(randomLetters(order.length - 1))
+            .append(' ').append(randomLetters(order.length - 1));
+        int n = _alphabet.size();
+        int[] letters = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            letters[i] = i;
+        }
+        int pairs = _random.nextInt(Math.min(MAX_PLUGS, n / 2) + 1);
+        for (int i = 0; i < 2 * pairs; i += 1) {
+            int j = i + _random.nextInt(n - i);
+            int t = letters[i];
+            letters[i] = letters[j];
+            letters[j] = t;
+        }
+        for (int i = 0; i < 2 * pairs; i += 2) {
+            line.append(" (").append(_alphabet.toChar(letters[i]))
+                .append(_alphabet.toChar(letters[i + 1])).append(')');
+        }
+        return line.toString();
+    }
+
+    /** Return a message of random letters whose length is drawn from
+     *  SHAPE with mean MEAN > 0, in groups of five. */
+    String message(Shape shape, int mean) {
+        int length;
+        switch (shape) {
+        case UNIFORM:
+            length = 1 + _random.nextInt(2 * mean);
+            break;
+        case EXPONENTIAL:
+            length = 1 + (int) Math.min(Integer.MAX_VALUE / 2,
+                                        -Math.log(1 - _random.nextDouble())
+                                        * (mean - 1));
+            break;
+        default:
+            length = mean;
+            break;
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i += 1) {
+            if (i > 0 && i % GROUP_SIZE == 0) {
+                text.append(' ');
+            }
+            text.append(_alphabet.toChar(_random.nextInt(_alphabet.size())));
+        }
+        return text.toString();
+    }
+
+    /** Write SEGMENTS segments of LINES message lines each to OUT, with
+     *  message lengths drawn from SHAPE with mean MEAN. */
+    void write(PrintStream out, int segments, int lines, Shape shape,
+               int mean) {
+        for (int s = 0; s < segments; s += 1) {
+            out.println(settings());
+            for (int i = 0; i < lines; i += 1) {
+                out.println(message(shape, mean));
+            }
+        }
+        out.flush();
+    }
+
+    /** Return a string of K random letters from my alphabet. */
+    private String randomLetters(int k) {
+        char[] letters = new char[k];
+        for (int i = 0; i < k; i += 1) {
+            letters[i] = _alphabet.toChar(_random.nextInt(_alphabet.size()));
+        }
+        return new String(letters);
+    }
+
+    /** Write synthetic input for the configuration in ARGS[0] to the
+     *  standard output.  Options:
+     *    --seed=S        seed for the random choices (default 0).
+     *    --segments=N    number of settings lines (default 100).
+     *    --lines=N       message lines per segment (default 10).
+     *    --length=N      mean message length in letters (default 100).
+     *    --shape=SHAPE   fixed, uniform or exponential (default
+     *                    uniform). */
+    public static void main(String... args) {
+        try {
+            CommandLine line = new CommandLine(args, OPTIONS);
+            if (line.arguments().size() != 1) {
+                throw error("usage: java enigma.LoadGenerator CONFIG "
+                            + "[--seed=S] [--segments=N] [--lines=N] "
+                            + "[--length=N] [--shape=SHAPE]");
+            }
+            Configuration config =
+                Configuration.load(line.arguments().get(0));
+            LoadGenerator generator =
+                new LoadGenerator(config, line.number("--seed", 0));
+            generator.write(System.out,
+                            (int) line.number("--segments",
+                                              DEFAULT_SEGMENTS),
+                            (int) line.number("--lines", DEFAULT_LINES),
+                            line.has("--shape")
+                            ? shape(line.value("--shape")) : DEFAULT_SHAPE,
+                            (int) Math.max(1, line.number("--length",
+                                                          DEFAULT_LENGTH)));
+            return;
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** Return the shape named NAME. */
+    static Shape shape(String name) {
+        try {
+            return Shape.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException excp) {
+            throw error("unknown shape: %s", name);
+        }
+    }
+
+    /** Options recognized by main. */
+    private static final List<String> OPTIONS =
+        List.of("--seed", "--segments", "--lines", "--length", "--shape");
+
+    /** Default number of segments generated. */
+    static final int DEFAULT_SEGMENTS = 100;
+
+    /** Default number of message lines per segment. */
+    static final int DEFAULT_LINES = 10;
+
+    /** Default mean message length. */
+    static final int DEFAULT_LENGTH = 100;
+
+    /** Default shape of the distribution of message lengths. */
+    static final Shape DEFAULT_SHAPE = Shape.UNIFORM;
+
+    /** Largest number of plugboard pairs in a generated settings line. */
+    static final int MAX_PLUGS = 10;
+
+    /** Number of letters per group in generated messages. */
+    private static final int GROUP_SIZE = 5;
+
+    /** The configuration's alphabet. */
+    private final Alphabet _alphabet;
+
+    /** Every valid choice of rotors. */
+    private final List<String[]> _orders;
+
+    /** Source of my random choices. */
+    private final Random _random;
+}
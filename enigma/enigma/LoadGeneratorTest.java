@@ -0,0 +1,71 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+/** Tests of LoadGenerator and Benchmark.
+ *  @author Sahil Gupta
+ */
+public class LoadGeneratorTest {
+
+    /** Return the text generated for EnigmaProcessorTest.CONFIG with
+     *  SEED, in SEGMENTS segments of message lengths drawn from SHAPE. */
+    private String generate(long seed, int segments,
+                            LoadGenerator.Shape shape) {
+        Configuration config =
+            new Configuration(new Scanner(EnigmaProcessorTest.CONFIG));
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        new LoadGenerator(config, seed)
+            .write(new PrintStream(text), segments, 3, shape, 20);
+        return text.toString();
+    }
+
+    @Test
+    public void testReproducible() {
+        assertEquals(generate(7, 10, LoadGenerator.Shape.EXPONENTIAL),
+                     generate(7, 10, LoadGenerator.Shape.EXPONENTIAL));
+        assertNotEquals(generate(7, 10, LoadGenerator.Shape.UNIFORM),
+                        generate(8, 10, LoadGenerator.Shape.UNIFORM));
+    }
+
+    @Test
+    public void testValid() {
+        Configuration config =
+            new Configuration(new Scanner(EnigmaProcessorTest.CONFIG));
+        Machine machine = config.newMachine();
+        Scanner lines =
+            new Scanner(generate(3, 200, LoadGenerator.Shape.FIXED));
+        int segments = 0;
+        while (lines.hasNextLine()) {
+            String line = lines.nextLine();
+            if (line.startsWith("*")) {
+                config.setUp(machine, line);
+                segments += 1;
+            } else {
+                String message = line.replace(" ", "");
+                assertEquals(20, message.length());
+                machine.convert(message);
+            }
+        }
+        assertEquals(200, segments);
+    }
+
+    @Test
+    public void testBenchmark() {
+        Configuration config =
+            new Configuration(new Scanner(EnigmaProcessorTest.CONFIG));
+        Benchmark bench = new Benchmark(config, new Scanner(
+                generate(1, 5, LoadGenerator.Shape.UNIFORM)));
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        bench.run(0, 2, new PrintStream(report));
+        assertTrue(report.toString().contains("segments: 5,"));
+        assertTrue(report.toString().contains("chars/s"));
+        assertTrue(report.toString().contains("p99"));
+    }
+
+}
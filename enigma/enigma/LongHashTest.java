@@ -0,0 +1,58 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of LongSet and LongMap.
+ *  @author Sahil Gupta
+ */
+public class LongHashTest {
+
+    @Test
+    public void testSetAgainstHashSet() {
+        LongSet set = new LongSet(4);
+        HashSet<Long> expected = new HashSet<>();
+        Random random = new Random(61);
+        for (int i = 0; i < 20000; i += 1) {
+            long key = random.nextInt(500) - 250;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), set.add(key));
+            } else {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long key = -300; key < 300; key += 1) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+    }
+
+    @Test
+    public void testMapAgainstHashMap() {
+        LongMap<String> map = new LongMap<>(4);
+        HashMap<Long, String> expected = new HashMap<>();
+        Random random = new Random(61);
+        for (int i = 0; i < 20000; i += 1) {
+            long key = (random.nextInt(500) - 250) * 0x10000000000L;
+            if (random.nextInt(3) > 0) {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key));
+            assertTrue(map.containsKey(key));
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(0));
+    }
+}
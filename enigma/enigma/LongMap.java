@@ -0,0 +1,192 @@
+package enigma;
+
+import java.util.Arrays;
+
+import static enigma.LongSet.FREE;
+import static enigma.LongSet.LOAD_FACTOR;
+import static enigma.LongSet.slot;
+import static enigma.LongSet.tableSize;
+
+/** A map from longs to values of type V kept in an open-addressing hash
+ *  table with linear probing.  Keys are stored unboxed, and lookups and
+ *  updates create no objects except when the table grows.  Intended for
+ *  caches keyed by packed machine states (see Machine.encode).
+ *  @author Sahil Gupta
+ */
+class LongMap<V> {
+
+    /** An empty map with room for about EXPECTED entries before
+     *  growing. */
+    LongMap(int expected) {
+        int capacity = tableSize(expected);
+        _keys = new long[capacity];
+        _values = newArray(capacity);
+        _mask = capacity - 1;
+    }
+
+    /** An empty map. */
+    LongMap() {
+        this(DEFAULT_EXPECTED);
+    }
+
+    /** Return the number of entries in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Return the value for KEY, or null if there is none. */
+    V get(long key) {
+        if (key == FREE) {
+            return _freeValue;
+        }
+        for (int i = slot(key, _mask); ; i = (i + 1) & _mask) {
+            long k = _keys[i];
+            if (k == key) {
+                return _values[i];
+            } else if (k == FREE) {
+                return null;
+            }
+        }
+    }
+
+    /** Return true iff I have an entry for KEY. */
+    boolean containsKey(long key) {
+        if (key == FREE) {
+            return _hasFree;
+        }
+        for (int i = slot(key, _mask); ; i = (i + 1) & _mask) {
+            long k = _keys[i];
+            if (k == key) {
+                return true;
+            } else if (k == FREE) {
+                return false;
+            }
+        }
+    }
+
+    /** Map KEY to VALUE, returning the previous value for KEY or null. */
+    V put(long key, V value) {
+        if (key == FREE) {
+            V old = _freeValue;
+            if (!_hasFree) {
+                _hasFree = true;
+                _size += 1;
+            }
+            _freeValue = value;
+            return old;
+        }
+        for (int i = slot(key, _mask); ; i = (i + 1) & _mask) {
+            long k = _keys[i];
+            if (k == key) {
+                V old = _values[i];
+                _values[i] = value;
+                return old;
+            } else if (k == FREE) {
+                _keys[i] = key;
+                _values[i] = value;
+                _size += 1;
+                if (_size > _keys.length * LOAD_FACTOR) {
+                    rehash(_keys.length * 2);
+                }
+                return null;
+            }
+        }
+    }
+
+    /** Remove the entry for KEY, returning its value or null. */
+    V remove(long key) {
+        if (key == FREE) {
+            V old = _freeValue;
+            if (_hasFree) {
+                _hasFree = false;
+                _size -= 1;
+            }
+            _freeValue = null;
+            return old;
+        }
+        for (int i = slot(key, _mask); ; i = (i + 1) & _mask) {
+            long k = _keys[i];
+            if (k == FREE) {
+                return null;
+            } else if (k == key) {
+                V old = _values[i];
+                _keys[i] = FREE;
+                _values[i] = null;
+                _size -= 1;
+                closeGap(i);
+                return old;
+            }
+        }
+    }
+
+    /** Remove all entries from me. */
+    void clear() {
+        Arrays.fill(_keys, FREE);
+        Arrays.fill(_values, null);
+        _hasFree = false;
+        _freeValue = null;
+        _size = 0;
+    }
+
+    /** Re-insert the entries following the newly freed slot GAP so that
+     *  no probe sequence is broken by it. */
+    private void closeGap(int gap) {
+        for (int i = (gap + 1) & _mask; _keys[i] != FREE;
+             i = (i + 1) & _mask) {
+            int home = slot(_keys[i], _mask);
+            if (((i - home) & _mask) >= ((i - gap) & _mask)) {
+                _keys[gap] = _keys[i];
+                _values[gap] = _values[i];
+                _keys[i] = FREE;
+                _values[i] = null;
+                gap = i;
+            }
+        }
+    }
+
+    /** Move my entries into a table of CAPACITY slots. */
+    private void rehash(int capacity) {
+        long[] oldKeys = _keys;
+        V[] oldValues = _values;
+        _keys = new long[capacity];
+        _values = newArray(capacity);
+        _mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j += 1) {
+            if (oldKeys[j] != FREE) {
+                int i = slot(oldKeys[j], _mask);
+                while (_keys[i] != FREE) {
+                    i = (i + 1) & _mask;
+                }
+                _keys[i] = oldKeys[j];
+                _values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /** Return a new array of N values. */
+    @SuppressWarnings("unchecked")
+    private static <V> V[] newArray(int n) {
+        return (V[]) new Object[n];
+    }
+
+    /** Expected number of entries when none is given. */
+    private static final int DEFAULT_EXPECTED = 64;
+
+    /** The keys of the hash table. */
+    private long[] _keys;
+
+    /** The values of the hash table, parallel to _keys. */
+    private V[] _values;
+
+    /** _keys.length - 1. */
+    private int _mask;
+
+    /** Number of entries in me. */
+    private int _size;
+
+    /** True iff FREE itself is a key in me. */
+    private boolean _hasFree;
+
+    /** The value for FREE, if it is a key in me. */
+    private V _freeValue;
+}
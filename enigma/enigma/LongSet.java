@@ -0,0 +1,168 @@
+package enigma;
+
+import java.util.Arrays;
+
+/** A set of longs kept in an open-addressing hash table with linear
+ *  probing.  Keys are stored unboxed, and adding, testing and removing
+ *  them creates no objects except when the table grows.  Intended for
+ *  deduplicating packed machine states (see Machine.encode) in caches and
+ *  searches.
+ *  @author Sahil Gupta
+ */
+class LongSet {
+
+    /** An empty set with room for about EXPECTED keys before growing. */
+    LongSet(int expected) {
+        _keys = new long[tableSize(expected)];
+        _mask = _keys.length - 1;
+    }
+
+    /** An empty set. */
+    LongSet() {
+        this(DEFAULT_EXPECTED);
+    }
+
+    /** Return the number of keys in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Return true iff KEY is in me. */
+    boolean contains(long key) {
+        if (key == FREE) {
+            return _hasFree;
+        }
+        for (int i = slot(key, _mask); ; i = (i + 1) & _mask) {
+            long k = _keys[i];
+            if (k == key) {
+                return true;
+            } else if (k == FREE) {
+                return false;
+            }
+        }
+    }
+
+    /** Add KEY to me.  Return true iff it was not already present. */
+    boolean add(long key) {
+        if (key == FREE) {
+            boolean added = !_hasFree;
+            _hasFree = true;
+            _size += added ? 1 : 0;
+            return added;
+        }
+        for (int i = slot(key, _mask); ; i = (i + 1) & _mask) {
+            long k = _keys[i];
+            if (k == key) {
+                return false;
+            } else if (k == FREE) {
+                _keys[i] = key;
+                _size += 1;
+                if (_size > _keys.length * LOAD_FACTOR) {
+                    rehash(_keys.length * 2);
+                }
+                return true;
+            }
+        }
+    }
+
+    /** Remove KEY from me.  Return true iff it was present. */
+    boolean remove(long key) {
+        if (key == FREE) {
+            boolean removed = _hasFree;
+            _hasFree = false;
+            _size -= removed ? 1 : 0;
+            return removed;
+        }
+        for (int i = slot(key, _mask); ; i = (i + 1) & _mask) {
+            long k = _keys[i];
+            if (k == FREE) {
+                return false;
+            } else if (k == key) {
+                _keys[i] = FREE;
+                _size -= 1;
+                closeGap(i);
+                return true;
+            }
+        }
+    }
+
+    /** Remove all keys from me. */
+    void clear() {
+        Arrays.fill(_keys, FREE);
+        _hasFree = false;
+        _size = 0;
+    }
+
+    /** Re-insert the keys following the newly freed slot GAP so that no
+     *  probe sequence is broken by it. */
+    private void closeGap(int gap) {
+        for (int i = (gap + 1) & _mask; _keys[i] != FREE;
+             i = (i + 1) & _mask) {
+            int home = slot(_keys[i], _mask);
+            if (((i - home) & _mask) >= ((i - gap) & _mask)) {
+                _keys[gap] = _keys[i];
+                _keys[i] = FREE;
+                gap = i;
+            }
+        }
+    }
+
+    /** Move my keys into a table of CAPACITY slots. */
+    private void rehash(int capacity) {
+        long[] old = _keys;
+        _keys = new long[capacity];
+        _mask = capacity - 1;
+        for (long key : old) {
+            if (key != FREE) {
+                int i = slot(key, _mask);
+                while (_keys[i] != FREE) {
+                    i = (i + 1) & _mask;
+                }
+                _keys[i] = key;
+            }
+        }
+    }
+
+    /** Return the home slot of KEY in a table with index mask MASK. */
+    static int slot(long key, int mask) {
+        long h = key * MIX;
+        return (int) (h ^ (h >>> (Long.SIZE / 2))) & mask;
+    }
+
+    /** Return a power-of-two table size holding EXPECTED keys below the
+     *  load factor. */
+    static int tableSize(int expected) {
+        int size = MIN_TABLE;
+        while (size * LOAD_FACTOR < expected) {
+            size *= 2;
+        }
+        return size;
+    }
+
+    /** Key value marking an empty slot; stored separately when added. */
+    static final long FREE = 0;
+
+    /** Largest fraction of slots in use before the table grows. */
+    static final double LOAD_FACTOR = 0.5;
+
+    /** Smallest table size. */
+    static final int MIN_TABLE = 16;
+
+    /** Odd multiplier (2^64 / golden ratio) scrambling keys. */
+    static final long MIX = 0x9E3779B97F4A7C15L;
+
+    /** Expected number of keys when none is given. */
+    private static final int DEFAULT_EXPECTED = 64;
+
+    /** The hash table. */
+    private long[] _keys;
+
+    /** _keys.length - 1. */
+    private int _mask;
+
+    /** Number of keys in me. */
+    private int _size;
+
+    /** True iff FREE itself is in me. */
+    private boolean _hasFree;
+}
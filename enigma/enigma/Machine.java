@@ -1,232 +1,515 @@
-package enigma;
-
-import java.util.ArrayList;
-import java.util.Collection;
-
-import static enigma.EnigmaException.*;
-
-/** Class that represents a complete enigma machine.
- *  @author Sahil Gupta
- */
-class Machine {
-
-    /** A new Enigma machine with alphabet ALPHA, 1 < NUMROTORS rotor slots,
-     *  and 0 <= PAWLS < NUMROTORS pawls.  ALLROTORS contains all the
-     *  available rotors. */
-    Machine(Alphabet alpha, int numRotors, int pawls,
-            Collection<Rotor> allRotors) {
-
-        if (allRotors.size() < numRotors) {
-            throw new EnigmaException(
-                    "The number of Rotor objects is less than "
-                           + "the rotor count parameter.");
-        }
-
-        if (numRotors <= 1) {
-            throw new EnigmaException("The number of rotors is "
-                   + "less than or equal to 1.");
-        }
-
-        int countPawls = 0, countReflectors = 0;
-        for (Rotor rotor: allRotors) {
-            if (!rotor.alphabet().equals(alpha)) {
-                throw new EnigmaException("One of the rotors does not"
-                       + " share the same alphabet.");
-            }
-            if (rotor.rotates()) {
-                countPawls += 1;
-            } else if (rotor.reflecting()) {
-                countReflectors += 1;
-            }
-        }
-
-        if (countPawls < pawls) {
-            throw new EnigmaException(
-                    "The number of movable Rotor objects "
-                           + "is less than the pawl count parameter");
-        }
-
-        if (countReflectors < 1) {
-            throw new EnigmaException("There must be at least one reflector.");
-        }
-
-        if (pawls == numRotors || allRotors.size() == countPawls) {
-            throw new EnigmaException("The pawl count is equal "
-                   + "to the number of rotors.");
-        }
-
-        _alphabet = alpha;
-        _numRotors = numRotors;
-        _pawls = pawls;
-        _allRotors = allRotors;
-        _plugboard = new Permutation("", alpha);
-        _allRotorsOrdered = new ArrayList<>();
-    }
-
-    /** Return the number of rotor slots I have. */
-    int numRotors() {
-        return _numRotors;
-    }
-
-    /** Return the number pawls (and thus rotating rotors) I have. */
-    int numPawls() {
-        return _pawls;
-    }
-
-    /** Set my rotor slots to the rotors named ROTORS from my set of
-     *  available rotors (ROTORS[0] names the reflector).
-     *  Initially, all rotors are set at their 0 setting. */
-    void insertRotors(String[] rotors) {
-        _allRotorsOrdered.clear();
-        if (rotors.length != numRotors()) {
-            throw new EnigmaException("Input does not have the same"
-                   + " number of rotors as the initialized amount.");
-        }
-
-        int countPawls = 0;
-        for (int i = 0; i < rotors.length; i += 1) {
-            Rotor currentRotor = null;
-            for (Rotor rotor: _allRotors) {
-                if (rotor.name().equals(rotors[i])) {
-                    currentRotor = rotor;
-                    break;
-                }
-            }
-            if (currentRotor == null) {
-                throw new EnigmaException("Rotor " + rotors[i]
-                        + " does not exist.");
-            } else if (i == 0 && !currentRotor.reflecting()) {
-                throw new EnigmaException("The first rotor "
-                       + "is not a reflector.");
-            } else if (i != 0 && currentRotor.reflecting()) {
-                throw new EnigmaException("There can only be "
-                       + "one reflector inserted.");
-            }
-            if (currentRotor.rotates()) {
-                countPawls += 1;
-            }
-            _allRotorsOrdered.add(currentRotor);
-            currentRotor.set(0);
-        }
-        if (countPawls != numPawls()) {
-            throw new EnigmaException("The number of pawls in the settings"
-                   + "is not equivalent to the pawl count parameter.");
-        }
-    }
-
-    /** Set my rotors according to SETTING, which must be a string of
-     *  numRotors()-1 characters in my alphabet. The first letter refers
-     *  to the leftmost rotor setting (not counting the reflector).  */
-    void setRotors(String setting) {
-        if (setting.length() != numRotors() - 1) {
-            throw new EnigmaException("Setting must be "
-                   + "of length numRotors()-1.");
-        }
-        for (int i = 1; i < _allRotorsOrdered.size(); i += 1) {
-            _allRotorsOrdered.get(i).set(setting.charAt(i - 1));
-        }
-    }
-
-    /** Set my rotors ring settings according to SETTING, which must be a
-     *  string of numRotors()-1 characters in my alphabet. The first letter
-     *  refers to the leftmost rotor setting (not counting the reflector). */
-    void setRingSetting(String setting) {
-        if (setting.length() != numRotors() - 1) {
-            throw new EnigmaException("Setting must be "
-                    + "of length numRotors()-1.");
-        }
-        for (int i = 1; i < _allRotorsOrdered.size(); i += 1) {
-            _allRotorsOrdered.get(i).setRingSetting(setting.charAt(i - 1));
-        }
-
-        for (int i = 1; i < _allRotorsOrdered.size(); i += 1) {
-            Rotor rotor = _allRotorsOrdered.get(i);
-            rotor.set(rotor.setting() - _alphabet.toInt(setting.charAt(i - 1)));
-        }
-    }
-
-    /** Set the plugboard to PLUGBOARD. */
-    void setPlugboard(Permutation plugboard) {
-        _plugboard = plugboard;
-    }
-
-    /** Returns the result of converting the input character C (as an
-     *  index in the range 0..alphabet size - 1), after first advancing
-     *  the machine. */
-    int convert(int c) {
-        int permutation = _plugboard.permute(c);
-        rotate();
-        for (int i = _allRotorsOrdered.size() - 1; i >= 0; i -= 1) {
-            permutation = _allRotorsOrdered.get(i)
-                    .convertForward(permutation);
-        }
-        for (int j = 1; j < _allRotorsOrdered.size(); j += 1) {
-            permutation = _allRotorsOrdered.get(j)
-                    .convertBackward(permutation);
-        }
-
-        return _plugboard.invert(permutation);
-    }
-
-    /** Rotates the rotors based on their mobility and whether the rotor
-     * to the right of the rotor is at the notch.
-     */
-    void rotate() {
-        Rotor rightMost = _allRotorsOrdered
-                .get(_allRotorsOrdered.size() - 1);
-        int[] rotorSettings = new int[numRotors()];
-
-        for (int i = 0; i < _allRotorsOrdered.size() - 1; i += 1) {
-            Rotor rotorLeft = _allRotorsOrdered.get(i),
-                    rotorRight = _allRotorsOrdered.get(i + 1);
-            if (rotorLeft.rotates() && rotorRight.atNotch()
-                    && rotorSettings[i] == 0) {
-                rotorLeft.advance();
-                rotorSettings[i] = 1;
-                if (rotorRight.rotates()) {
-                    rotorRight.advance();
-                    rotorSettings[i + 1] = 1;
-                }
-            }
-        }
-
-        if (rotorSettings[numRotors() - 1] == 0 && rightMost.rotates()) {
-            rightMost.advance();
-        }
-    }
-
-    /** Returns the encoding/decoding of MSG, updating the state of
-     *  the rotors accordingly. */
-    String convert(String msg) {
-        if (msg.equals("")) {
-            return msg;
-        } else {
-            char c = msg.charAt(0);
-            if (!_alphabet.contains(c)) {
-                throw new EnigmaException(
-                        String.format("Character \"%c\" "
-                               + "is not in the alphabet.", c));
-            }
-            int converted = convert(_alphabet.toInt(msg.charAt(0)));
-            return _alphabet.toChar(converted) + convert(msg.substring(1));
-        }
-    }
-
-    /** Common alphabet of my rotors. */
-    private final Alphabet _alphabet;
-
-    /** Number of rotors I have. */
-    private int _numRotors;
-
-    /** Number of pawls/movable rotors I have. */
-    private int _pawls;
-
-    /** All of my rotors. */
-    private Collection<Rotor> _allRotors;
-
-    /** My plugboard. */
-    private Permutation _plugboard;
-
-    /** This is the ordered list of my rotors. */
-    private ArrayList<Rotor> _allRotorsOrdered;
-}
+package enigma;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static enigma.EnigmaException.*;
+
+/** Class that represents a complete enigma machine.
+ *  @author Sahil Gupta
+ */
+class Machine {
+
+    /** A new Enigma machine with alphabet ALPHA, 1 < NUMROTORS rotor slots,
+     *  and 0 <= PAWLS < NUMROTORS pawls.  ALLROTORS contains all the
+     *  available rotors. */
+    Machine(Alphabet alpha, int numRotors, int pawls,
+            Collection<Rotor> allRotors) {
+
+        if (allRotors.size() < numRotors) {
+            throw new EnigmaException(
+                    "The number of Rotor objects is less than "
+                           + "the rotor count parameter.");
+        }
+
+        if (numRotors <= 1) {
+            throw new EnigmaException("The number of rotors is "
+                   + "less than or equal to 1.");
+        }
+
+        int countPawls = 0, countReflectors = 0;
+        for (Rotor rotor: allRotors) {
+            if (!rotor.alphabet().equals(alpha)) {
+                throw new EnigmaException("One of the rotors does not"
+                       + " share the same alphabet.");
+            }
+            if (rotor.rotates()) {
+                countPawls += 1;
+            } else if (rotor.reflecting()) {
+                countReflectors += 1;
+            }
+        }
+
+        if (countPawls < pawls) {
+            throw new EnigmaException(
+                    "The number of movable Rotor objects "
+                           + "is less than the pawl count parameter");
+        }
+
+        if (countReflectors < 1) {
+            throw new EnigmaException("There must be at least one reflector.");
+        }
+
+        if (pawls == numRotors || allRotors.size() == countPawls) {
+            throw new EnigmaException("The pawl count is equal "
+                   + "to the number of rotors.");
+        }
+
+        _alphabet = alpha;
+        _numRotors = numRotors;
+        _pawls = pawls;
+        _allRotors = allRotors;
+        _rotorList = new ArrayList<>(allRotors);
+        _indexBits = bitsFor(_rotorList.size());
+        _settingBits = bitsFor(alpha.size());
+        _plugboard = new Permutation("", alpha);
+        _allRotorsOrdered = new ArrayList<>();
+    }
+
+    /** Return the number of rotor slots I have. */
+    int numRotors() {
+        return _numRotors;
+    }
+
+    /** Return the number pawls (and thus rotating rotors) I have. */
+    int numPawls() {
+        return _pawls;
+    }
+
+    /** Return my alphabet. */
+    Alphabet alphabet() {
+        return _alphabet;
+    }
+
+    /** Return the rotor in slot K (0 for the reflector) of those
+     *  inserted. */
+    Rotor rotor(int k) {
+        return _allRotorsOrdered.get(k);
+    }
+
+    /** Set my rotor slots to the rotors named ROTORS from my set of
+     *  available rotors (ROTORS[0] names the reflector).
+     *  Initially, all rotors are set at their 0 setting. */
+    void insertRotors(String[] rotors) {
+        _allRotorsOrdered.clear();
+        if (rotors.length != numRotors()) {
+            throw WRONG_ROTOR_COUNT;
+        }
+
+        int countPawls = 0;
+        for (int i = 0; i < rotors.length; i += 1) {
+            Rotor currentRotor = null;
+            for (Rotor rotor: _allRotors) {
+                if (rotor.name().equals(rotors[i])) {
+                    currentRotor = rotor;
+                    break;
+                }
+            }
+            if (currentRotor == null) {
+                throw new EnigmaException("Rotor " + rotors[i]
+                        + " does not exist.", false);
+            } else if (i == 0 && !currentRotor.reflecting()) {
+                throw NO_REFLECTOR;
+            } else if (i != 0 && currentRotor.reflecting()) {
+                throw EXTRA_REFLECTOR;
+            }
+            if (currentRotor.rotates()) {
+                countPawls += 1;
+            }
+            _allRotorsOrdered.add(currentRotor);
+            currentRotor.set(0);
+        }
+        if (countPawls != numPawls()) {
+            throw WRONG_PAWL_COUNT;
+        }
+    }
+
+    /** Set my rotors according to SETTING, which must be a string of
+     *  numRotors()-1 characters in my alphabet. The first letter refers
+     *  to the leftmost rotor setting (not counting the reflector).  */
+    void setRotors(String setting) {
+        if (setting.length() != numRotors() - 1) {
+            throw WRONG_SETTING_LENGTH;
+        }
+        for (int i = 1; i < _allRotorsOrdered.size(); i += 1) {
+            _allRotorsOrdered.get(i).set(setting.charAt(i - 1));
+        }
+    }
+
+    /** Set my rotors ring settings according to SETTING, which must be a
+     *  string of numRotors()-1 characters in my alphabet. The first letter
+     *  refers to the leftmost rotor setting (not counting the reflector). */
+    void setRingSetting(String setting) {
+        if (setting.length() != numRotors() - 1) {
+            throw WRONG_SETTING_LENGTH;
+        }
+        for (int i = 1; i < _allRotorsOrdered.size(); i += 1) {
+            _allRotorsOrdered.get(i).setRingSetting(setting.charAt(i - 1));
+        }
+
+        for (int i = 1; i < _allRotorsOrdered.size(); i += 1) {
+            Rotor rotor = _allRotorsOrdered.get(i);
+            rotor.set(rotor.setting() - _alphabet.toInt(setting.charAt(i - 1)));
+        }
+    }
+
+    /** Return my plugboard. */
+    Permutation plugboard() {
+        return _plugboard;
+    }
+
+    /** Set the plugboard to PLUGBOARD. */
+    void setPlugboard(Permutation plugboard) {
+        _plugboard = plugboard;
+    }
+
+    /** Returns the result of converting the input character C (as an
+     *  index in the range 0..alphabet size - 1), after first advancing
+     *  the machine. */
+    int convert(int c) {
+        _processed += 1;
+        int permutation = _plugboard.permute(c);
+        rotate();
+        for (int i = _allRotorsOrdered.size() - 1; i >= 0; i -= 1) {
+            permutation = _allRotorsOrdered.get(i)
+                    .convertForward(permutation);
+        }
+        for (int j = 1; j < _allRotorsOrdered.size(); j += 1) {
+            permutation = _allRotorsOrdered.get(j)
+                    .convertBackward(permutation);
+        }
+
+        return _plugboard.invert(permutation);
+    }
+
+    /** Rotates the rotors based on their mobility and whether the rotor
+     * to the right of the rotor is at the notch.
+     */
+    void rotate() {
+        Rotor rightMost = _allRotorsOrdered
+                .get(_allRotorsOrdered.size() - 1);
+        int[] rotorSettings = new int[numRotors()];
+
+        for (int i = 0; i < _allRotorsOrdered.size() - 1; i += 1) {
+            Rotor rotorLeft = _allRotorsOrdered.get(i),
+                    rotorRight = _allRotorsOrdered.get(i + 1);
+            if (rotorLeft.rotates() && rotorRight.atNotch()
+                    && rotorSettings[i] == 0) {
+                rotorLeft.advance();
+                rotorSettings[i] = 1;
+                if (rotorRight.rotates()) {
+                    rotorRight.advance();
+                    rotorSettings[i + 1] = 1;
+                }
+            }
+        }
+
+        if (rotorSettings[numRotors() - 1] == 0 && rightMost.rotates()) {
+            rightMost.advance();
+        }
+    }
+
+    /** Returns the encoding/decoding of MSG, updating the state of
+     *  the rotors accordingly. */
+    String convert(String msg) {
+        char[] chars = msg.toCharArray();
+        convert(chars, 0, chars.length);
+        return new String(chars);
+    }
+
+    /** Replace the LEN characters of BUF starting at OFF, each of which
+     *  must be in my alphabet, with their encodings/decodings, updating
+     *  the state of the rotors accordingly. */
+    void convert(char[] buf, int off, int len) {
+        for (int i = off; i < off + len; i += 1) {
+            char c = buf[i];
+            int index = _alphabet.index(c);
+            if (index == -1) {
+                throw new EnigmaException(
+                        String.format("Character \"%c\" "
+                               + "is not in the alphabet.", c));
+            }
+            buf[i] = _alphabet.toChar(convert(index));
+        }
+    }
+
+    /** Replace the LEN alphabet indices in BUF starting at OFF, each of
+     *  which must be valid, with their encodings/decodings, updating the
+     *  state of the rotors accordingly. */
+    void convert(int[] buf, int off, int len) {
+        for (int i = off; i < off + len; i += 1) {
+            buf[i] = convert(buf[i]);
+        }
+    }
+
+    /** Return the number of characters I have converted. */
+    long processed() {
+        return _processed;
+    }
+
+    /** Return a snapshot of my current state.  My rotors must have been
+     *  inserted. */
+    MachineState snapshot() {
+        if (_allRotorsOrdered.size() != numRotors()) {
+            throw new EnigmaException("No rotors inserted.");
+        }
+        String[] names = new String[numRotors()];
+        int[] positions = new int[numRotors()], rings = new int[numRotors()];
+        for (int i = 0; i < names.length; i += 1) {
+            Rotor rotor = _allRotorsOrdered.get(i);
+            names[i] = rotor.name();
+            positions[i] = rotor.setting();
+            rings[i] = rotor.ringSetting();
+        }
+        return new MachineState(names, positions, rings,
+                                _plugboard.toString(), _processed);
+    }
+
+    /** Return a string that is the same for two of my states iff they
+     *  differ at most in the positions of my rotors: it names my
+     *  inserted rotors and gives their ring settings and my plugboard.
+     *  Machines with the same key can share a StreamEngine or a
+     *  CompiledMachine. */
+    String wiringKey() {
+        StringBuilder key = new StringBuilder();
+        for (Rotor rotor : _allRotorsOrdered) {
+            key.append(rotor.name()).append(' ')
+                .append(rotor.ringSetting()).append(' ');
+        }
+        return key.append(_plugboard).toString();
+    }
+
+    /** Restore my state to STATE, which must have been taken from a
+     *  machine with my configuration.  Takes time independent of the
+     *  number of characters converted since STATE was taken. */
+    void restore(MachineState state) {
+        restore(state, new Permutation(state.plugboard(), _alphabet));
+    }
+
+    /** Restore my state to STATE, as for restore(MachineState), but use
+     *  PLUGBOARD, which must hold STATE's plugboard cycles, rather than
+     *  parsing them again. */
+    void restore(MachineState state, Permutation plugboard) {
+        insertRotors(state.rotors());
+        for (int i = 1; i < numRotors(); i += 1) {
+            _allRotorsOrdered.get(i).setRingSetting(state.ring(i));
+        }
+        restorePositions(state);
+        setPlugboard(plugboard);
+    }
+
+    /** Restore my rotor positions and count of characters converted to
+     *  those of STATE, which must have the rotors, ring settings and
+     *  plugboard I have now.  Unlike restore, does not re-insert my
+     *  rotors. */
+    void restorePositions(MachineState state) {
+        for (int i = 1; i < numRotors(); i += 1) {
+            _allRotorsOrdered.get(i).set(state.position(i));
+        }
+        _processed = state.processed();
+    }
+
+    /** Return the number of bits needed to hold values in 0 .. N-1. */
+    private static int bitsFor(int n) {
+        return Math.max(1, Long.SIZE - Long.numberOfLeadingZeros(n - 1));
+    }
+
+    /** Return the number of longs (1 or 2) needed by encode(long[]). */
+    int packedWords() {
+        int bits = numRotors() * _indexBits
+            + 2 * (numRotors() - 1) * _settingBits;
+        if (bits > 2 * Long.SIZE) {
+            throw new EnigmaException("Machine state does not fit "
+                    + "in two longs.");
+        }
+        return bits <= Long.SIZE ? 1 : 2;
+    }
+
+    /** Pack the indices (in the order the rotors were given to my
+     *  constructor) of my inserted rotors, and their positions and ring
+     *  settings, into the first packedWords() elements of DST.  The
+     *  plugboard is not included.  My rotors must have been inserted. */
+    void encode(long[] dst) {
+        if (_allRotorsOrdered.size() != numRotors()) {
+            throw new EnigmaException("No rotors inserted.");
+        }
+        int words = packedWords();
+        for (int w = 0; w < words; w += 1) {
+            dst[w] = 0;
+        }
+        int bit = 0;
+        for (int i = 0; i < numRotors(); i += 1) {
+            Rotor rotor = _allRotorsOrdered.get(i);
+            bit = putBits(dst, bit, _indexBits, _rotorList.indexOf(rotor));
+            if (i > 0) {
+                bit = putBits(dst, bit, _settingBits, rotor.setting());
+                bit = putBits(dst, bit, _settingBits, rotor.ringSetting());
+            }
+        }
+    }
+
+    /** Return my state packed as by encode(long[]), which must fit in a
+     *  single long. */
+    long encode() {
+        if (packedWords() != 1) {
+            throw new EnigmaException("Machine state needs two longs.");
+        }
+        encode(_packed);
+        return _packed[0];
+    }
+
+    /** Insert and set my rotors from SRC, produced by encode(long[]) on a
+     *  machine with my configuration.  Leaves the plugboard alone and
+     *  creates no objects. */
+    void decode(long[] src) {
+        packedWords();
+        _allRotorsOrdered.clear();
+        int bit = 0, countPawls = 0;
+        for (int i = 0; i < numRotors(); i += 1) {
+            int index = getBits(src, bit, _indexBits);
+            bit += _indexBits;
+            if (index >= _rotorList.size()) {
+                throw new EnigmaException("Bad packed rotor index.");
+            }
+            Rotor rotor = _rotorList.get(index);
+            if ((i == 0) != rotor.reflecting()) {
+                throw new EnigmaException("Bad packed rotor order.");
+            }
+            _allRotorsOrdered.add(rotor);
+            if (rotor.rotates()) {
+                countPawls += 1;
+            }
+            if (i > 0) {
+                int posn = getBits(src, bit, _settingBits);
+                int ring = getBits(src, bit + _settingBits, _settingBits);
+                bit += 2 * _settingBits;
+                rotor.setRingSetting(ring);
+                rotor.set(posn);
+            }
+        }
+        if (countPawls != numPawls()) {
+            throw new EnigmaException("Bad packed rotor order.");
+        }
+    }
+
+    /** Insert and set my rotors from PACKED, produced by encode(). */
+    void decode(long packed) {
+        _packed[0] = packed;
+        decode(_packed);
+    }
+
+    /** Store the low N bits of VALUE at bit offset BIT of WORDS, and
+     *  return the offset just past them. */
+    private static int putBits(long[] words, int bit, int n, long value) {
+        int w = bit / Long.SIZE, b = bit % Long.SIZE;
+        words[w] |= value << b;
+        if (b + n > Long.SIZE) {
+            words[w + 1] |= value >>> (Long.SIZE - b);
+        }
+        return bit + n;
+    }
+
+    /** Return the N-bit value at bit offset BIT of WORDS. */
+    private static int getBits(long[] words, int bit, int n) {
+        int w = bit / Long.SIZE, b = bit % Long.SIZE;
+        long value = words[w] >>> b;
+        if (b + n > Long.SIZE) {
+            value |= words[w + 1] << (Long.SIZE - b);
+        }
+        return (int) (value & ((1L << n) - 1));
+    }
+
+    /** Convert the bytes remaining in SRC, each of which must be the
+     *  ISO-8859-1 code of a character in my alphabet, writing the results
+     *  to DST and updating the state of the rotors accordingly.  SRC and
+     *  DST may be heap or direct buffers; both positions are advanced by
+     *  the number of bytes converted, and no intermediate copy of the
+     *  payload is made.  DST must have at least SRC.remaining() bytes
+     *  remaining. */
+    void convert(ByteBuffer src, ByteBuffer dst) {
+        int n = src.remaining();
+        if (dst.remaining() < n) {
+            throw new EnigmaException("Destination buffer is too small.");
+        }
+        int from = src.position(), to = dst.position();
+        for (int i = 0; i < n; i += 1) {
+            char c = (char) (src.get(from + i) & BYTE_MASK);
+            int index = _alphabet.index(c);
+            if (index == -1) {
+                throw error("Character \"%c\" is not in the alphabet.", c);
+            }
+            char result = _alphabet.toChar(convert(index));
+            if (result > BYTE_MASK) {
+                throw error("Character \"%c\" cannot be written "
+                        + "as a single byte.", result);
+            }
+            dst.put(to + i, (byte) result);
+        }
+        src.position(from + n);
+        dst.position(to + n);
+    }
+
+    /** Thrown when a settings line names the wrong number of rotors. */
+    private static final EnigmaException WRONG_ROTOR_COUNT =
+        new EnigmaException("Input does not have the same number of "
+                            + "rotors as the initialized amount.", false);
+
+    /** Thrown when a settings line does not start with a reflector. */
+    private static final EnigmaException NO_REFLECTOR =
+        new EnigmaException("The first rotor is not a reflector.", false);
+
+    /** Thrown when a settings line names a reflector after the first
+     *  slot. */
+    private static final EnigmaException EXTRA_REFLECTOR =
+        new EnigmaException("There can only be one reflector inserted.",
+                            false);
+
+    /** Thrown when a settings line names the wrong number of moving
+     *  rotors. */
+    private static final EnigmaException WRONG_PAWL_COUNT =
+        new EnigmaException("The number of pawls in the settings"
+                            + "is not equivalent to the pawl count "
+                            + "parameter.", false);
+
+    /** Thrown when rotor or ring settings have the wrong length. */
+    private static final EnigmaException WRONG_SETTING_LENGTH =
+        new EnigmaException("Setting must be of length numRotors()-1.",
+                            false);
+
+    /** Mask selecting the unsigned value of a byte. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** Common alphabet of my rotors. */
+    private final Alphabet _alphabet;
+
+    /** Number of rotors I have. */
+    private int _numRotors;
+
+    /** Number of pawls/movable rotors I have. */
+    private int _pawls;
+
+    /** All of my rotors. */
+    private Collection<Rotor> _allRotors;
+
+    /** My plugboard. */
+    private Permutation _plugboard;
+
+    /** This is the ordered list of my rotors. */
+    private ArrayList<Rotor> _allRotorsOrdered;
+
+    /** Number of characters I have converted. */
+    private long _processed;
+
+    /** All of my rotors, in the order given to my constructor. */
+    private ArrayList<Rotor> _rotorList;
+
+    /** Bits used for a rotor index by encode. */
+    private final int _indexBits;
+
+    /** Bits used for a position or ring setting by encode. */
+    private final int _settingBits;
+
+    /** Scratch words for encode() and decode(long). */
+    private final long[] _packed = new long[2];
+}
@@ -0,0 +1,640 @@
+package enigma;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import static enigma.EnigmaException.*;
+
+/** Compiles a configured Machine into a hidden class specialized to its
+ *  rotors, ring settings, and plugboard.  The generated convert method
+ *  has one straight-line pass per rotor slot, reading wiring tables held
+ *  in static final fields (which the JIT treats as constants); the
+ *  stepping rule is unrolled, with the notch positions, adjusted for the
+ *  ring settings, compared as constants.  The plugboard is folded into
+ *  the tables of the rightmost rotor, and the reflector together with
+ *  the non-moving rotors beside it into a single table.  Rotor
+ *  positions are kept premultiplied by the alphabet size, as offsets
+ *  into the flattened tables.
+ *
+ *  The class is written as a version 49 class file, whose branches need
+ *  no stack map frames, and gets its tables through the class data of
+ *  MethodHandles.Lookup.defineHiddenClassWithClassData.
+ *  @author Sahil Gupta
+ */
+class MachineCompiler {
+
+    /** Return a CompiledMachine equivalent to MACHINE, which must have
+     *  all its rotors inserted, starting at MACHINE's current rotor
+     *  positions.  Later changes to MACHINE do not affect the result. */
+    static CompiledMachine compile(Machine machine) {
+        return new MachineCompiler(machine).define();
+    }
+
+    /** A compiler for the current configuration of MACHINE. */
+    private MachineCompiler(Machine machine) {
+        _k = machine.numRotors();
+        _n = machine.alphabet().size();
+        _rotates = new boolean[_k];
+        _notches = new int[_k][];
+        _settings = new int[_k - 1];
+        int fixed = 0;
+        for (int j = 0; j < _k; j += 1) {
+            Rotor rotor = machine.rotor(j);
+            _rotates[j] = rotor.rotates();
+            _notches[j] = rotor.notchSettings();
+            if (j > 0) {
+                _settings[j - 1] = rotor.setting();
+            }
+            if (j == fixed + 1 && !_rotates[j]) {
+                fixed = j;
+            }
+        }
+        _fixed = fixed;
+        _tables = tables(machine);
+    }
+
+    /** Return the tables of the generated class: first the combined
+     *  table of the reflector and the non-moving rotors in slots 1 ..
+     *  _fixed, then for each later slot its forward and backward tables,
+     *  indexed by core setting times alphabet size plus letter.  These
+     *  are the rotors' shared Permutation.shifts tables, except that the
+     *  plugboard is folded into those of the last slot. */
+    private int[][] tables(Machine machine) {
+        int[] plug = machine.plugboard().table();
+        int[] plugInv = Permutation.inverse(plug, new int[_n]);
+        int[][] tables = new int[1 + 2 * (_k - 1 - _fixed)][];
+        int[] inner = new int[_n];
+        for (int c = 0; c < _n; c += 1) {
+            int x = c;
+            for (int j = _fixed; j >= 0; j -= 1) {
+                x = machine.rotor(j).convertForward(x);
+            }
+            for (int j = 1; j <= _fixed; j += 1) {
+                x = machine.rotor(j).convertBackward(x);
+            }
+            inner[c] = x;
+        }
+        if (_fixed == _k - 1) {
+            int[] plugged = Permutation.compose(plug, inner, new int[_n]);
+            inner = Permutation.compose(plugged, plugInv, plugged);
+        }
+        tables[0] = inner;
+        for (int j = _fixed + 1; j < _k; j += 1) {
+            Permutation wiring = machine.rotor(j).permutation();
+            int[] fwd = wiring.shifts(false), bwd = wiring.shifts(true);
+            if (j == _k - 1) {
+                int[] shared = fwd;
+                fwd = new int[_n * _n];
+                bwd = bwd.clone();
+                for (int base = 0; base < _n * _n; base += _n) {
+                    for (int c = 0; c < _n; c += 1) {
+                        fwd[base + c] = shared[base + plug[c]];
+                        bwd[base + c] = plugInv[bwd[base + c]];
+                    }
+                }
+            }
+            tables[forward(j)] = fwd;
+            tables[forward(j) + 1] = bwd;
+        }
+        return tables;
+    }
+
+    /** Return the index in _tables of the forward table of slot J. */
+    private int forward(int j) {
+        return 2 * (j - _fixed) - 1;
+    }
+
+    /** Generate, define, and instantiate my hidden class. */
+    private CompiledMachine define() {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup()
+                .defineHiddenClassWithClassData(classFile(), _tables, true);
+            CompiledMachine result = (CompiledMachine)
+                lookup.findConstructor(lookup.lookupClass(),
+                                       MethodType.methodType(void.class))
+                .invoke();
+            result.setSettings(_settings);
+            return result;
+        } catch (Throwable excp) {
+            throw error("could not compile machine: %s", excp);
+        }
+    }
+
+    /** Return the class file of my hidden class. */
+    private byte[] classFile() {
+        Assembler asm = new Assembler();
+        for (int t = 0; t < _tables.length; t += 1) {
+            asm.field(ACC_STATIC_FINAL, table(t), "[I");
+        }
+        for (int j = _fixed + 1; j < _k; j += 1) {
+            asm.field(ACC_PRIVATE, offset(j), "I");
+        }
+
+        asm.begin(ACC_PUBLIC, "<init>", "()V");
+        asm.op(ALOAD_0).op(INVOKESPECIAL)
+            .u2(asm.method(OBJECT, "<init>", "()V")).op(RETURN);
+        asm.end(1, 1);
+
+        asm.begin(ACC_STATIC, "<clinit>", "()V");
+        asm.op(INVOKESTATIC).u2(asm.method(HANDLES, "lookup",
+                                           "()" + LOOKUP_TYPE));
+        asm.ldc(asm.string("_")).ldc(asm.cls(OBJECT));
+        asm.op(INVOKESTATIC).u2(asm.method(HANDLES, "classData",
+                                           "(" + LOOKUP_TYPE
+                                           + "Ljava/lang/String;"
+                                           + "Ljava/lang/Class;)"
+                                           + "Ljava/lang/Object;"));
+        asm.op(CHECKCAST).u2(asm.cls("[[I")).op(ASTORE_0);
+        for (int t = 0; t < _tables.length; t += 1) {
+            asm.op(ALOAD_0).iconst(t).op(AALOAD);
+            asm.op(PUTSTATIC).u2(asm.field(THIS, table(t), "[I"));
+        }
+        asm.op(RETURN);
+        asm.end(3, 1);
+
+        asm.begin(ACC_PUBLIC, "convert", "(I)I");
+        convertCode(asm);
+        asm.end(MAX_STACK, 2 + _k);
+
+        asm.begin(ACC_PUBLIC, "settings", "([I)V");
+        for (int j = 1; j < _k; j += 1) {
+            asm.op(ALOAD_1).iconst(j - 1);
+            if (j <= _fixed) {
+                asm.iconst(_settings[j - 1]);
+            } else {
+                getOffset(asm, j);
+                asm.iconst(_n).op(IDIV);
+            }
+            asm.op(IASTORE);
+        }
+        asm.op(RETURN);
+        asm.end(MAX_STACK, 2);
+
+        asm.begin(ACC_PUBLIC, "setSettings", "([I)V");
+        for (int j = _fixed + 1; j < _k; j += 1) {
+            asm.op(ALOAD_0).op(ALOAD_1).iconst(j - 1).op(IALOAD);
+            asm.iconst(_n).op(IMUL);
+            asm.op(PUTFIELD).u2(asm.field(THIS, offset(j), "I"));
+        }
+        asm.op(RETURN);
+        asm.end(MAX_STACK, 2);
+
+        return asm.toBytes(THIS, OBJECT, INTERFACE);
+    }
+
+    /** Emit to ASM the body of convert(int): the stepping rule of
+     *  Stepper.step, unrolled, followed by the passes through the
+     *  tables. */
+    private void convertCode(Assembler asm) {
+        for (int j = _fixed + 1; j < _k; j += 1) {
+            asm.iconst(0).op(ISTORE).u1(moved(j));
+        }
+        for (int i = _fixed + 1; i < _k - 1; i += 1) {
+            if (!_rotates[i] || _notches[i + 1].length == 0) {
+                continue;
+            }
+            asm.op(ILOAD).u1(moved(i));
+            int skip = asm.jump(IFNE);
+            ArrayList<Integer> hits = new ArrayList<>();
+            for (int notch : _notches[i + 1]) {
+                getOffset(asm, i + 1);
+                asm.iconst(notch * _n);
+                hits.add(asm.jump(IF_ICMPEQ));
+            }
+            int miss = asm.jump(GOTO);
+            for (int hit : hits) {
+                asm.land(hit);
+            }
+            advance(asm, i);
+            if (_rotates[i + 1]) {
+                advance(asm, i + 1);
+            }
+            asm.land(skip);
+            asm.land(miss);
+        }
+        if (_fixed < _k - 1 && _rotates[_k - 1]) {
+            asm.op(ILOAD).u1(moved(_k - 1));
+            int done = asm.jump(IFNE);
+            advance(asm, _k - 1);
+            asm.land(done);
+        }
+
+        for (int j = _k - 1; j > _fixed; j -= 1) {
+            lookup(asm, forward(j), j);
+        }
+        lookup(asm, 0, 0);
+        for (int j = _fixed + 1; j < _k; j += 1) {
+            lookup(asm, forward(j) + 1, j);
+        }
+        asm.op(ILOAD_1).op(IRETURN);
+    }
+
+    /** Emit to ASM code replacing local 1 with its image in table T,
+     *  offset by the position of slot J, if J is not 0. */
+    private void lookup(Assembler asm, int t, int j) {
+        asm.op(GETSTATIC).u2(asm.field(THIS, table(t), "[I"));
+        if (j > 0) {
+            getOffset(asm, j);
+            asm.op(ILOAD_1).op(IADD);
+        } else {
+            asm.op(ILOAD_1);
+        }
+        asm.op(IALOAD).op(ISTORE_1);
+    }
+
+    /** Emit to ASM code advancing slot J by one position and marking it
+     *  moved. */
+    private void advance(Assembler asm, int j) {
+        asm.op(ALOAD_0);
+        getOffset(asm, j);
+        asm.iconst(_n).op(IADD).op(DUP).iconst(_n * _n);
+        int inRange = asm.jump(IF_ICMPLT);
+        asm.op(POP).iconst(0);
+        asm.land(inRange);
+        asm.op(PUTFIELD).u2(asm.field(THIS, offset(j), "I"));
+        asm.iconst(1).op(ISTORE).u1(moved(j));
+    }
+
+    /** Emit to ASM code pushing the position offset of slot J. */
+    private void getOffset(Assembler asm, int j) {
+        asm.op(ALOAD_0).op(GETFIELD).u2(asm.field(THIS, offset(j), "I"));
+    }
+
+    /** Return the local variable holding the moved flag of slot J. */
+    private int moved(int j) {
+        return 2 + j - _fixed - 1;
+    }
+
+    /** Return the name of the field holding table T. */
+    private static String table(int t) {
+        return "t" + t;
+    }
+
+    /** Return the name of the field holding the position offset of
+     *  slot J. */
+    private static String offset(int j) {
+        return "p" + j;
+    }
+
+    /** A writer of a class file with one constant pool, appending fields
+     *  and methods in order.  Branches are emitted with jump and their
+     *  targets fixed with land. */
+    private static class Assembler {
+
+        /** Add a field with ACCESS flags, NAME, and DESCRIPTOR. */
+        void field(int access, String name, String descriptor) {
+            put(_fields, access, utf8(name), utf8(descriptor), 0);
+            _numFields += 1;
+        }
+
+        /** Start a method with ACCESS flags, NAME, and DESCRIPTOR. */
+        void begin(int access, String name, String descriptor) {
+            put(_methods, access, utf8(name), utf8(descriptor), 1);
+            _numMethods += 1;
+            _code.reset();
+        }
+
+        /** Finish the current method, given its MAXSTACK and
+         *  MAXLOCALS. */
+        void end(int maxStack, int maxLocals) {
+            int length = _code.size();
+            put(_methods, utf8("Code"));
+            put4(_methods, 2 + 2 + 4 + length + 2 + 2);
+            put(_methods, maxStack, maxLocals);
+            put4(_methods, length);
+            _methods.write(_code.toByteArray(), 0, length);
+            put(_methods, 0, 0);
+        }
+
+        /** Emit opcode OP. */
+        Assembler op(int op) {
+            _code.write(op);
+            return this;
+        }
+
+        /** Emit the byte V. */
+        Assembler u1(int v) {
+            _code.write(v);
+            return this;
+        }
+
+        /** Emit the two-byte V. */
+        Assembler u2(int v) {
+            _code.write(v >>> Byte.SIZE);
+            _code.write(v);
+            return this;
+        }
+
+        /** Emit code pushing the int V. */
+        Assembler iconst(int v) {
+            if (v >= -1 && v <= ICONST_MAX) {
+                return op(ICONST_0 + v);
+            } else if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) {
+                return op(BIPUSH).u1(v);
+            } else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+                return op(SIPUSH).u2(v);
+            }
+            return ldc(constant(TAG_INTEGER, "I" + v, v));
+        }
+
+        /** Emit code pushing constant pool entry INDEX. */
+        Assembler ldc(int index) {
+            return op(LDC_W).u2(index);
+        }
+
+        /** Emit the branch instruction OP and return its position, to be
+         *  passed to land. */
+        int jump(int op) {
+            int at = _code.size();
+            op(op).u2(0);
+            return at;
+        }
+
+        /** Make the branch at AT go to the next instruction emitted. */
+        void land(int at) {
+            byte[] code = _code.toByteArray();
+            int offset = code.length - at;
+            code[at + 1] = (byte) (offset >>> Byte.SIZE);
+            code[at + 2] = (byte) offset;
+            _code.reset();
+            _code.write(code, 0, code.length);
+        }
+
+        /** Return the constant pool index of the UTF-8 string S. */
+        int utf8(String s) {
+            Integer index = _index.get("U" + s);
+            if (index == null) {
+                index = _count;
+                _index.put("U" + s, index);
+                try {
+                    _poolOut.writeByte(TAG_UTF8);
+                    _poolOut.writeUTF(s);
+                } catch (IOException excp) {
+                    throw new AssertionError(excp);
+                }
+                _count += 1;
+            }
+            return index;
+        }
+
+        /** Return the constant pool index of the class named NAME (in
+         *  internal form). */
+        int cls(String name) {
+            return constant(TAG_CLASS, "C" + name, utf8(name));
+        }
+
+        /** Return the constant pool index of the string S. */
+        int string(String s) {
+            return constant(TAG_STRING, "S" + s, utf8(s));
+        }
+
+        /** Return the constant pool index of field NAME with DESCRIPTOR
+         *  in class OWNER. */
+        int field(String owner, String name, String descriptor) {
+            return member(TAG_FIELD, owner, name, descriptor);
+        }
+
+        /** Return the constant pool index of method NAME with
+         *  DESCRIPTOR in class OWNER. */
+        int method(String owner, String name, String descriptor) {
+            return member(TAG_METHOD, owner, name, descriptor);
+        }
+
+        /** Return the constant pool index of the member reference with
+         *  TAG to NAME with DESCRIPTOR in class OWNER. */
+        private int member(int tag, String owner, String name,
+                           String descriptor) {
+            String key = "M" + tag + owner + "." + name + descriptor;
+            Integer index = _index.get(key);
+            if (index == null) {
+                int ownerIndex = cls(owner);
+                int nameAndType = constant(TAG_NAME_AND_TYPE,
+                                           "N" + name + descriptor,
+                                           utf8(name), utf8(descriptor));
+                index = constant(tag, key, ownerIndex, nameAndType);
+            }
+            return index;
+        }
+
+        /** Return the constant pool index of the entry with TAG and
+         *  KEY (used to share entries), adding it, with the two-byte
+         *  VALUES (or, for TAG_INTEGER, a four-byte value), if it is
+         *  not yet present. */
+        private int constant(int tag, String key, int... values) {
+            Integer index = _index.get(key);
+            if (index == null) {
+                index = _count;
+                _index.put(key, index);
+                _pool.write(tag);
+                if (tag == TAG_INTEGER) {
+                    put4(_pool, values[0]);
+                } else {
+                    put(_pool, values);
+                }
+                _count += 1;
+            }
+            return index;
+        }
+
+        /** Return the class file of class THISCLASS, extending
+         *  SUPERCLASS and implementing INTERFACE, with my fields and
+         *  methods. */
+        byte[] toBytes(String thisClass, String superClass,
+                       String iface) {
+            int thisIndex = cls(thisClass), superIndex = cls(superClass),
+                ifaceIndex = cls(iface);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            put4(out, MAGIC);
+            put(out, 0, CLASS_VERSION, _count);
+            out.writeBytes(_pool.toByteArray());
+            put(out, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, thisIndex,
+                superIndex, 1, ifaceIndex, _numFields);
+            out.writeBytes(_fields.toByteArray());
+            put(out, _numMethods);
+            out.writeBytes(_methods.toByteArray());
+            put(out, 0);
+            return out.toByteArray();
+        }
+
+        /** Write the two-byte VALUES to OUT. */
+        private static void put(ByteArrayOutputStream out, int... values) {
+            for (int v : values) {
+                out.write(v >>> Byte.SIZE);
+                out.write(v);
+            }
+        }
+
+        /** Write the four-byte V to OUT. */
+        private static void put4(ByteArrayOutputStream out, int v) {
+            put(out, v >>> Short.SIZE, v);
+        }
+
+        /** The constant pool, less its count. */
+        private final ByteArrayOutputStream _pool =
+            new ByteArrayOutputStream();
+
+        /** Writes UTF-8 entries to _pool. */
+        private final DataOutputStream _poolOut = new DataOutputStream(_pool);
+
+        /** Indices of constant pool entries, by key. */
+        private final HashMap<String, Integer> _index = new HashMap<>();
+
+        /** Index of the next constant pool entry. */
+        private int _count = 1;
+
+        /** The fields and methods written so far, and their numbers. */
+        private final ByteArrayOutputStream _fields =
+            new ByteArrayOutputStream(), _methods = new ByteArrayOutputStream();
+
+        /** Numbers of fields and methods written. */
+        private int _numFields, _numMethods;
+
+        /** Code of the current method. */
+        private final ByteArrayOutputStream _code =
+            new ByteArrayOutputStream();
+    }
+
+    /** Time the generic and compiled engines on random text.  ARGS[0]
+     *  names a configuration file, ARGS[1] is a settings line, and
+     *  ARGS[2], if present, is the number of characters to convert in
+     *  each timed run (default 10,000,000).  Checks that both engines
+     *  agree, then prints the best time per character of each. */
+    public static void main(String... args) {
+        try {
+            if (args.length < 2 || args.length > 3) {
+                throw error("usage: java enigma.MachineCompiler CONFIG "
+                            + "SETTINGS [CHARS]");
+            }
+            Configuration config = Configuration.load(args[0]);
+            int length = args.length == 3 ? Integer.parseInt(args[2])
+                : BENCH_CHARS;
+            System.out.print(benchmark(config, args[1], length));
+            return;
+        } catch (NumberFormatException excp) {
+            System.err.printf("Error: bad character count%n");
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** Return a report comparing the generic Machine and the compiled
+     *  machine, both set up from CONFIG and SETTINGS, converting LENGTH
+     *  random letters, taking the best of BENCH_ROUNDS runs each. */
+    static String benchmark(Configuration config, String settings,
+                            int length) {
+        Random random = new Random(BENCH_SEED);
+        int[] input = new int[length];
+        for (int i = 0; i < length; i += 1) {
+            input[i] = random.nextInt(config.alphabet().size());
+        }
+        Machine machine = config.newMachine();
+        config.setUp(machine, settings);
+        CompiledMachine compiled = compile(machine);
+        int[] start = new int[machine.numRotors() - 1];
+        compiled.settings(start);
+        long generic = Long.MAX_VALUE, special = Long.MAX_VALUE;
+        int[] expected = new int[length], actual = new int[length];
+        for (int round = 0; round < BENCH_ROUNDS; round += 1) {
+            config.setUp(machine, settings);
+            long t0 = System.nanoTime();
+            for (int i = 0; i < length; i += 1) {
+                expected[i] = machine.convert(input[i]);
+            }
+            long t1 = System.nanoTime();
+            System.arraycopy(input, 0, actual, 0, length);
+            compiled.setSettings(start);
+            compiled.convert(actual, 0, length);
+            long t2 = System.nanoTime();
+            generic = Math.min(generic, t1 - t0);
+            special = Math.min(special, t2 - t1);
+            for (int i = 0; i < length; i += 1) {
+                if (expected[i] != actual[i]) {
+                    throw error("engines disagree at character %d", i);
+                }
+            }
+        }
+        return String.format("generic:  %8.2f ns/char%n"
+                             + "compiled: %8.2f ns/char%n"
+                             + "speedup:  %8.2fx%n",
+                             (double) generic / length,
+                             (double) special / length,
+                             (double) generic / special);
+    }
+
+    /** Number of timed runs of each engine. */
+    private static final int BENCH_ROUNDS = 10;
+
+    /** Default number of characters per timed run. */
+    private static final int BENCH_CHARS = 10_000_000;
+
+    /** Seed of the random benchmark text. */
+    private static final long BENCH_SEED = 0x656E69676D61L;
+
+    /** Internal names of the classes the generated code refers to. */
+    private static final String THIS = "enigma/GeneratedMachine",
+        OBJECT = "java/lang/Object",
+        INTERFACE = "enigma/CompiledMachine",
+        HANDLES = "java/lang/invoke/MethodHandles";
+
+    /** Descriptor of MethodHandles.Lookup. */
+    private static final String LOOKUP_TYPE =
+        "Ljava/lang/invoke/MethodHandles$Lookup;";
+
+    /** Operand stack depth sufficient for all generated methods. */
+    private static final int MAX_STACK = 6;
+
+    /** Class file magic number and major version (Java 5, the last
+     *  that does not require stack map frames). */
+    private static final int MAGIC = 0xCAFEBABE, CLASS_VERSION = 49;
+
+    /** Access flags. */
+    private static final int ACC_PUBLIC = 0x0001, ACC_PRIVATE = 0x0002,
+        ACC_STATIC = 0x0008, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020,
+        ACC_STATIC_FINAL = ACC_PRIVATE | ACC_STATIC | ACC_FINAL;
+
+    /** Constant pool tags. */
+    private static final int TAG_UTF8 = 1, TAG_INTEGER = 3, TAG_CLASS = 7,
+        TAG_STRING = 8, TAG_FIELD = 9, TAG_METHOD = 10,
+        TAG_NAME_AND_TYPE = 12;
+
+    /** Opcodes. */
+    private static final int ICONST_0 = 0x03, ICONST_MAX = 5,
+        BIPUSH = 0x10, SIPUSH = 0x11, LDC_W = 0x13, ILOAD = 0x15,
+        ILOAD_1 = 0x1b, ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, IALOAD = 0x2e,
+        AALOAD = 0x32, ISTORE = 0x36, ISTORE_1 = 0x3c, ASTORE_0 = 0x4b,
+        IASTORE = 0x4f, POP = 0x57, DUP = 0x59, IADD = 0x60, IMUL = 0x68,
+        IDIV = 0x6c, IFNE = 0x9a, IF_ICMPEQ = 0x9f, IF_ICMPLT = 0xa1,
+        GOTO = 0xa7, IRETURN = 0xac, RETURN = 0xb1, GETSTATIC = 0xb2,
+        PUTSTATIC = 0xb3, GETFIELD = 0xb4, PUTFIELD = 0xb5,
+        INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, CHECKCAST = 0xc0;
+
+    /** Number of rotor slots, including the reflector. */
+    private final int _k;
+
+    /** Alphabet size. */
+    private final int _n;
+
+    /** _rotates[j] is true iff slot J has a pawl. */
+    private final boolean[] _rotates;
+
+    /** _notches[j] holds the core settings at which slot J is at a
+     *  notch. */
+    private final int[][] _notches;
+
+    /** Core settings of slots 1 .. _k - 1 at compilation. */
+    private final int[] _settings;
+
+    /** Slots 1 .. _fixed never move and are folded, with the reflector,
+     *  into table 0. */
+    private final int _fixed;
+
+    /** Tables passed to the generated class as its class data. */
+    private final int[][] _tables;
+}
@@ -0,0 +1,62 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** Tests of MachineCompiler.
+ *  @author Sahil Gupta
+ */
+public class MachineCompilerTest {
+
+    /** Check that COMPILED converts N random letters as M does. */
+    private void checkAgrees(Machine M, CompiledMachine compiled, int n) {
+        Random random = new Random(n);
+        int size = M.alphabet().size();
+        for (int i = 0; i < n; i += 1) {
+            int c = random.nextInt(size);
+            assertEquals("character " + i, M.convert(c),
+                         compiled.convert(c));
+        }
+    }
+
+    @Test
+    public void testNaval() {
+        Machine M = navalMachine();
+        M.setRingSetting("BCDE");
+        M.setRotors("AXLE");
+        M.setPlugboard(new Permutation("(YF) (ZH)", UPPER));
+        checkAgrees(M, MachineCompiler.compile(M), 100000);
+    }
+
+    @Test
+    public void testSettings() {
+        Machine M = navalMachine();
+        CompiledMachine compiled = MachineCompiler.compile(M);
+        int[] settings = new int[M.numRotors() - 1];
+        compiled.settings(settings);
+        assertArrayEquals(new int[] { 0, 23, 11, 4 }, settings);
+        checkAgrees(M, compiled, 1000);
+        M.setRotors("AEJQ");
+        compiled.setSettings(new int[] { 0, 4, 9, 16 });
+        checkAgrees(M, compiled, 1000);
+    }
+
+    @Test
+    public void testConfigurations() {
+        Configuration config =
+            new Configuration(new Scanner(CycleCatalogTest.CONFIG));
+        for (String settings : new String[] {
+                "* B I III AZ", "* B IV I QV LH (AB) (CD)" }) {
+            Machine M = config.newMachine();
+            config.setUp(M, settings);
+            checkAgrees(M, MachineCompiler.compile(M), 10000);
+        }
+    }
+
+}
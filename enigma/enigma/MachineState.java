@@ -0,0 +1,69 @@
+package enigma;
+
+import java.io.Serializable;
+
+/** A snapshot of the complete runtime state of a Machine: the names of
+ *  its inserted rotors, their positions and ring settings, its plugboard
+ *  and the number of characters it has converted.  Snapshots are
+ *  immutable and serializable, so they can be written out as checkpoints
+ *  and later restored into a machine with the same configuration.
+ *  @author Sahil Gupta
+ */
+final class MachineState implements Serializable {
+
+    /** A snapshot of a machine whose inserted rotors are named ROTORS
+     *  (ROTORS[0] names the reflector), with the given POSITIONS and
+     *  RINGS (indexed like ROTORS), PLUGBOARD cycles, and count of
+     *  PROCESSED characters. */
+    MachineState(String[] rotors, int[] positions, int[] rings,
+                 String plugboard, long processed) {
+        _rotors = rotors.clone();
+        _positions = positions.clone();
+        _rings = rings.clone();
+        _plugboard = plugboard;
+        _processed = processed;
+    }
+
+    /** Return the names of the inserted rotors, reflector first. */
+    String[] rotors() {
+        return _rotors.clone();
+    }
+
+    /** Return the position of rotor K. */
+    int position(int k) {
+        return _positions[k];
+    }
+
+    /** Return the ring setting of rotor K. */
+    int ring(int k) {
+        return _rings[k];
+    }
+
+    /** Return the plugboard in cycle notation. */
+    String plugboard() {
+        return _plugboard;
+    }
+
+    /** Return the number of characters converted. */
+    long processed() {
+        return _processed;
+    }
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /** Names of the inserted rotors, reflector first. */
+    private final String[] _rotors;
+
+    /** Positions of the inserted rotors. */
+    private final int[] _positions;
+
+    /** Ring settings of the inserted rotors. */
+    private final int[] _rings;
+
+    /** The plugboard in cycle notation. */
+    private final String _plugboard;
+
+    /** Number of characters converted. */
+    private final long _processed;
+}
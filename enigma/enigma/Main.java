@@ -1,253 +1,1049 @@
-package enigma;
-import java.io.File;
-import java.io.IOException;
-import java.io.PrintStream;
-
-import java.util.ArrayList;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
-import java.util.regex.Pattern;
-
-import static enigma.EnigmaException.*;
-
-/** Enigma simulator.
- *  @author Sahil Gupta
- */
-public final class Main {
-
-    /** Process a sequence of encryptions and decryptions, as
-     *  specified by ARGS, where 1 <= ARGS.length <= 3.
-     *  ARGS[0] is the name of a configuration file.
-     *  ARGS[1] is optional; when present, it names an input file
-     *  containing messages.  Otherwise, input comes from the standard
-     *  input.  ARGS[2] is optional; when present, it names an output
-     *  file for processed messages.  Otherwise, output goes to the
-     *  standard output. Exits normally if there are no errors in the input;
-     *  otherwise with code 1. */
-    public static void main(String... args) {
-        try {
-            new Main(args).process();
-            return;
-        } catch (EnigmaException excp) {
-            System.err.printf("Error: %s%n", excp.getMessage());
-        }
-        System.exit(1);
-    }
-
-    /** Check ARGS and open the necessary files (see comment on main). */
-    Main(String[] args) {
-        if (args.length < 1 || args.length > 3) {
-            throw error("Only 1, 2, or 3 command-line arguments allowed");
-        }
-
-        _config = getInput(args[0]);
-
-        if (args.length > 1) {
-            _input = getInput(args[1]);
-        } else {
-            _input = new Scanner(System.in);
-        }
-
-        if (args.length > 2) {
-            _output = getOutput(args[2]);
-        } else {
-            _output = System.out;
-        }
-    }
-
-    /** Return a Scanner reading from the file named NAME. */
-    private Scanner getInput(String name) {
-        try {
-            return new Scanner(new File(name));
-        } catch (IOException excp) {
-            throw error("could not open %s", name);
-        }
-    }
-
-    /** Return a PrintStream writing to the file named NAME. */
-    private PrintStream getOutput(String name) {
-        try {
-            return new PrintStream(new File(name));
-        } catch (IOException excp) {
-            throw error("could not open %s", name);
-        }
-    }
-
-    /** Configure an Enigma machine from the contents of configuration
-     *  file _config and apply it to the messages in _input, sending the
-     *  results to _output. */
-    private void process() {
-        Machine machine = readConfig();
-        ArrayList<String> allLines = new ArrayList<>();
-
-        while (_input.hasNextLine()) {
-            allLines.add(_input.nextLine());
-        }
-
-        int index = 0;
-        while (allLines.size() > 0 && !allLines.get(index).contains("*")) {
-            allLines.remove(index);
-        }
-
-        if (allLines.size() == 0) {
-            throw new EnigmaException("No configuration found.");
-        }
-
-        while (allLines.size() != 0) {
-            String settings = allLines.remove(index);
-            ArrayList<String> messages = new ArrayList<>();
-
-            while (allLines.size() > 0 && !allLines.get(index).contains("*")) {
-                messages.add(allLines.remove(index));
-            }
-            setUp(machine, settings);
-            for (String message: messages) {
-                String encryption = machine.convert(message.replace(" ", ""));
-                printMessageLine(encryption);
-            }
-        }
-    }
-
-    /** Return an Enigma machine configured from the contents of configuration
-     *  file _config. */
-    private Machine readConfig() {
-        try {
-
-            if (!_config.hasNext()) {
-                throw new EnigmaException("Incorrect format. Empty file.");
-            }
-            _alphabet = new Alphabet(_config.next());
-
-            if (!_config.hasNextInt()) {
-                throw new EnigmaException("Incorrect format. "
-                       + "Rotor count parameter not found.");
-            }
-            int numRotors = _config.nextInt();
-
-            if (!_config.hasNextInt()) {
-                throw new EnigmaException("Incorrect format. "
-                       + "Pawl count parameter not found.");
-            }
-            int numPawls = _config.nextInt();
-            ArrayList<Rotor> rotorConfigs = new ArrayList<>();
-
-            while (_config.hasNext()) {
-                rotorConfigs.add(readRotor());
-            }
-            return new Machine(_alphabet, numRotors, numPawls, rotorConfigs);
-        } catch (NoSuchElementException excp) {
-            throw error("configuration file truncated");
-        }
-    }
-
-    /** Return a rotor, reading its description from _config. */
-    private Rotor readRotor() {
-        try {
-            String name = _config.next();
-            String typeNotches = _config.next();
-            Pattern p = Pattern.compile("\\(.*\\)");
-            String cycles = "";
-            while (_config.hasNext(p)) {
-                cycles += _config.next(p) + " ";
-            }
-            char type = typeNotches.charAt(0);
-            Permutation perm = new Permutation(cycles, _alphabet);
-
-            switch (type) {
-            case 'M':
-                return new MovingRotor(name, perm,
-                    typeNotches.substring(1));
-            case 'N':
-                return new FixedRotor(name, perm);
-
-            case 'R':
-                return new Reflector(name, perm);
-
-            default:
-                throw new EnigmaException("\""
-                           + type + "\" is not a type of rotor.");
-            }
-        } catch (NoSuchElementException excp) {
-            throw error("bad rotor description");
-        }
-    }
-
-    /** Set M according to the specification given on SETTINGS,
-     *  which must have the format specified in the assignment. */
-    private void setUp(Machine M, String settings) {
-        try {
-            Scanner settingsFeed = new Scanner(settings);
-            settingsFeed.next();
-            String[] rotorInserts = new String[M.numRotors()];
-
-            for (int i = 0; i < rotorInserts.length; i += 1) {
-                rotorInserts[i] = settingsFeed.next();
-            }
-
-            for (int i = 0; i < rotorInserts.length; i += 1) {
-                String name = rotorInserts[i];
-                for (int j = i + 1; j < rotorInserts.length; j += 1) {
-                    if (name.equals(rotorInserts[j])) {
-                        throw new EnigmaException("Cannot insert "
-                               + "the same rotor twice.");
-                    }
-                }
-            }
-
-            String notchSettings = settingsFeed.next();
-            String plugboardCycles = "";
-            Pattern p = Pattern.compile("\\(.*\\)");
-            Pattern q = Pattern.compile("[^\\(]*");
-
-            String ringSettings = "";
-            for (int i = 0; i < M.numRotors() - 1; i += 1) {
-                ringSettings += _alphabet.toChar(0);
-            }
-
-            if (settingsFeed.hasNext(q)) {
-                ringSettings = settingsFeed.next();
-            }
-
-            while (settingsFeed.hasNext(p)) {
-                plugboardCycles += settingsFeed.next(p) + " ";
-            }
-
-            M.insertRotors(rotorInserts);
-            M.setRotors(notchSettings);
-            M.setRingSetting(ringSettings);
-            M.setPlugboard(new Permutation(plugboardCycles, _alphabet));
-
-        } catch (NoSuchElementException e) {
-            throw new EnigmaException("Bad rotor settings.");
-        }
-    }
-
-    /** Print MSG in groups of five (except that the last group may
-     *  have fewer letters). */
-    private void printMessageLine(String msg) {
-        if (msg.length() == 0 || msg.equals("\n")) {
-            _output.println();
-        } else {
-            String formattedMsg = "";
-            for (int i = 0; i < msg.length(); i += 1) {
-                if (i % 5 == 0 && i / 5 > 0) {
-                    formattedMsg += " ";
-                }
-                formattedMsg += msg.charAt(i);
-            }
-            _output.println(formattedMsg);
-        }
-    }
-
-    /** Alphabet used in this machine. */
-    private Alphabet _alphabet;
-
-    /** Source of input messages. */
-    private Scanner _input;
-
-    /** Source of machine configuration. */
-    private Scanner _config;
-
-    /** File for encoded/decoded messages. */
-    private PrintStream _output;
-}
+package enigma;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static enigma.EnigmaException.*;
+
+/** Enigma simulator.
+ *  @author Sahil Gupta
+ */
+public final class Main {
+
+    /** Process a sequence of encryptions and decryptions, as
+     *  specified by ARGS, where 1 <= ARGS.length <= 3.
+     *  ARGS[0] is the name of a configuration file.
+     *  ARGS[1] is optional; when present, it names an input file
+     *  containing messages.  Otherwise, input comes from the standard
+     *  input.  ARGS[2] is optional; when present, it names an output
+     *  file for processed messages.  Otherwise, output goes to the
+     *  standard output. Exits normally if there are no errors in the input;
+     *  otherwise with code 1.
+     *
+     *  Options beginning with "--" may appear anywhere in ARGS:
+     *    --mmap  memory-map the input file (which must then be given) and
+     *            write through a FileChannel, without building Strings
+     *            for message text.
+     *    --checkpoint=N
+     *            after each message line that brings the number of
+     *            characters converted since the last checkpoint to N or
+     *            more, save the machine state and input and output
+     *            positions to the output file name plus ".ckpt".  The
+     *            input and output files must be given.
+     *    --resume
+     *            with --checkpoint, continue from the saved checkpoint,
+     *            if there is one, instead of starting over.
+     *    --lenient[=FILE]
+     *            instead of stopping at the first bad settings line or
+     *            message character, report its line number and the
+     *            reason to FILE (or the standard error), drop the rest of
+     *            its segment (up to the next settings line), and go on.
+     *            Exits with code 1 at the end if any segment failed.
+     *    --pipeline
+     *            read input and write output on their own threads,
+     *            passing blocks to and from the converting thread through
+     *            bounded rings, so that I/O overlaps with conversion.
+     *    --gzip  read and write gzip-compressed data, including on the
+     *            standard input and output.  Without it, input and output
+     *            files whose names end in ".gz" are still compressed.
+     *            Compressed runs always use the --pipeline threads, so
+     *            that compression overlaps with conversion.
+     *    --batch[=N]
+     *            ARGS holds a single directory or manifest of jobs, which
+     *            are run on N threads (by default, one per processor);
+     *            see Batch.  Prints a status line for each job, and exits
+     *            with code 1 if any failed.  Only the options in
+     *            BATCH_OPTIONS may be combined with --batch; they apply to
+     *            every job, and --lenient reports are prefixed by the
+     *            job's name.
+     *    --bench[=N]
+     *            instead of printing conversions, time N rounds (default
+     *            5) of converting the input file after a warmup, and
+     *            report throughput, per-segment latency and allocation;
+     *            see Benchmark.  Without an input file, uses the default
+     *            output of LoadGenerator.
+     *    --passthrough
+     *            convert lower-case letters as their upper-case forms (or
+     *            vice versa, for a lower-case alphabet), and copy other
+     *            characters not in the alphabet to the output unchanged,
+     *            without stepping the rotors.  Blanks are still removed,
+     *            and copied characters count toward groups of five.
+     *    --streams
+     *            convert runs of segments whose settings lines differ
+     *            only in rotor positions together with a StreamEngine,
+     *            one segment per vector lane when the Vector API is
+     *            present; see SegmentStreams.  Output appears a group of
+     *            segments at a time.  Cannot be used with --mmap or
+     *            --checkpoint.
+     *    --compiled
+     *            convert with a CompiledMachine generated for each
+     *            distinct choice of rotors, ring settings and plugboard
+     *            (see MachineCompiler), rather than with the generic
+     *            Machine.  Cannot be used with --mmap, --checkpoint or
+     *            --streams. */
+    public static void main(String... args) {
+        try {
+            new Main(args).process();
+            return;
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** A Main that applies machines built from CONFIG to the messages
+     *  read from INPUT, writing the results to OUTPUT, with the options
+     *  in OPTIONS, which must be among BATCH_OPTIONS.  With --lenient,
+     *  failures are reported to ERRORS.  Used for each job of a --batch
+     *  run. */
+    Main(Configuration config, Reader input, PrintStream output,
+         Map<String, String> options, PrintStream errors) {
+        _files = new ArrayList<>();
+        _options = new HashMap<>(options);
+        for (String name : _options.keySet()) {
+            if (!BATCH_OPTIONS.contains(name)) {
+                throw error("%s cannot be used with --batch", name);
+            }
+        }
+        if (_options.containsKey("--lenient")) {
+            _errors = errors;
+        }
+        checkConverters(_options);
+        _configuration = config;
+        _input = new ChunkedLineReader(input, LINE_BLOCK);
+        _output = output;
+    }
+
+    /** Check ARGS and open the necessary files (see comment on main). */
+    Main(String[] args) {
+        CommandLine line = new CommandLine(args, OPTIONS);
+        _files = line.arguments();
+        _options = line.options();
+        checkConverters(_options);
+        if (_options.containsKey("--lenient")) {
+            String errors = _options.get("--lenient");
+            if (errors == null) {
+                _errors = System.err;
+            } else {
+                boolean append = _options.containsKey("--resume");
+                try {
+                    _errors = new PrintStream(new BufferedOutputStream(
+                        new FileOutputStream(errors, append)));
+                } catch (IOException excp) {
+                    throw error("could not open %s", errors);
+                }
+            }
+        }
+
+        if (_options.containsKey("--batch")) {
+            if (_files.size() != 1) {
+                throw error("--batch takes one directory or manifest");
+            }
+            for (String name : _options.keySet()) {
+                if (!name.equals("--batch")
+                    && !BATCH_OPTIONS.contains(name)) {
+                    throw error("%s cannot be used with --batch", name);
+                }
+            }
+            return;
+        }
+        if (_files.size() < 1 || _files.size() > 3) {
+            throw error("Only 1, 2, or 3 command-line arguments allowed");
+        }
+
+        _config = getInput(_files.get(0));
+
+        if (_options.containsKey("--bench")) {
+            if (_files.size() > 2) {
+                throw error("--bench takes a configuration and an input "
+                            + "file");
+            }
+            return;
+        }
+
+        boolean pipelined = _options.containsKey("--pipeline")
+            || gzipped(1) || gzipped(2);
+        if (pipelined && (_options.containsKey("--mmap")
+                          || _options.containsKey("--checkpoint"))) {
+            throw error("--pipeline and compressed files cannot be used "
+                        + "with --mmap or --checkpoint");
+        }
+
+        if (_options.containsKey("--streams")
+            && (_options.containsKey("--mmap")
+                || _options.containsKey("--checkpoint"))) {
+            throw error("--streams cannot be used with --mmap or "
+                        + "--checkpoint");
+        }
+        if (_options.containsKey("--compiled")
+            && (_options.containsKey("--mmap")
+                || _options.containsKey("--checkpoint"))) {
+            throw error("--compiled cannot be used with --mmap or "
+                        + "--checkpoint");
+        }
+
+        if (_options.containsKey("--mmap")) {
+            if (_files.size() < 2) {
+                throw error("--mmap requires an input file");
+            } else if (_options.containsKey("--passthrough")) {
+                throw error("--passthrough cannot be used with --mmap");
+            }
+            return;
+        }
+
+        if (pipelined) {
+            _pipeline = openPipeline();
+            _input = new ChunkedLineReader(
+                new InputStreamReader(_pipeline.input()), LINE_BLOCK);
+            _output = new PrintStream(_pipeline.output());
+            return;
+        }
+
+        Reader input;
+        if (_files.size() > 1) {
+            try {
+                input = new FileReader(_files.get(1));
+            } catch (IOException excp) {
+                throw error("could not open %s", _files.get(1));
+            }
+        } else {
+            input = new InputStreamReader(System.in);
+        }
+        _input = new ChunkedLineReader(input, LINE_BLOCK);
+
+        if (_options.containsKey("--checkpoint")) {
+            if (_files.size() < 3) {
+                throw error("--checkpoint requires input and output files");
+            }
+            _checkpointInterval = intOption("--checkpoint");
+        } else if (_options.containsKey("--resume")) {
+            throw error("--resume requires --checkpoint");
+        } else if (_files.size() > 2) {
+            _output = getOutput(_files.get(2));
+        } else {
+            _output = System.out;
+        }
+    }
+
+    /** Check that OPTIONS choose at most one way of converting
+     *  segments. */
+    private static void checkConverters(Map<String, String> options) {
+        if (options.containsKey("--compiled")
+            && options.containsKey("--streams")) {
+            throw error("--compiled cannot be used with --streams");
+        }
+    }
+
+    /** Run the jobs in the directory or manifest named by _files, on the
+     *  number of threads given by --batch (by default, one per
+     *  processor), and report their status on the standard output. */
+    private void processBatch() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (_options.get("--batch") != null) {
+            threads = (int) Math.min(intOption("--batch"), MAX_THREADS);
+        }
+        HashMap<String, String> options = new HashMap<>(_options);
+        options.remove("--batch");
+        Batch batch = new Batch(threads, options, _errors);
+        File jobs = new File(_files.get(0));
+        if (jobs.isDirectory()) {
+            batch.addDirectory(jobs);
+        } else {
+            batch.addManifest(jobs);
+        }
+        int failures = batch.run(System.out);
+        if (_errors != null) {
+            _errors.flush();
+        }
+        if (failures > 0) {
+            throw error("%d job(s) failed", failures);
+        }
+    }
+
+    /** Benchmark the configuration in _config on the input file, or on
+     *  generated input, and report the results on the standard output. */
+    private void processBench() {
+        _configuration = new Configuration(_config);
+        int rounds = BENCH_ROUNDS;
+        if (_options.get("--bench") != null) {
+            rounds = (int) Math.min(intOption("--bench"), Integer.MAX_VALUE);
+        }
+        Scanner input;
+        if (_files.size() > 1) {
+            input = getInput(_files.get(1));
+        } else {
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            new LoadGenerator(_configuration, 0)
+                .write(new PrintStream(text), LoadGenerator.DEFAULT_SEGMENTS,
+                       LoadGenerator.DEFAULT_LINES, LoadGenerator.DEFAULT_SHAPE,
+                       LoadGenerator.DEFAULT_LENGTH);
+            input = new Scanner(text.toString());
+        }
+        new Benchmark(_configuration, input)
+            .run(BENCH_WARMUP_MILLIS, rounds, System.out);
+    }
+
+    /** Return a Pipeline from the input file (or the standard input) to
+     *  the output file (or the standard output). */
+    private Pipeline openPipeline() {
+        String name = "standard input";
+        try {
+            InputStream source = System.in;
+            if (_files.size() > 1) {
+                name = _files.get(1);
+                source = new FileInputStream(name);
+            }
+            if (gzipped(1)) {
+                source = new GZIPInputStream(source, GZIP_BUFFER);
+            }
+            name = "standard output";
+            OutputStream destination =
+                new FileOutputStream(FileDescriptor.out);
+            if (_files.size() > 2) {
+                name = _files.get(2);
+                destination = new FileOutputStream(name);
+            } else if (gzipped(2)) {
+                destination = new FilterOutputStream(destination) {
+                        @Override
+                        public void close() throws IOException {
+                            flush();
+                        }
+                    };
+            }
+            if (gzipped(2)) {
+                destination = new GZIPOutputStream(destination, GZIP_BUFFER);
+            }
+            return new Pipeline(source, destination,
+                                _files.size() > 2 || gzipped(2),
+                                PIPELINE_BLOCKS, PIPELINE_BLOCK_SIZE);
+        } catch (IOException excp) {
+            throw error("could not open %s: %s", name, excp.getMessage());
+        }
+    }
+
+    /** Return true iff command-line file K (1 for input, 2 for output),
+     *  or the standard stream that replaces it, holds gzip-compressed
+     *  data. */
+    private boolean gzipped(int k) {
+        return _options.containsKey("--gzip")
+            || _files.size() > k && _files.get(k).endsWith(GZIP_SUFFIX);
+    }
+
+    /** Return the positive integer value of option NAME. */
+    private long intOption(String name) {
+        long value = CommandLine.number(name, _options.get(name));
+        if (value == 0) {
+            throw error("%s must be positive", name);
+        }
+        return value;
+    }
+
+    /** Return a Scanner reading from the file named NAME. */
+    private Scanner getInput(String name) {
+        try {
+            return new Scanner(new File(name));
+        } catch (IOException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Return a PrintStream writing to the file named NAME. */
+    private PrintStream getOutput(String name) {
+        try {
+            return new PrintStream(new File(name));
+        } catch (IOException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Configure an Enigma machine from the contents of configuration
+     *  file _config and apply it to the messages in _input, sending the
+     *  results to _output. */
+    void process() {
+        if (_options.containsKey("--batch")) {
+            processBatch();
+            return;
+        } else if (_options.containsKey("--bench")) {
+            processBench();
+            return;
+        }
+        Machine machine = readConfig();
+        if (_options.containsKey("--mmap")) {
+            processMapped(machine);
+        } else if (_pipeline != null) {
+            _pipeline.start();
+            try {
+                processLines(machine);
+                _output.flush();
+                _pipeline.finish();
+            } catch (EnigmaException excp) {
+                _output.flush();
+                _pipeline.abort();
+                throw excp;
+            }
+        } else {
+            processLines(machine);
+        }
+        if (_errors != null) {
+            _errors.flush();
+            if (_output != null) {
+                _output.flush();
+            }
+            if (_failures > 0) {
+                throw error("%d segment(s) failed", _failures);
+            }
+        }
+    }
+
+    /** Apply M to the messages in _input line by line, sending the
+     *  results to _output. */
+    private void processLines(Machine machine) {
+        long skip = 0;
+        boolean configured = false;
+        if (_checkpointInterval > 0) {
+            Checkpoint resumed = openCheckpointed();
+            if (resumed != null) {
+                machine.restore(resumed.state());
+                skip = resumed.lines();
+                configured = true;
+            }
+        }
+
+        if (_options.containsKey("--passthrough")) {
+            _classifier = new CharClassifier(machine.alphabet());
+            _indices = new int[LINE_BLOCK];
+        }
+        if (_options.containsKey("--streams")) {
+            _streams = new SegmentStreams(_output, _classifier);
+        }
+        if (_options.containsKey("--compiled")) {
+            _compiledMachines = new HashMap<>();
+            _indices = new int[LINE_BLOCK];
+        }
+
+        long lineNumber = 0, sinceCheckpoint = 0;
+        boolean skipping = false;
+        char[] block = new char[LINE_BLOCK], next = new char[LINE_BLOCK];
+        try (BlockSpool spool = new BlockSpool(LINE_BLOCK)) {
+            while (_input.nextLine()) {
+                lineNumber += 1;
+                int n = _input.read(block, 0, block.length);
+                if (lineNumber <= skip) {
+                    continue;
+                }
+                if (containsChar(block, n, '*')) {
+                    if (_input.read(null, 0, 1) != -1) {
+                        skipping = !fail(lineNumber, LONG_SETTINGS);
+                    } else {
+                        String line = new String(block, 0, n);
+                        skipping = !setUp(machine, line, lineNumber);
+                    }
+                    configured |= !skipping;
+                    if (_streams != null && !skipping) {
+                        _streams.start(machine);
+                    } else if (_compiledMachines != null && !skipping) {
+                        compile(machine);
+                    }
+                } else if (configured && !skipping) {
+                    _group = 0;
+                    long converted = 0;
+                    int m = n == -1 ? -1 : _input.read(next, 0, next.length);
+                    if (m == -1) {
+                        if (_errors != null && _classifier == null
+                            && !inAlphabet(machine, block, n)) {
+                            report(lineNumber, BAD_CHARACTER);
+                            skipping = true;
+                        } else if (n != -1) {
+                            converted = convertBlock(machine, block, n);
+                        }
+                    } else if (spoolLine(machine, spool, block, n, next, m,
+                                         lineNumber)) {
+                        spool.rewind();
+                        while ((n = spool.read(block)) != -1) {
+                            converted += convertBlock(machine, block, n);
+                        }
+                    } else {
+                        skipping = true;
+                    }
+                    if (!skipping) {
+                        endLine();
+                    }
+                    sinceCheckpoint += converted;
+                    if (_checkpointInterval > 0
+                        && sinceCheckpoint >= _checkpointInterval) {
+                        writeCheckpoint(machine, lineNumber);
+                        sinceCheckpoint = 0;
+                    }
+                }
+            }
+        } catch (IOException excp) {
+            throw error("I/O error: %s", excp.getMessage());
+        } finally {
+            if (_streams != null) {
+                _streams.flush();
+            }
+        }
+
+        if (!configured && _failures == 0) {
+            throw new EnigmaException("No configuration found.");
+        }
+        if (_checkpointInterval > 0) {
+            _output.close();
+            new File(checkpointName()).delete();
+        }
+    }
+
+    /** Check the message line that begins with the first N characters of
+     *  FIRST followed by the first M of SECOND, and continues with the
+     *  rest of the current line of _input, and copy it to SPOOL.  Returns
+     *  true if it passes.  If a block after the first contains "*", or,
+     *  without --passthrough, any character is not in M's alphabet,
+     *  reports the failure of input line LINE in lenient mode and returns
+     *  false, and otherwise throws.  Either way, nothing of the line has
+     *  been converted or printed. */
+    private boolean spoolLine(Machine M, BlockSpool spool, char[] first,
+                              int n, char[] second, int m, long line)
+        throws IOException {
+        spool.clear();
+        if (_classifier == null && !inAlphabet(M, first, n)) {
+            return fail(line, BAD_CHARACTER);
+        }
+        spool.add(first, n);
+        for (; m != -1; m = _input.read(second, 0, second.length)) {
+            if (containsChar(second, m, '*')) {
+                return fail(line, LONG_SETTINGS);
+            } else if (_classifier == null && !inAlphabet(M, second, m)) {
+                return fail(line, BAD_CHARACTER);
+            }
+            spool.add(second, m);
+        }
+        return true;
+    }
+
+    /** Return true iff the first N characters of BUF include C.  N may
+     *  be -1, meaning none. */
+    private static boolean containsChar(char[] buf, int n, char c) {
+        for (int i = 0; i < n; i += 1) {
+            if (buf[i] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Convert the first N characters of BUF, part of a message line, with
+     *  M, dropping blanks, and print them to _output in groups of five,
+     *  continuing the grouping of the line so far.  With --streams, hand
+     *  them to _streams instead.  Returns the number of characters
+     *  converted. */
+    private int convertBlock(Machine M, char[] buf, int n) {
+        int m = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (buf[i] != ' ') {
+                buf[m] = buf[i];
+                m += 1;
+            }
+        }
+        if (_streams != null) {
+            _streams.add(buf, m);
+            return m;
+        } else if (_compiled != null) {
+            convertCompiled(M.alphabet(), buf, m);
+        } else if (_classifier == null) {
+            M.convert(buf, 0, m);
+        } else {
+            int k = _classifier.letters(buf, m, _indices);
+            M.convert(_indices, 0, k);
+            _classifier.merge(buf, m, _indices);
+        }
+        _grouped.setLength(0);
+        for (int i = 0; i < m; i += 1) {
+            if (_group == GROUP_SIZE) {
+                _grouped.append(' ');
+                _group = 0;
+            }
+            _grouped.append(buf[i]);
+            _group += 1;
+        }
+        _output.append(_grouped);
+        return m;
+    }
+
+    /** Make _compiled a CompiledMachine for M as it is now set, reusing
+     *  the one made for an earlier segment with the same rotors, ring
+     *  settings, plugboard, and positions of rotors that never move. */
+    private void compile(Machine M) {
+        StringBuilder key = new StringBuilder(M.wiringKey());
+        int[] settings = new int[M.numRotors() - 1];
+        for (int j = 1; j < M.numRotors(); j += 1) {
+            settings[j - 1] = M.rotor(j).setting();
+            if (!M.rotor(j).rotates()) {
+                key.append(' ').append(settings[j - 1]);
+            }
+        }
+        _compiled = _compiledMachines.get(key.toString());
+        if (_compiled == null) {
+            if (_compiledMachines.size() == MAX_COMPILED) {
+                _compiledMachines.clear();
+            }
+            _compiled = MachineCompiler.compile(M);
+            _compiledMachines.put(key.toString(), _compiled);
+        }
+        _compiled.setSettings(settings);
+    }
+
+    /** Convert the first N characters of BUF, which contain no blanks,
+     *  with _compiled, whose alphabet is ALPHA.  With --passthrough,
+     *  characters that are not letters are left unchanged; otherwise,
+     *  all must be in ALPHA. */
+    private void convertCompiled(Alphabet alpha, char[] buf, int n) {
+        int k;
+        if (_classifier == null) {
+            for (int i = 0; i < n; i += 1) {
+                _indices[i] = alpha.index(buf[i]);
+                if (_indices[i] == -1) {
+                    throw error("Character \"%c\" is not in the alphabet.",
+                                buf[i]);
+                }
+            }
+            k = n;
+        } else {
+            k = _classifier.letters(buf, n, _indices);
+        }
+        _compiled.convert(_indices, 0, k);
+        if (_classifier == null) {
+            for (int i = 0; i < n; i += 1) {
+                buf[i] = alpha.toChar(_indices[i]);
+            }
+        } else {
+            _classifier.merge(buf, n, _indices);
+        }
+    }
+
+    /** End the current message line of the output. */
+    private void endLine() {
+        if (_streams != null) {
+            _streams.endLine();
+        } else {
+            _output.println();
+        }
+    }
+
+    /** Report a bad segment starting at input line LINE because of EXCP
+     *  in lenient mode, and return false.  Otherwise, throw EXCP. */
+    private boolean fail(long line, EnigmaException excp) {
+        if (_errors == null) {
+            throw excp;
+        }
+        report(line, excp);
+        return false;
+    }
+
+    /** Return the name of the checkpoint file. */
+    private String checkpointName() {
+        return _files.get(2) + ".ckpt";
+    }
+
+    /** Open _output for a run with checkpoints.  With --resume and an
+     *  existing checkpoint, cut the output file back to the length it had
+     *  at the checkpoint, append to it, and return the checkpoint.
+     *  Otherwise, start a fresh output file and return null. */
+    private Checkpoint openCheckpointed() {
+        Checkpoint resumed = null;
+        File ckpt = new File(checkpointName());
+        if (_options.containsKey("--resume") && ckpt.exists()) {
+            resumed = Checkpoint.read(ckpt);
+        }
+        try {
+            _outputFile = new FileOutputStream(_files.get(2), resumed != null);
+            if (resumed != null) {
+                _outputFile.getChannel().truncate(resumed.outputLength());
+            }
+        } catch (IOException excp) {
+            throw error("could not open %s", _files.get(2));
+        }
+        _output = new PrintStream(_outputFile);
+        return resumed;
+    }
+
+    /** Save the state of M, which has just converted input line LINES, and
+     *  the current output length to the checkpoint file. */
+    private void writeCheckpoint(Machine M, long lines) {
+        _output.flush();
+        try {
+            long length = _outputFile.getChannel().position();
+            new Checkpoint(M.snapshot(), lines, length)
+                .write(new File(checkpointName()));
+        } catch (IOException excp) {
+            throw error("could not write checkpoint: %s", excp.getMessage());
+        }
+    }
+
+    /** Apply M to the messages in the input file by mapping it into
+     *  memory, writing the results to the output file (or the standard
+     *  output) through a FileChannel.  Only settings lines are turned
+     *  into Strings; message bytes go straight from the mapping through
+     *  M into a direct output buffer. */
+    private void processMapped(Machine M) {
+        FileChannel out = null;
+        try (FileChannel in = FileChannel.open(Paths.get(_files.get(1)),
+                                               StandardOpenOption.READ)) {
+            if (_files.size() > 2) {
+                out = FileChannel.open(Paths.get(_files.get(2)),
+                                       StandardOpenOption.WRITE,
+                                       StandardOpenOption.CREATE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+            } else {
+                out = new FileOutputStream(FileDescriptor.out).getChannel();
+            }
+            ByteBuffer outBuf = ByteBuffer.allocateDirect(OUTPUT_BLOCK);
+            boolean configured = false, skipping = false;
+            long size = in.size(), base = 0, lineNumber = 0;
+            while (base < size) {
+                MappedByteBuffer window =
+                    in.map(FileChannel.MapMode.READ_ONLY, base,
+                           Math.min(MAP_WINDOW, size - base));
+                int start = 0, limit = window.limit();
+                while (start < limit) {
+                    int end = start;
+                    while (end < limit && window.get(end) != '\n') {
+                        end += 1;
+                    }
+                    if (end == limit && base + limit < size) {
+                        if (start == 0) {
+                            throw error("line too long for --mmap");
+                        }
+                        break;
+                    }
+                    int lineEnd = end;
+                    if (lineEnd > start && window.get(lineEnd - 1) == '\r') {
+                        lineEnd -= 1;
+                    }
+                    lineNumber += 1;
+                    if (containsByte(window, start, lineEnd, '*')) {
+                        byte[] line = new byte[lineEnd - start];
+                        window.get(start, line);
+                        skipping = !setUp(M, new String(line,
+                                              StandardCharsets.ISO_8859_1),
+                                          lineNumber);
+                        configured |= !skipping;
+                    } else if (!configured || skipping) {
+                        start = Math.min(end + 1, limit);
+                        continue;
+                    } else if (_errors != null
+                               && !inAlphabet(M, window, start, lineEnd)) {
+                        report(lineNumber, BAD_CHARACTER);
+                        skipping = true;
+                    } else {
+                        writeMapped(M, window, start, lineEnd, outBuf, out);
+                    }
+                    start = Math.min(end + 1, limit);
+                }
+                base += start;
+            }
+            if (!configured && _failures == 0) {
+                throw new EnigmaException("No configuration found.");
+            }
+            flush(outBuf, out);
+        } catch (IOException excp) {
+            throw error("I/O error: %s", excp.getMessage());
+        } finally {
+            if (out != null && _files.size() > 2) {
+                try {
+                    out.close();
+                } catch (IOException excp) {
+                    throw error("could not close %s", _files.get(2));
+                }
+            }
+        }
+    }
+
+    /** Return true iff BUF contains byte B between positions START
+     *  (inclusive) and END (exclusive). */
+    private static boolean containsByte(ByteBuffer buf, int start, int end,
+                                        char b) {
+        for (int i = start; i < end; i += 1) {
+            if (buf.get(i) == b) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Convert the message line held in IN between positions START and
+     *  END with M, dropping spaces, and append it to OUTBUF in groups of
+     *  five followed by a line separator, writing OUTBUF to OUT whenever
+     *  it fills up. */
+    private void writeMapped(Machine M, ByteBuffer in, int start, int end,
+                             ByteBuffer outBuf, FileChannel out)
+        throws IOException {
+        int group = 0;
+        int savedLimit = in.limit();
+        int p = start;
+        while (p < end) {
+            if (in.get(p) == ' ') {
+                p += 1;
+                continue;
+            }
+            int run = p;
+            while (run < end && run - p < GROUP_SIZE - group
+                   && in.get(run) != ' ') {
+                run += 1;
+            }
+            if (outBuf.remaining() < GROUP_SIZE + 1) {
+                flush(outBuf, out);
+            }
+            if (group == GROUP_SIZE) {
+                outBuf.put((byte) ' ');
+                group = 0;
+                continue;
+            }
+            in.limit(run).position(p);
+            M.convert(in, outBuf);
+            in.limit(savedLimit);
+            group += run - p;
+            p = run;
+        }
+        if (outBuf.remaining() < LINE_SEPARATOR.length) {
+            flush(outBuf, out);
+        }
+        outBuf.put(LINE_SEPARATOR);
+    }
+
+    /** Write the contents of BUF to OUT and clear BUF. */
+    private static void flush(ByteBuffer buf, FileChannel out)
+        throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    /** Return an Enigma machine configured from the contents of configuration
+     *  file _config. */
+    private Machine readConfig() {
+        if (_configuration == null) {
+            _configuration = new Configuration(_config);
+        }
+        return _configuration.newMachine();
+    }
+
+    /** Set M according to the specification given on SETTINGS,
+     *  which must have the format specified in the assignment. */
+    private void setUp(Machine M, String settings) {
+        _configuration.setUp(M, settings);
+    }
+
+    /** Set M according to SETTINGS, which is input line LINE, and
+     *  return true.  In lenient mode, if SETTINGS is bad, report it and
+     *  return false instead of throwing. */
+    private boolean setUp(Machine M, String settings, long line) {
+        if (_errors == null) {
+            setUp(M, settings);
+            return true;
+        }
+        try {
+            setUp(M, settings);
+            return true;
+        } catch (EnigmaException excp) {
+            return fail(line, excp);
+        }
+    }
+
+    /** Return true iff each of the first N characters of BUF other than
+     *  blanks is in M's alphabet. */
+    private static boolean inAlphabet(Machine M, char[] buf, int n) {
+        Alphabet alpha = M.alphabet();
+        for (int i = 0; i < n; i += 1) {
+            char c = buf[i];
+            if (c != ' ' && alpha.index(c) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return true iff every byte of BUF between positions START
+     *  (inclusive) and END (exclusive) other than blanks is in M's
+     *  alphabet. */
+    private static boolean inAlphabet(Machine M, ByteBuffer buf, int start,
+                                      int end) {
+        Alphabet alpha = M.alphabet();
+        for (int i = start; i < end; i += 1) {
+            char c = (char) (buf.get(i) & BYTE_MASK);
+            if (c != ' ' && alpha.index(c) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Report on _errors that the segment containing input line LINE
+     *  failed because of EXCP, and count the failure.  Avoids formatting,
+     *  since a bad batch may have a failure on every line. */
+    private void report(long line, EnigmaException excp) {
+        _errors.print("line ");
+        _errors.print(line);
+        _errors.print(": ");
+        _errors.println(excp.getMessage());
+        _failures += 1;
+    }
+
+    /** Options recognized on the command line. */
+    private static final List<String> OPTIONS =
+        List.of("--mmap", "--checkpoint", "--resume", "--lenient",
+                "--pipeline", "--gzip", "--batch", "--bench",
+                "--passthrough", "--streams", "--compiled");
+
+    /** Options that may be given with --batch, and so to its jobs. */
+    static final List<String> BATCH_OPTIONS =
+        List.of("--lenient", "--passthrough", "--streams", "--compiled");
+
+    /** Reported for a message line containing a character outside the
+     *  alphabet.  Created once, since it never needs a stack trace. */
+    private static final EnigmaException BAD_CHARACTER =
+        new EnigmaException("Character not in the alphabet.", false);
+
+    /** Reported for a settings line that does not fit in one block,
+     *  including a line whose first "*" lies beyond its first block. */
+    private static final EnigmaException LONG_SETTINGS =
+        new EnigmaException("Settings line too long.", false);
+
+    /** Number of characters of a message line read and converted at
+     *  once, which bounds memory use however long the line is.  As with
+     *  --mmap, any line containing "*" is a settings line, and it must
+     *  fit in one block.  A line is taken as a message when its first
+     *  block has no "*", so one found in a later block is reported as
+     *  LONG_SETTINGS.  A message line longer than one block is checked
+     *  in full, and copied to a BlockSpool, before any of it is
+     *  converted, so that no part of a rejected line is printed. */
+    static final int LINE_BLOCK = 1 << 13;
+
+    /** Largest number of CompiledMachines kept for reuse by
+     *  --compiled. */
+    private static final int MAX_COMPILED = 16;
+
+    /** Default number of timed rounds for --bench. */
+    private static final int BENCH_ROUNDS = 5;
+
+    /** Least time spent warming up before timing --bench rounds. */
+    private static final long BENCH_WARMUP_MILLIS = 2000;
+
+    /** Largest number of threads used by --batch. */
+    private static final int MAX_THREADS = 256;
+
+    /** Number of blocks in each ring of a --pipeline run. */
+    private static final int PIPELINE_BLOCKS = 8;
+
+    /** Size in bytes of the blocks passed between --pipeline stages. */
+    private static final int PIPELINE_BLOCK_SIZE = 1 << 16;
+
+    /** Suffix of the names of gzip-compressed files. */
+    private static final String GZIP_SUFFIX = ".gz";
+
+    /** Size in bytes of the buffers used for gzip compression and
+     *  decompression. */
+    private static final int GZIP_BUFFER = 1 << 16;
+
+    /** Mask selecting the unsigned value of a byte. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** Number of characters per group in output messages. */
+    private static final int GROUP_SIZE = 5;
+
+    /** Size in bytes of the output buffer used by --mmap. */
+    private static final int OUTPUT_BLOCK = 1 << 16;
+
+    /** Largest number of bytes of input mapped at once by --mmap. */
+    private static final long MAP_WINDOW = 1L << 30;
+
+    /** Bytes written at the end of each output line. */
+    private static final byte[] LINE_SEPARATOR =
+        System.lineSeparator().getBytes(StandardCharsets.ISO_8859_1);
+
+    /** The non-option command-line arguments. */
+    private ArrayList<String> _files;
+
+    /** The options given on the command line, mapped to their values
+     *  (null for options without one). */
+    private HashMap<String, String> _options;
+
+    /** The reading and writing stages for --pipeline, or null. */
+    private Pipeline _pipeline;
+
+    /** Where lenient mode reports failures, or null if not lenient. */
+    private PrintStream _errors;
+
+    /** Number of segments that have failed in lenient mode. */
+    private long _failures;
+
+    /** Characters between checkpoints, or 0 for no checkpoints. */
+    private long _checkpointInterval;
+
+    /** The output file, when writing checkpoints. */
+    private FileOutputStream _outputFile;
+
+    /** The configuration read from _config. */
+    private Configuration _configuration;
+
+    /** Source of input messages. */
+    private ChunkedLineReader _input;
+
+    /** Number of characters in the last group printed of the current
+     *  message line. */
+    private int _group;
+
+    /** Machines compiled for --compiled, by the key made in compile, or
+     *  null. */
+    private HashMap<String, CompiledMachine> _compiledMachines;
+
+    /** The machine converting the current segment for --compiled, or
+     *  null. */
+    private CompiledMachine _compiled;
+
+    /** Converts segments for --streams, or null. */
+    private SegmentStreams _streams;
+
+    /** Classifies message characters for --passthrough, or null. */
+    private CharClassifier _classifier;
+
+    /** Alphabet indices of the letters in one block, for
+     *  --passthrough. */
+    private int[] _indices;
+
+    /** Reusable buffer for formatting one block of output. */
+    private final StringBuilder _grouped = new StringBuilder();
+
+    /** Source of machine configuration. */
+    private Scanner _config;
+
+    /** File for encoded/decoded messages. */
+    private PrintStream _output;
+}
@@ -0,0 +1,240 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/** Tests of Main's modes, run through the constructor used for batch
+ *  jobs.
+ *  @author Sahil Gupta
+ */
+public class MainTest {
+
+    /** Segments for EnigmaProcessorTest.CONFIG: two runs of segments that
+     *  differ only in rotor positions, with different ring settings and
+     *  plugboards. */
+    static final String INPUT =
+        "* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)\n"
+        + "FROM HIS SHOULDER HIAWATHA\n"
+        + "TOOK THE CAMERA OF ROSEWOOD\n"
+        + "* B Beta III IV I QRST (HQ) (EX) (IP) (TR) (BY)\n"
+        + "MADE OF SLIDING FOLDING ROSEWOOD\n\n"
+        + "* B Beta III IV I AAAZ (HQ) (EX) (IP) (TR) (BY)\n"
+        + "NEATLY PUT IT ALL TOGETHER\n"
+        + "* B Beta I III IV MMMM AAAA (AB)\n"
+        + "IN ITS CASE IT LAY COMPACTLY\n"
+        + "* B Beta I III IV ZZZZ AAAA (AB)\n"
+        + "FOLDED INTO NEARLY NOTHING\n";
+
+    /** Return the output of a Main run with OPTIONS (names, optionally
+     *  followed by "=VALUE") on INPUT, with EnigmaProcessorTest.CONFIG,
+     *  reporting lenient failures to ERRORS. */
+    static String run(String input, PrintStream errors, String... options) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        main(input, output, errors, options).process();
+        return output.toString();
+    }
+
+    /** Return a Main that reads INPUT and writes OUTPUT, as for run. */
+    private static Main main(String input, ByteArrayOutputStream output,
+                             PrintStream errors, String... options) {
+        HashMap<String, String> map = new HashMap<>();
+        for (String option : options) {
+            int eq = option.indexOf('=');
+            map.put(eq < 0 ? option : option.substring(0, eq),
+                    eq < 0 ? null : option.substring(eq + 1));
+        }
+        return new Main(SearchJobTest.config(), new StringReader(input),
+                        new PrintStream(output), map, errors);
+    }
+
+    /** Return the output of a Main run as for run, which must fail with
+     *  an EnigmaException whose message is MESSAGE. */
+    private static String runFailing(String input, PrintStream errors,
+                                     String message, String... options) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            main(input, output, errors, options).process();
+            fail("run did not fail");
+        } catch (EnigmaException excp) {
+            assertEquals(message, excp.getMessage());
+        }
+        return output.toString();
+    }
+
+    @Test
+    public void testStreams() {
+        String expected = run(INPUT, null);
+        assertEquals(expected, run(INPUT, null, "--streams"));
+        String text = INPUT.replace("HIAWATHA", "Hiawatha, and");
+        assertEquals(run(text, null, "--passthrough"),
+                     run(text, null, "--passthrough", "--streams"));
+        String longLine = "* B Beta III IV I AXLE (HQ)\n"
+            + "ABCDEFG".repeat(SegmentStreams.MAX_CHARS / 3) + "\n"
+            + INPUT;
+        assertEquals(run(longLine, null), run(longLine, null, "--streams"));
+    }
+
+    @Test
+    public void testCompiled() {
+        assertEquals(run(INPUT, null), run(INPUT, null, "--compiled"));
+        String text = INPUT.replace("HIAWATHA", "Hiawatha, and");
+        assertEquals(run(text, null, "--passthrough"),
+                     run(text, null, "--passthrough", "--compiled"));
+        String moved = INPUT.replace("AXLE", "BXLE").replace("QRST", "ARST");
+        assertEquals(run(moved, null), run(moved, null, "--compiled"));
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testCompiledWithStreams() {
+        run(INPUT, null, "--compiled", "--streams");
+    }
+
+    @Test
+    public void testPassthrough() {
+        String text = "* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)\n"
+            + "From his shoulder, Hiawatha\n";
+        assertEquals("QVPQS OKOIL PUBKJ ,ZPIS FXDW\n",
+                     run(text, null, "--passthrough"));
+        try {
+            run(text, null);
+            fail("converted a character not in the alphabet");
+        } catch (EnigmaException excp) {
+            /* Expected. */
+        }
+    }
+
+    @Test
+    public void testLenient() {
+        String bad = "* B Beta III IV Q AXLE\nFROM HIS SHOULDER\n"
+            + "* B Beta III IV I AXLE (HQ)\nFR0M\nHIS\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream(),
+            errors = new ByteArrayOutputStream();
+        HashMap<String, String> options = new HashMap<>();
+        options.put("--lenient", null);
+        Main main = new Main(SearchJobTest.config(),
+                             new StringReader(bad + INPUT),
+                             new PrintStream(output), options,
+                             new PrintStream(errors));
+        try {
+            main.process();
+            fail("lenient run with bad segments did not fail");
+        } catch (EnigmaException excp) {
+            assertEquals("2 segment(s) failed", excp.getMessage());
+        }
+        assertEquals(run(INPUT, null), output.toString());
+        String[] reports = errors.toString().split("\n");
+        assertEquals(2, reports.length);
+        assertTrue(reports[0].startsWith("line 1: "));
+        assertTrue(reports[1].startsWith("line 4: "));
+    }
+
+    @Test
+    public void testLongLines() {
+        String settings = "* B Beta III IV I AXLE (HQ)\n";
+        String letters = "ABCDEFG".repeat(Main.LINE_BLOCK / 3);
+        EnigmaEngine engine =
+            EnigmaEngine.fromString(EnigmaProcessorTest.CONFIG);
+        String cipher = engine.encrypt(engine.settings(settings.trim()),
+                                       letters);
+        assertEquals(cipher.replaceAll("(.{5})(?=.)", "$1 ") + "\n"
+                     + run(INPUT, null),
+                     run(settings + letters + "\n" + INPUT, null));
+
+        String[] bad = { letters + "a" + letters,
+                         letters + " * B Beta III IV I AXLE" };
+        String[] messages = { "Character not in the alphabet.",
+                              "Settings line too long." };
+        String before = run(settings + "FROM HIS\n", null);
+        for (int i = 0; i < bad.length; i += 1) {
+            String text = settings + "FROM HIS\n" + bad[i] + "\nSHOULDER\n"
+                + INPUT;
+            assertEquals(before, runFailing(text, null, messages[i]));
+            ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            assertEquals(before + run(INPUT, null),
+                         runFailing(text, new PrintStream(errors),
+                                    "1 segment(s) failed", "--lenient"));
+            assertEquals("line 3: " + messages[i] + "\n",
+                         errors.toString());
+        }
+        String text = settings + bad[1] + "\n" + INPUT;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        assertEquals(run(INPUT, null),
+                     runFailing(text, new PrintStream(errors),
+                                "1 segment(s) failed", "--lenient",
+                                "--passthrough"));
+        assertEquals("line 2: Settings line too long.\n", errors.toString());
+    }
+
+    /** Write TEXT to FILE, compressing it if GZIP. */
+    private static void write(File file, String text, boolean gzip)
+        throws IOException {
+        try (OutputStream out = gzip
+             ? new GZIPOutputStream(new FileOutputStream(file))
+             : new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Return the contents of FILE, decompressing them if GZIP. */
+    private static String read(File file, boolean gzip) throws IOException {
+        try (InputStream in = gzip
+             ? new GZIPInputStream(new FileInputStream(file))
+             : new FileInputStream(file)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Run Main on the configuration CONFIG and a copy of INPUT in file
+     *  IN, writing file OUT, with the further arguments OPTIONS, and
+     *  check that OUT holds the same conversion as a plain run.  The
+     *  files are compressed if GZIP. */
+    private static void checkFiles(File config, File in, File out,
+                                   boolean gzip, String... options)
+        throws IOException {
+        write(in, INPUT, gzip);
+        String[] args = new String[3 + options.length];
+        args[0] = config.getPath();
+        args[1] = in.getPath();
+        args[2] = out.getPath();
+        System.arraycopy(options, 0, args, 3, options.length);
+        new Main(args).process();
+        assertEquals(run(INPUT, null), read(out, gzip));
+    }
+
+    @Test
+    public void testPipelineAndGzip() throws IOException {
+        File dir = Files.createTempDirectory("main").toFile();
+        try {
+            File config = new File(dir, "default.conf");
+            write(config, EnigmaProcessorTest.CONFIG, false);
+            checkFiles(config, new File(dir, "a.in"), new File(dir, "a.out"),
+                       false, "--pipeline");
+            checkFiles(config, new File(dir, "b.in.gz"),
+                       new File(dir, "b.out.gz"), true);
+            checkFiles(config, new File(dir, "c.in"), new File(dir, "c.out"),
+                       true, "--gzip");
+        } finally {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+}
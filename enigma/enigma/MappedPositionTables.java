@@ -0,0 +1,56 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static enigma.EnigmaException.*;
+
+/** PositionTables read through mapped byte buffers, each window holding
+ *  a whole number of tables.
+ *  @author Sahil Gupta
+ */
+class MappedPositionTables extends PositionTables {
+
+    /** The COUNT tables of N entries in FILE. */
+    MappedPositionTables(File file, int n, long count) {
+        _n = n;
+        _perWindow = WINDOW_BYTES / (n * Integer.BYTES);
+        _windows = new MappedByteBuffer[(int) ((count + _perWindow - 1)
+                                               / _perWindow)];
+        try (FileChannel in = FileChannel.open(file.toPath(),
+                                               StandardOpenOption.READ)) {
+            for (int w = 0; w < _windows.length; w += 1) {
+                long tables = Math.min(_perWindow, count - w * _perWindow);
+                _windows[w] = in.map(FileChannel.MapMode.READ_ONLY,
+                                     HEADER_BYTES + w * _perWindow * n
+                                     * Integer.BYTES,
+                                     tables * n * Integer.BYTES);
+                _windows[w].order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException excp) {
+            throw error("could not map tables %s", file);
+        }
+    }
+
+    @Override
+    int get(long table, int c) {
+        return _windows[(int) (table / _perWindow)]
+            .getInt((int) (table % _perWindow * _n + c) * Integer.BYTES);
+    }
+
+    /** Largest size of a window. */
+    private static final int WINDOW_BYTES = 1 << 30;
+
+    /** Entries per table. */
+    private final int _n;
+
+    /** Tables per window. */
+    private final long _perWindow;
+
+    /** The mapped windows. */
+    private final MappedByteBuffer[] _windows;
+}
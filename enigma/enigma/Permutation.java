@@ -1,164 +1,297 @@
-package enigma;
-
-import java.util.ArrayList;
-
-import static enigma.EnigmaException.*;
-
-/** Represents a permutation of a range of integers starting at 0 corresponding
- *  to the characters of an alphabet.
- *  @author Sahil Gupta
- */
-class Permutation {
-
-    /** Set this Permutation to that specified by CYCLES, a string in the
-     *  form "(cccc) (cc) ..." where the c's are characters in ALPHABET, which
-     *  is interpreted as a permutation in cycle notation.  Characters in the
-     *  alphabet that are not included in any cycle map to themselves.
-     *  Whitespace is ignored. */
-    Permutation(String cycles, Alphabet alphabet) {
-        _alphabet = alphabet;
-
-        ArrayList<String> possibleCycles = new ArrayList<>();
-        int leftPos, rightPos; String copyCycles = cycles.trim();
-
-        while (copyCycles.length() > 0) {
-            leftPos = copyCycles.indexOf("(");
-            rightPos = copyCycles.indexOf(")");
-
-            if (leftPos != -1 && rightPos != -1 && rightPos > leftPos) {
-                possibleCycles.add(copyCycles.substring(leftPos, rightPos + 1));
-                copyCycles = copyCycles.substring(rightPos + 1);
-            } else {
-                throw new EnigmaException("Bad input format: "
-                       + "Matching parentheses not found.");
-            }
-        }
-
-        checkUnique = "";
-        _cycles = new ArrayList<>();
-
-        for (String cycle: possibleCycles) {
-            String cycleChars = cycle.substring(1, cycle.length() - 1);
-            if (cycleChars.length() > 0) {
-                addCycle(cycleChars);
-            }
-        }
-    }
-
-    /** Add the cycle c0->c1->...->cm->c0 to the permutation, where CYCLE is
-     *  c0c1...cm. */
-    private void addCycle(String cycle) {
-
-        for (int i = 0; i < cycle.length(); i += 1) {
-            char c = cycle.charAt(i);
-            if (Character.isWhitespace(c)) {
-                throw new EnigmaException(
-                        "Bad input format: Cycle "
-                                + cycle + " contains whitespace.");
-            } else if (!_alphabet.contains(c)) {
-                throw new EnigmaException(
-                        String.format("\"%c\" not in alphabet.", c));
-            } else if (checkUnique.indexOf(c) != -1) {
-                throw new EnigmaException(
-                        String.format("Bad input format: "
-                                + "character \"%c\" maps to "
-                                + "more than 1 letter.", c));
-            }
-            checkUnique += c;
-        }
-        _cycles.add(cycle.toCharArray());
-    }
-
-    /** Return the value of P modulo the size of this permutation. */
-    final int wrap(int p) {
-        int r = p % size();
-        if (r < 0) {
-            r += size();
-        }
-        return r;
-    }
-
-    /** Returns the size of the alphabet I permute. */
-    int size() {
-        return _alphabet.size();
-    }
-
-    /** Return the result of applying this permutation to P modulo the
-     *  alphabet size. */
-    int permute(int p) {
-        p = wrap(p);
-        char toPermute = _alphabet.toChar(p);
-        char permutation = toPermute;
-        for (char[] cycle: _cycles) {
-            for (int i = 0; i < cycle.length; i += 1) {
-                if (cycle[i] == toPermute) {
-                    permutation = cycle[(i + 1) % cycle.length];
-                    break;
-                }
-            }
-        }
-        return _alphabet.toInt(permutation);
-    }
-
-    /** Return the result of applying the inverse of this permutation
-     *  to  C modulo the alphabet size. */
-    int invert(int c) {
-        c = wrap(c);
-        char toInvert = _alphabet.toChar(c);
-        char inversion = toInvert;
-        for (char[] cycle: _cycles) {
-            for (int i = 0; i < cycle.length; i += 1) {
-
-                if (cycle[i] == toInvert) {
-                    int index = i - 1;
-                    if (index < 0) {
-                        index += cycle.length;
-                    }
-                    inversion = cycle[index];
-                    break;
-                }
-            }
-        }
-        return _alphabet.toInt(inversion);
-    }
-
-    /** Return the result of applying this permutation to the index of P
-     *  in ALPHABET, and converting the result to a character of ALPHABET. */
-    char permute(char p) {
-        return _alphabet.toChar(permute(_alphabet.toInt(p)));
-    }
-
-    /** Return the result of applying the inverse of this permutation to C. */
-    char invert(char c) {
-        return _alphabet.toChar(invert(_alphabet.toInt(c)));
-    }
-
-    /** Return the alphabet used to initialize this Permutation. */
-    Alphabet alphabet() {
-        return _alphabet;
-    }
-
-    /** Return true iff this permutation is a derangement (i.e., a
-     *  permutation for which no value maps to itself). */
-    boolean derangement() {
-        if (size() > checkUnique.length()) {
-            return false;
-        } else {
-            for (char[] cycle: _cycles) {
-                if (cycle.length == 1) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
-    /** Alphabet of this permutation. */
-    private Alphabet _alphabet;
-
-    /** The cycles of this permutation.*/
-    private ArrayList<char[]> _cycles;
-
-    /** Tracks the cycle characters in order to check they are unique. */
-    private String checkUnique;
-}
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static enigma.EnigmaException.*;
+
+/** Represents a permutation of a range of integers starting at 0 corresponding
+ *  to the characters of an alphabet.
+ *  @author Sahil Gupta
+ */
+class Permutation {
+
+    /** Set this Permutation to that specified by CYCLES, a string in the
+     *  form "(cccc) (cc) ..." where the c's are characters in ALPHABET, which
+     *  is interpreted as a permutation in cycle notation.  Characters in the
+     *  alphabet that are not included in any cycle map to themselves.
+     *  Whitespace is ignored. */
+    Permutation(String cycles, Alphabet alphabet) {
+        _alphabet = alphabet;
+
+        ArrayList<String> possibleCycles = new ArrayList<>();
+        int leftPos, rightPos; String copyCycles = cycles.trim();
+
+        while (copyCycles.length() > 0) {
+            leftPos = copyCycles.indexOf("(");
+            rightPos = copyCycles.indexOf(")");
+
+            if (leftPos != -1 && rightPos != -1 && rightPos > leftPos) {
+                possibleCycles.add(copyCycles.substring(leftPos, rightPos + 1));
+                copyCycles = copyCycles.substring(rightPos + 1);
+            } else {
+                throw new EnigmaException("Bad input format: "
+                       + "Matching parentheses not found.", false);
+            }
+        }
+
+        checkUnique = "";
+        _cycles = new ArrayList<>();
+
+        for (String cycle: possibleCycles) {
+            String cycleChars = cycle.substring(1, cycle.length() - 1);
+            if (cycleChars.length() > 0) {
+                addCycle(cycleChars);
+            }
+        }
+
+        _forward = new int[size()];
+        _backward = new int[size()];
+        for (int c = 0; c < size(); c += 1) {
+            _forward[c] = _backward[c] = c;
+        }
+        for (char[] cycle: _cycles) {
+            for (int i = 0; i < cycle.length; i += 1) {
+                int from = _alphabet.toInt(cycle[i]),
+                    to = _alphabet.toInt(cycle[(i + 1) % cycle.length]);
+                _forward[from] = to;
+                _backward[to] = from;
+            }
+        }
+    }
+
+    /** Add the cycle c0->c1->...->cm->c0 to the permutation, where CYCLE is
+     *  c0c1...cm. */
+    private void addCycle(String cycle) {
+
+        for (int i = 0; i < cycle.length(); i += 1) {
+            char c = cycle.charAt(i);
+            if (Character.isWhitespace(c)) {
+                throw new EnigmaException(
+                        "Bad input format: Cycle "
+                                + cycle + " contains whitespace.", false);
+            } else if (!_alphabet.contains(c)) {
+                throw new EnigmaException(
+                        "\"" + c + "\" not in alphabet.", false);
+            } else if (checkUnique.indexOf(c) != -1) {
+                throw new EnigmaException(
+                        "Bad input format: character \"" + c
+                                + "\" maps to more than 1 letter.", false);
+            }
+            checkUnique += c;
+        }
+        _cycles.add(cycle.toCharArray());
+    }
+
+    /** Return the value of P modulo the size of this permutation. */
+    final int wrap(int p) {
+        int r = p % size();
+        if (r < 0) {
+            r += size();
+        }
+        return r;
+    }
+
+    /** Returns the size of the alphabet I permute. */
+    int size() {
+        return _alphabet.size();
+    }
+
+    /** Return the result of applying this permutation to P modulo the
+     *  alphabet size. */
+    int permute(int p) {
+        return _forward[wrap(p)];
+    }
+
+    /** Return the result of applying the inverse of this permutation
+     *  to  C modulo the alphabet size. */
+    int invert(int c) {
+        return _backward[wrap(c)];
+    }
+
+    /** Return the result of applying this permutation to the index of P
+     *  in ALPHABET, and converting the result to a character of ALPHABET. */
+    char permute(char p) {
+        return _alphabet.toChar(permute(_alphabet.toInt(p)));
+    }
+
+    /** Return the result of applying the inverse of this permutation to C. */
+    char invert(char c) {
+        return _alphabet.toChar(invert(_alphabet.toInt(c)));
+    }
+
+    /** Return the alphabet used to initialize this Permutation. */
+    Alphabet alphabet() {
+        return _alphabet;
+    }
+
+    /** Return true iff this permutation is a derangement (i.e., a
+     *  permutation for which no value maps to itself). */
+    boolean derangement() {
+        if (size() > checkUnique.length()) {
+            return false;
+        } else {
+            for (char[] cycle: _cycles) {
+                if (cycle.length == 1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Returns this permutation in cycle notation, in the form accepted
+     *  by the constructor. */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (char[] cycle: _cycles) {
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append('(').append(cycle).append(')');
+        }
+        return result.toString();
+    }
+
+    /** Return a new table of this permutation: element C is
+     *  permute(C). */
+    int[] table() {
+        return _forward.clone();
+    }
+
+    /** Return a table of the substitutions made by a rotor with my
+     *  wiring at each of its settings: element S * size() + C is
+     *  conjugate(table(), S)[C] or, if BACKWARD, the same for my
+     *  inverse.  The tables are built on first use and then shared by
+     *  every caller (and so by every machine using this permutation),
+     *  which must not modify them. */
+    synchronized int[] shifts(boolean backward) {
+        if (_shifts == null) {
+            int n = size();
+            int[][] shifts = new int[2][n * n];
+            int[] shifted = new int[n];
+            for (int s = 0; s < n; s += 1) {
+                conjugate(_forward, s, shifted);
+                System.arraycopy(shifted, 0, shifts[0], s * n, n);
+                conjugate(_backward, s, shifted);
+                System.arraycopy(shifted, 0, shifts[1], s * n, n);
+            }
+            _shifts = shifts;
+        }
+        return _shifts[backward ? 1 : 0];
+    }
+
+    /* The following operate on permutations of 0 .. N-1 given as tables
+     * of length N, in which element C is the image of C.  Each takes
+     * O(N) time and allocates nothing; each stores its result in a
+     * RESULT table supplied by the caller, and returns it. */
+
+    /** Put in RESULT the permutation that applies FIRST and then
+     *  SECOND: RESULT[C] = SECOND[FIRST[C]].  RESULT may be FIRST, but
+     *  not SECOND. */
+    static int[] compose(int[] first, int[] second, int[] result) {
+        for (int c = 0; c < first.length; c += 1) {
+            result[c] = second[first[c]];
+        }
+        return result;
+    }
+
+    /** Put the inverse of P in RESULT, which must not be P. */
+    static int[] inverse(int[] p, int[] result) {
+        for (int c = 0; c < p.length; c += 1) {
+            result[p[c]] = c;
+        }
+        return result;
+    }
+
+    /** Put P applied K times (K may be negative) in RESULT, which must
+     *  not be P. */
+    static int[] power(int[] p, int k, int[] result) {
+        Arrays.fill(result, -1);
+        for (int c = 0; c < p.length; c += 1) {
+            if (result[c] != -1) {
+                continue;
+            }
+            int len = 1;
+            for (int d = p[c]; d != c; d = p[d]) {
+                len += 1;
+            }
+            int ahead = c;
+            for (int i = Math.floorMod(k, len); i > 0; i -= 1) {
+                ahead = p[ahead];
+            }
+            for (int i = 0, d = c; i < len; i += 1) {
+                result[d] = ahead;
+                d = p[d];
+                ahead = p[ahead];
+            }
+        }
+        return result;
+    }
+
+    /** Put in RESULT the conjugate of P by a shift of K (modulo the size
+     *  of P): RESULT[C] = P[C + K] - K.  This is the substitution made
+     *  by a rotor with wiring P at setting K.  RESULT must not be P. */
+    static int[] conjugate(int[] p, int k, int[] result) {
+        int n = p.length;
+        k = Math.floorMod(k, n);
+        for (int c = 0; c < n; c += 1) {
+            int v = p[c + k < n ? c + k : c + k - n] - k;
+            result[c] = v < 0 ? v + n : v;
+        }
+        return result;
+    }
+
+    /** Decompose P into cycles.  Put the length of each cycle in
+     *  LENGTHS, in order of their smallest elements, and, unless ORDER
+     *  is null, the elements of each cycle in ORDER, cycle after cycle,
+     *  each starting with its smallest element.  Returns the number of
+     *  cycles; elements of LENGTHS past that number are unspecified.
+     *  LENGTHS must have room for an entry per element of P. */
+    static int cycles(int[] p, int[] order, int[] lengths) {
+        /* Until a cycle's length is stored, LENGTHS[D] is VISITED for
+         * each element D already put in a cycle.  Cycle K's smallest
+         * element is at least K, and only elements larger than it are
+         * examined afterward, so storing its length at LENGTHS[K] never
+         * overwrites a mark still needed. */
+        Arrays.fill(lengths, 0, p.length, 0);
+        int k = 0, placed = 0;
+        for (int c = 0; c < p.length; c += 1) {
+            if (lengths[c] == VISITED) {
+                continue;
+            }
+            int len = 0;
+            for (int d = c; len == 0 || d != c; d = p[d]) {
+                if (order != null) {
+                    order[placed + len] = d;
+                }
+                lengths[d] = VISITED;
+                len += 1;
+            }
+            lengths[k] = len;
+            k += 1;
+            placed += len;
+        }
+        return k;
+    }
+
+    /** Mark used by cycles for elements already placed in a cycle. */
+    private static final int VISITED = -1;
+
+    /** Alphabet of this permutation. */
+    private Alphabet _alphabet;
+
+    /** The cycles of this permutation.*/
+    private ArrayList<char[]> _cycles;
+
+    /** Tracks the cycle characters in order to check they are unique. */
+    private String checkUnique;
+
+    /** Table of this permutation and of its inverse. */
+    private int[] _forward, _backward;
+
+    /** Forward and backward tables returned by shifts, or null until
+     *  first needed. */
+    private int[][] _shifts;
+}
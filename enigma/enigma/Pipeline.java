@@ -0,0 +1,226 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static enigma.EnigmaException.*;
+
+/** The reading and writing stages of a three-stage pipeline.  A reader
+ *  thread copies a source stream into one BlockRing and a writer thread
+ *  copies another BlockRing to a destination stream, while the thread
+ *  in between converts, reading from input() and writing to output().
+ *  Disk I/O thus overlaps with conversion, and the rings bound how far
+ *  any stage can run ahead of the next.
+ *  @author Sahil Gupta
+ */
+class Pipeline {
+
+    /** A pipeline reading SOURCE and writing DESTINATION, buffering up to
+     *  BLOCKS blocks of BLOCKSIZE bytes between each pair of stages.  If
+     *  CLOSEDESTINATION, the writer closes DESTINATION when done;
+     *  otherwise it only flushes it. */
+    Pipeline(InputStream source, OutputStream destination,
+             boolean closeDestination, int blocks, int blockSize) {
+        _inRing = new BlockRing(blocks, blockSize);
+        _outRing = new BlockRing(blocks, blockSize);
+        _reader = new Thread(() -> read(source), "enigma-reader");
+        _writer = new Thread(() -> write(destination, closeDestination),
+                             "enigma-writer");
+        _reader.setDaemon(true);
+        _writer.setDaemon(true);
+    }
+
+    /** Start the reader and writer stages. */
+    void start() {
+        _reader.start();
+        _writer.start();
+    }
+
+    /** Return the stream from which the converting stage reads. */
+    InputStream input() {
+        return _input;
+    }
+
+    /** Return the stream to which the converting stage writes. */
+    OutputStream output() {
+        return _output;
+    }
+
+    /** Called by the converting stage when it has written and flushed
+     *  everything: wait for the writer to finish and report any failure
+     *  in the other stages. */
+    void finish() {
+        _outRing.close();
+        join(_writer);
+        _inRing.fail(FINISHED);
+        join(_reader);
+        check(_inRing);
+        check(_outRing);
+    }
+
+    /** Called by the converting stage when it fails, after flushing
+     *  what it has written: stop the reader and wait for the writer to
+     *  finish.  The reader may be blocked reading its source, so it is
+     *  left to stop at its next block. */
+    void abort() {
+        _inRing.fail(FINISHED);
+        _outRing.close();
+        join(_writer);
+    }
+
+    /** Body of the reader stage: copy SOURCE into _inRing. */
+    private void read(InputStream source) {
+        try (source) {
+            while (true) {
+                byte[] block = _inRing.claim();
+                int n = source.read(block);
+                if (n == -1) {
+                    break;
+                }
+                _inRing.publish(n);
+            }
+            _inRing.close();
+        } catch (IOException excp) {
+            _inRing.fail(excp);
+        } catch (EnigmaException excp) {
+            return;
+        }
+    }
+
+    /** Body of the writer stage: copy _outRing to DESTINATION, closing
+     *  it at the end if CLOSE. */
+    private void write(OutputStream destination, boolean close) {
+        try {
+            for (byte[] block = _outRing.take(); block != null;
+                 block = _outRing.take()) {
+                destination.write(block, 0, _outRing.length());
+                _outRing.release();
+            }
+            if (close) {
+                destination.close();
+            } else {
+                destination.flush();
+            }
+        } catch (IOException excp) {
+            _outRing.fail(excp);
+        } catch (EnigmaException excp) {
+            return;
+        }
+    }
+
+    /** Throw an error if RING failed for any reason other than the
+     *  pipeline stopping. */
+    private static void check(BlockRing ring) {
+        Throwable failure = ring.failure();
+        if (failure != null && failure != FINISHED) {
+            throw error("I/O error: %s", failure.getMessage());
+        }
+    }
+
+    /** Wait for THREAD to end. */
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw error("interrupted");
+        }
+    }
+
+    /** The converting stage's view of _inRing. */
+    private final InputStream _input = new InputStream() {
+            @Override
+            public int read() {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) == -1 ? -1 : one[0] & BYTE_MASK;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (_block == null || _pos == _limit) {
+                    if (_block != null) {
+                        _inRing.release();
+                    }
+                    _block = _inRing.take();
+                    if (_block == null) {
+                        return -1;
+                    }
+                    _pos = 0;
+                    _limit = _inRing.length();
+                }
+                int n = Math.min(len, _limit - _pos);
+                System.arraycopy(_block, _pos, buf, off, n);
+                _pos += n;
+                return n;
+            }
+
+            /** The block being read, or null. */
+            private byte[] _block;
+            /** Position of the next byte to read from _block. */
+            private int _pos;
+            /** Number of bytes in _block. */
+            private int _limit;
+        };
+
+    /** The converting stage's view of _outRing. */
+    private final OutputStream _output = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] buf, int off, int len) {
+                while (len > 0) {
+                    if (_block == null) {
+                        _block = _outRing.claim();
+                        _pos = 0;
+                    }
+                    int n = Math.min(len, _block.length - _pos);
+                    System.arraycopy(buf, off, _block, _pos, n);
+                    _pos += n;
+                    off += n;
+                    len -= n;
+                    if (_pos == _block.length) {
+                        flush();
+                    }
+                }
+            }
+
+            @Override
+            public void flush() {
+                if (_block != null && _pos > 0) {
+                    _outRing.publish(_pos);
+                    _block = null;
+                }
+            }
+
+            /** The block being filled, or null. */
+            private byte[] _block;
+            /** Number of bytes written to _block. */
+            private int _pos;
+        };
+
+    /** Failure cause used to stop stages that are no longer needed. */
+    private static final EnigmaException FINISHED =
+        new EnigmaException("Pipeline stopped.", false);
+
+    /** Mask selecting the unsigned value of a byte. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** Ring from the reader stage to the converting stage. */
+    private final BlockRing _inRing;
+
+    /** Ring from the converting stage to the writer stage. */
+    private final BlockRing _outRing;
+
+    /** The reader stage. */
+    private final Thread _reader;
+
+    /** The writer stage. */
+    private final Thread _writer;
+}
@@ -0,0 +1,229 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static enigma.EnigmaException.*;
+
+/** Precomputed substitutions of a machine's slow rotor stack: for every
+ *  combination of core settings of the rotors in slots 1 .. k-2 (all but
+ *  the rightmost), the substitution made by passing forward through
+ *  them, off the reflector, and back.  With these, a conversion needs
+ *  only the rightmost rotor's tables and one table read.  The tables
+ *  depend only on the rotors in those slots, not on ring settings or
+ *  plugboard.
+ *
+ *  Tables are built once into a file and mapped read-only, so any number
+ *  of processes on a host share one copy in the page cache, outside
+ *  every heap; open reads them through mapped byte buffers (see
+ *  MappedPositionTables).  KeySearch --tables has each work unit's
+ *  TrialEnumerator read them through find.  The file holds a header
+ *  (magic number, alphabet size, number of slots, and a digest of the
+ *  rotors it is for) and then the tables in order of settings (slot 1
+ *  slowest), all ints in the building host's native byte order.
+ *  @author Sahil Gupta
+ */
+abstract class PositionTables {
+
+    /** Build the tables for the rotors inserted in MACHINE into FILE,
+     *  replacing any file there. */
+    static void build(Machine machine, File file) {
+        int k = machine.numRotors(), n = machine.alphabet().size();
+        long count = count(machine);
+        int[][] fwd = new int[k][], bwd = new int[k][];
+        for (int j = 1; j < k - 1; j += 1) {
+            fwd[j] = machine.rotor(j).permutation().shifts(false);
+            bwd[j] = machine.rotor(j).permutation().shifts(true);
+        }
+        int[] reflector = new int[n];
+        for (int c = 0; c < n; c += 1) {
+            reflector[c] = machine.rotor(0).convertForward(c);
+        }
+        ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES)
+            .order(ByteOrder.nativeOrder());
+        try (FileChannel out = FileChannel.open(
+                 file.toPath(), StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING,
+                 StandardOpenOption.WRITE)) {
+            chunk.putInt(MAGIC).putInt(n).putInt(k)
+                .put(id(machine).getBytes(StandardCharsets.US_ASCII));
+            int[] s = new int[k];
+            for (long t = 0; t < count; t += 1) {
+                if (chunk.remaining() < n * Integer.BYTES) {
+                    drain(chunk, out);
+                }
+                for (int c = 0; c < n; c += 1) {
+                    int x = c;
+                    for (int j = k - 2; j > 0; j -= 1) {
+                        x = fwd[j][s[j] * n + x];
+                    }
+                    x = reflector[x];
+                    for (int j = 1; j < k - 1; j += 1) {
+                        x = bwd[j][s[j] * n + x];
+                    }
+                    chunk.putInt(x);
+                }
+                for (int j = k - 2; j > 0; j -= 1) {
+                    s[j] = (s[j] + 1) % n;
+                    if (s[j] != 0) {
+                        break;
+                    }
+                }
+            }
+            drain(chunk, out);
+        } catch (IOException excp) {
+            throw error("could not write tables %s", file);
+        }
+    }
+
+    /** Write the contents of CHUNK to OUT and clear it. */
+    private static void drain(ByteBuffer chunk, FileChannel out)
+        throws IOException {
+        chunk.flip();
+        while (chunk.hasRemaining()) {
+            out.write(chunk);
+        }
+        chunk.clear();
+    }
+
+    /** Return the tables in FILE, which must have been built for the
+     *  rotors now inserted in MACHINE, mapped read-only. */
+    static PositionTables open(Machine machine, File file) {
+        int n = machine.alphabet().size();
+        try (FileChannel in = FileChannel.open(file.toPath(),
+                                               StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .order(ByteOrder.nativeOrder());
+            while (header.hasRemaining() && in.read(header) >= 0) {
+                continue;
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES
+                || header.getInt() != MAGIC) {
+                throw error("%s is not a table file for this host", file);
+            }
+            int size = header.getInt(), slots = header.getInt();
+            byte[] id = new byte[Configuration.ID_LENGTH];
+            header.get(id);
+            String expected = id(machine);
+            if (size != n || slots != machine.numRotors()
+                || !expected.equals(new String(id,
+                                               StandardCharsets.US_ASCII))) {
+                throw error("tables %s are for different rotors", file);
+            }
+            if (in.size() != HEADER_BYTES
+                + count(machine) * n * Integer.BYTES) {
+                throw error("tables %s are damaged", file);
+            }
+        } catch (IOException excp) {
+            throw error("could not read tables %s", file);
+        }
+        return new MappedPositionTables(file, n, count(machine));
+    }
+
+    /** Return the tables for the rotors inserted in MACHINE from
+     *  directory DIR, first building them there if it does not have
+     *  them.  Each set of tables is in a file named by its digest, which
+     *  is built under a temporary name and then renamed, so processes
+     *  sharing DIR never see a partly built file. */
+    static PositionTables find(Machine machine, File dir) {
+        File file = new File(dir, id(machine) + SUFFIX);
+        if (!file.exists()) {
+            try {
+                File temp = File.createTempFile("build", SUFFIX, dir);
+                try {
+                    build(machine, temp);
+                    Files.move(temp.toPath(), file.toPath(),
+                               StandardCopyOption.ATOMIC_MOVE,
+                               StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    temp.delete();
+                }
+            } catch (IOException excp) {
+                throw error("could not build tables in %s: %s", dir,
+                            excp.getMessage());
+            }
+        }
+        return open(machine, file);
+    }
+
+    /** Return the number of tables for the rotors of MACHINE. */
+    private static long count(Machine machine) {
+        long count = 1;
+        for (int j = 1; j < machine.numRotors() - 1; j += 1) {
+            count *= machine.alphabet().size();
+        }
+        return count;
+    }
+
+    /** Return a digest (see Configuration.digest) of everything the
+     *  tables for MACHINE depend on: its alphabet, and the names and
+     *  wirings of the rotors in slots 0 .. k-2. */
+    private static String id(Machine machine) {
+        StringBuilder desc = new StringBuilder();
+        Alphabet alphabet = machine.alphabet();
+        for (int c = 0; c < alphabet.size(); c += 1) {
+            desc.append(alphabet.toChar(c));
+        }
+        for (int j = 0; j < machine.numRotors() - 1; j += 1) {
+            Rotor rotor = machine.rotor(j);
+            desc.append(' ').append(rotor.name())
+                .append(Arrays.toString(rotor.permutation().table()));
+        }
+        return Configuration.digest(desc.toString());
+    }
+
+    /** Return the index of the table for the core settings S (indexed
+     *  by slot) of slots 1 .. K-2 in an alphabet of N letters. */
+    static long index(int[] s, int k, int n) {
+        long index = 0;
+        for (int j = 1; j < k - 1; j += 1) {
+            index = index * n + s[j];
+        }
+        return index;
+    }
+
+    /** Return entry C of table number TABLE. */
+    abstract int get(long table, int c);
+
+    /** Build tables.  ARGS[0] names a configuration file, ARGS[1] is a
+     *  settings line naming the rotors, and ARGS[2] names the file to
+     *  build. */
+    public static void main(String... args) {
+        try {
+            if (args.length != 3) {
+                throw error("usage: java enigma.PositionTables CONFIG "
+                            + "SETTINGS FILE");
+            }
+            Configuration config = Configuration.load(args[0]);
+            Machine machine = config.newMachine();
+            config.setUp(machine, args[1]);
+            build(machine, new File(args[2]));
+            return;
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** Size of the file header. */
+    static final int HEADER_BYTES =
+        3 * Integer.BYTES + Configuration.ID_LENGTH;
+
+    /** First word of a table file, in native byte order. */
+    private static final int MAGIC = 0x454E5054;
+
+    /** Suffix of the names of table files made by find. */
+    static final String SUFFIX = ".tables";
+
+    /** Size of the buffer used in building. */
+    private static final int CHUNK_BYTES = 1 << 20;
+}
@@ -0,0 +1,98 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** Tests of PositionTables and its implementations.
+ *  @author Sahil Gupta
+ */
+public class PositionTablesTest {
+
+    /** Check that TABLES, built for M, agree with M's rotors. */
+    private void checkTables(Machine M, PositionTables tables) {
+        int n = M.alphabet().size(), k = M.numRotors();
+        Random random = new Random(k);
+        int[] s = new int[k];
+        for (int trial = 0; trial < 1000; trial += 1) {
+            for (int j = 1; j < k - 1; j += 1) {
+                s[j] = random.nextInt(n);
+                M.rotor(j).set(s[j]);
+            }
+            int c = random.nextInt(n), x = c;
+            for (int j = k - 2; j >= 0; j -= 1) {
+                x = M.rotor(j).convertForward(x);
+            }
+            for (int j = 1; j < k - 1; j += 1) {
+                x = M.rotor(j).convertBackward(x);
+            }
+            assertEquals(x, tables.get(PositionTables.index(s, k, n), c));
+        }
+    }
+
+    @Test
+    public void testTables() throws IOException {
+        Machine M = navalMachine();
+        File file = File.createTempFile("positions", ".tab");
+        try {
+            PositionTables.build(M, file);
+            checkTables(M, PositionTables.open(M, file));
+            checkTables(M, new MappedPositionTables(file, 26, 26 * 26 * 26));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testEngine() throws IOException {
+        Machine M = navalMachine();
+        M.setRingSetting("BCDE");
+        M.setPlugboard(new Permutation("(YF) (ZH) (AQ)", UPPER));
+        File file = File.createTempFile("positions", ".tab");
+        try {
+            PositionTables.build(M, file);
+            StreamEngine plain = new ScalarStreamEngine(M),
+                tabled = new ScalarStreamEngine(M,
+                                                PositionTables.open(M, file));
+            Random random = new Random(5);
+            int[][] a = new int[20][100], b = new int[20][100];
+            int[][] sa = new int[20][], sb = new int[20][];
+            for (int m = 0; m < a.length; m += 1) {
+                for (int t = 0; t < a[m].length; t += 1) {
+                    a[m][t] = b[m][t] = random.nextInt(26);
+                }
+                sa[m] = new int[] { M.rotor(1).setting(), random.nextInt(26),
+                                    random.nextInt(26), random.nextInt(26) };
+                sb[m] = sa[m].clone();
+            }
+            plain.convert(a, sa);
+            tabled.convert(b, sb);
+            for (int m = 0; m < a.length; m += 1) {
+                assertArrayEquals(a[m], b[m]);
+                assertArrayEquals(sa[m], sb[m]);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testWrongRotors() throws IOException {
+        Machine M = navalMachine();
+        File file = File.createTempFile("positions", ".tab");
+        try {
+            PositionTables.build(M, file);
+            M.insertRotors(new String[] { "B", "Beta", "IV", "III", "I" });
+            PositionTables.open(M, file);
+        } finally {
+            file.delete();
+        }
+    }
+
+}
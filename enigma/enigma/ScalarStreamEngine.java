@@ -0,0 +1,73 @@
+package enigma;
+
+/** A StreamEngine converting one stream at a time, optionally with the
+ *  shared PositionTables of its slow rotors.
+ *  @author Sahil Gupta
+ */
+class ScalarStreamEngine extends StreamEngine {
+
+    /** An engine for the configuration of MACHINE. */
+    ScalarStreamEngine(Machine machine) {
+        this(machine, null);
+    }
+
+    /** An engine for the configuration of MACHINE that looks up the
+     *  passes through all rotors but the rightmost in TABLES, which must
+     *  have been built for MACHINE's rotors, or computes them itself if
+     *  TABLES is null. */
+    ScalarStreamEngine(Machine machine, PositionTables tables) {
+        super(machine);
+        _s = new int[_k];
+        _stepper = new Stepper(machine);
+        _rings = new int[_k - 1];
+        for (int j = 1; j < _k; j += 1) {
+            _rings[j - 1] = machine.rotor(j).ringSetting();
+        }
+        _tables = tables;
+    }
+
+    @Override
+    void convert(int[][] messages, int[][] settings) {
+        for (int m = 0; m < messages.length; m += 1) {
+            int[] message = messages[m];
+            System.arraycopy(settings[m], 0, _s, 1, _k - 1);
+            for (int t = 0; t < message.length; t += 1) {
+                _stepper.step(_s, _rings);
+                int x = _plug[message[t]];
+                if (_tables != null) {
+                    int last = _s[_k - 1] * _n;
+                    x = _fwd[_k - 1][last + x];
+                    x = _tables.get(PositionTables.index(_s, _k, _n), x);
+                    x = _bwd[_k - 1][last + x];
+                } else {
+                    for (int j = _k - 1; j > 0; j -= 1) {
+                        x = _fwd[j][_s[j] * _n + x];
+                    }
+                    x = _reflector[x];
+                    for (int j = 1; j < _k; j += 1) {
+                        x = _bwd[j][_s[j] * _n + x];
+                    }
+                }
+                message[t] = _plugInv[x];
+            }
+            System.arraycopy(_s, 1, settings[m], 0, _k - 1);
+        }
+    }
+
+    @Override
+    int lanes() {
+        return 1;
+    }
+
+    /** Core settings of the current stream, indexed by slot. */
+    private final int[] _s;
+
+    /** Steps _s as the rotors of the machine I was made for step. */
+    private final Stepper _stepper;
+
+    /** _rings[j - 1] is the ring setting of slot J. */
+    private final int[] _rings;
+
+    /** Tables of the slow rotors, or null. */
+    private final PositionTables _tables;
+}
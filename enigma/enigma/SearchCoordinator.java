@@ -0,0 +1,253 @@
+package enigma;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import static enigma.EnigmaException.*;
+
+/** Hands out the work units of a SearchJob to SearchWorkers, which may
+ *  run in other JVMs on this or other hosts, over a line-based socket
+ *  protocol:
+ *
+ *      worker:       hello JOBID
+ *      coordinator:  unit UNIT THRESHOLD    (or quit, once all are done)
+ *      worker:       done UNIT SCORE:KEY ...
+ *
+ *  with the last two lines repeated.  THRESHOLD is the score the job's
+ *  best trials so far require, which the worker uses for pruning, and
+ *  the worker's reply is in the format of a SearchJournal line.  A unit
+ *  whose worker disconnects, sends a malformed reply, or takes longer
+ *  than UNIT_TIMEOUT goes back to the front of the queue for the next
+ *  worker that asks.
+ *  @author Sahil Gupta
+ */
+class SearchCoordinator {
+
+    /** A coordinator for JOB listening on PORT (0 for any free port) of
+     *  the loopback interface, so that only workers on this host can
+     *  connect, collecting results into BEST and recording finished units
+     *  in JOURNAL, if it is not null.  Units JOURNAL already records are
+     *  not handed out. */
+    SearchCoordinator(SearchJob job, int port, TopK best,
+                      SearchJournal journal) {
+        this(job, InetAddress.getLoopbackAddress(), port, best, journal);
+    }
+
+    /** As for SearchCoordinator(JOB, PORT, BEST, JOURNAL), but listening
+     *  on ADDRESS, which may be the wildcard address to accept workers
+     *  on any interface.  Nothing authenticates workers, so ADDRESS
+     *  should be reachable only from trusted hosts. */
+    SearchCoordinator(SearchJob job, InetAddress address, int port,
+                      TopK best, SearchJournal journal) {
+        _job = job;
+        _best = best;
+        _journal = journal;
+        _done = journal == null ? new BitSet() : journal.done();
+        _pending = new LinkedBlockingDeque<>();
+        for (int unit = 0; unit < job.units(); unit += 1) {
+            if (!_done.get(unit)) {
+                _pending.add(unit);
+            }
+        }
+        _remaining = new CountDownLatch(_pending.size());
+        try {
+            _server = new ServerSocket(port, BACKLOG, address);
+        } catch (IOException excp) {
+            throw error("could not listen on %s port %d",
+                        address.getHostAddress(), port);
+        }
+    }
+
+    /** Return the port I listen on. */
+    int port() {
+        return _server.getLocalPort();
+    }
+
+    /** Return the address at which workers on this host can reach me. */
+    String host() {
+        InetAddress address = _server.getInetAddress();
+        if (address.isAnyLocalAddress()) {
+            address = InetAddress.getLoopbackAddress();
+        }
+        return address.getHostAddress();
+    }
+
+    /** Stop listening and release run, which then returns the best
+     *  trials found so far. */
+    void close() {
+        try {
+            _server.close();
+        } catch (IOException excp) {
+            /* Ignore. */
+        }
+        while (_remaining.getCount() > 0) {
+            _remaining.countDown();
+        }
+    }
+
+    /** Serve workers until every unit is finished, and return the best
+     *  trials of the job. */
+    TopK run() {
+        ExecutorService handlers = Executors.newCachedThreadPool();
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket worker = _server.accept();
+                    handlers.execute(() -> serve(worker));
+                }
+            } catch (IOException excp) {
+                /* Server closed: all units are finished. */
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        try {
+            _remaining.await();
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw error("search interrupted");
+        } finally {
+            try {
+                _server.close();
+            } catch (IOException excp) {
+                /* Ignore. */
+            }
+            handlers.shutdown();
+        }
+        try {
+            handlers.awaitTermination(QUIT_WAIT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+        }
+        handlers.shutdownNow();
+        return _best;
+    }
+
+    /** Hand out units to the worker on SOCKET until all are finished or
+     *  the worker fails. */
+    private void serve(Socket socket) {
+        int unit = -1;
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(
+                 new InputStreamReader(s.getInputStream(),
+                                       StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(
+                 new OutputStreamWriter(s.getOutputStream(),
+                                        StandardCharsets.UTF_8))) {
+            s.setSoTimeout(UNIT_TIMEOUT);
+            String hello = in.readLine();
+            if (hello == null || !hello.equals("hello " + _job.id())) {
+                out.print("error wrong job\n");
+                out.flush();
+                return;
+            }
+            while (true) {
+                unit = nextUnit();
+                if (unit < 0) {
+                    out.print("quit\n");
+                    out.flush();
+                    return;
+                }
+                out.print("unit " + unit + " " + _best.threshold() + "\n");
+                out.flush();
+                String reply = in.readLine();
+                TopK found = _job.newTopK();
+                if (reply == null
+                    || SearchJournal.parseUnit(reply, found) != unit) {
+                    throw new SocketException("bad reply from worker");
+                }
+                finish(unit, found);
+                unit = -1;
+            }
+        } catch (IOException excp) {
+            if (unit >= 0) {
+                _pending.addFirst(unit);
+            }
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Return the next unit to hand out, waiting while every unfinished
+     *  unit is out with some worker (which may fail), or return -1 once
+     *  all units are finished. */
+    private int nextUnit() throws InterruptedException {
+        while (_remaining.getCount() > 0) {
+            Integer unit = _pending.poll(POLL_INTERVAL,
+                                         TimeUnit.MILLISECONDS);
+            if (unit != null && !isDone(unit)) {
+                return unit;
+            }
+        }
+        return -1;
+    }
+
+    /** Return true iff UNIT is finished. */
+    private synchronized boolean isDone(int unit) {
+        return _done.get(unit);
+    }
+
+    /** Record that UNIT is finished, with the trials in FOUND, unless a
+     *  worker it was reassigned from has already finished it. */
+    private synchronized void finish(int unit, TopK found) {
+        if (_done.get(unit)) {
+            return;
+        }
+        _done.set(unit);
+        if (_journal != null) {
+            _journal.record(unit, found);
+        }
+        _best.addAll(found);
+        _remaining.countDown();
+    }
+
+    /** Milliseconds a worker may take over one unit before it is presumed
+     *  lost and the unit reassigned. */
+    static final int UNIT_TIMEOUT = 10 * 60 * 1000;
+
+    /** Number of connections from workers that may wait to be
+     *  accepted. */
+    private static final int BACKLOG = 50;
+
+    /** Milliseconds between checks for finished jobs by handlers waiting
+     *  for a unit to hand out. */
+    private static final long POLL_INTERVAL = 100;
+
+    /** Milliseconds allowed for handlers to tell their workers to quit. */
+    private static final long QUIT_WAIT = 5000;
+
+    /** The job. */
+    private final SearchJob _job;
+
+    /** Best trials found so far. */
+    private final TopK _best;
+
+    /** Journal of finished units, or null. */
+    private final SearchJournal _journal;
+
+    /** Finished units. */
+    private final BitSet _done;
+
+    /** Units waiting to be handed out. */
+    private final LinkedBlockingDeque<Integer> _pending;
+
+    /** Counts down as units are finished. */
+    private final CountDownLatch _remaining;
+
+    /** Socket on which workers connect. */
+    private final ServerSocket _server;
+}
@@ -0,0 +1,80 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/** Tests of SearchCoordinator and SearchWorker.
+ *  @author Sahil Gupta
+ */
+public class SearchCoordinatorTest {
+
+    @Test
+    public void testWorkersAndFailure() throws Exception {
+        SearchJob job = SearchJobTest.job();
+        TopK full = SearchJobTest.run(job, 0, job.newTopK(), null);
+
+        SearchCoordinator coordinator =
+            new SearchCoordinator(job, 0, job.newTopK(), null);
+        CompletableFuture<TopK> result =
+            CompletableFuture.supplyAsync(coordinator::run);
+        try (Socket failing = new Socket(coordinator.host(),
+                                           coordinator.port())) {
+            PrintWriter out = new PrintWriter(failing.getOutputStream());
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(failing.getInputStream()));
+            out.print("hello " + job.id() + "\n");
+            out.flush();
+            assertTrue(in.readLine().startsWith("unit "));
+        }
+        CompletableFuture<Integer> worker1 = CompletableFuture.supplyAsync(
+            () -> new SearchWorker(job, coordinator.host(),
+                                   coordinator.port()).run());
+        CompletableFuture<Integer> worker2 = CompletableFuture.supplyAsync(
+            () -> new SearchWorker(job, coordinator.host(),
+                                   coordinator.port()).run());
+        TopK best = result.get();
+        assertEquals(job.units(), worker1.get() + worker2.get());
+        assertArrayEquals(full.scores(), best.scores());
+        assertEquals(full.keys()[0], best.keys()[0]);
+    }
+
+    @Test
+    public void testLoopbackByDefault() {
+        SearchJob job = SearchJobTest.job();
+        SearchCoordinator coordinator =
+            new SearchCoordinator(job, 0, job.newTopK(), null);
+        try {
+            assertEquals(InetAddress.getLoopbackAddress().getHostAddress(),
+                         coordinator.host());
+        } finally {
+            coordinator.close();
+        }
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testWrongJob() throws IOException {
+        SearchJob job = SearchJobTest.job();
+        SearchJob other = new SearchJob(SearchJobTest.config(),
+                                        SearchJobTest.cipher(), "WEATHER",
+                                        0, 3);
+        SearchCoordinator coordinator =
+            new SearchCoordinator(job, 0, job.newTopK(), null);
+        try {
+            CompletableFuture.runAsync(coordinator::run);
+            new SearchWorker(other, coordinator.host(), coordinator.port())
+                .run();
+        } finally {
+            coordinator.close();
+        }
+    }
+
+}
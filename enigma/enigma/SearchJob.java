@@ -0,0 +1,272 @@
+package enigma;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static enigma.EnigmaException.*;
+
+/** A key search over a configuration, split into numbered work units.
+ *  Each unit is one choice of reflector and rotor order; within a unit,
+ *  every start position is tried with ring settings at the first letter
+ *  and an empty plugboard.  The units are numbered as in
+ *  Configuration.rotorOrders.  Trials are scored with a TrialScorer,
+ *  against a crib if one is given and by English letter frequencies
+ *  otherwise.  A crib whose offset is not known is tried at each offset
+ *  where CribFinder says it can lie, and a trial scores as its best
+ *  placement.
+ *
+ *  A trial is identified by a long key: its unit times the number of
+ *  start positions, plus its start positions read as a number in base
+ *  alphabet size.
+ *  @author Sahil Gupta
+ */
+class SearchJob {
+
+    /** A search for the key of CIPHERTEXT, whose characters must be in
+     *  the alphabet of CONFIG, keeping the best TOP trials.  CRIB, if not
+     *  null, is a known plaintext at offset CRIBOFFSET, or at any offset
+     *  where it can lie if CRIBOFFSET is ANY_OFFSET. */
+    SearchJob(Configuration config, String ciphertext, String crib,
+              int cribOffset, int top) {
+        _config = config;
+        _alphabet = config.alphabet();
+        _ciphertext = ciphertext;
+        _cipher = TrialScorer.letters(_alphabet, ciphertext);
+        _crib = crib;
+        if (crib == null) {
+            _cribOffsets = new int[0];
+        } else if (cribOffset == ANY_OFFSET) {
+            _cribOffsets = new CribFinder(_alphabet, ciphertext)
+                .placements(crib);
+            if (_cribOffsets.length == 0) {
+                throw error("crib %s cannot lie anywhere in the ciphertext",
+                            crib);
+            }
+        } else {
+            _cribOffsets = new int[] { cribOffset };
+        }
+        _top = top;
+        _units = config.rotorOrders();
+        long positions = 1;
+        for (int i = 1; i < config.numRotors(); i += 1) {
+            positions *= _alphabet.size();
+        }
+        _positions = positions;
+        if (_units.size() > Long.MAX_VALUE / _positions) {
+            throw new EnigmaException("Search space too large.");
+        }
+        _floor = crib == null
+            ? scorers()[0].floor(_cipher.length, FLOOR_SLACK)
+            : crib.length() / 2;
+    }
+
+    /** Return new scorers for my trials, one per crib placement. */
+    private TrialScorer[] scorers() {
+        if (_crib == null) {
+            return new TrialScorer[] { TrialScorer.english(_alphabet) };
+        }
+        TrialScorer[] result = new TrialScorer[_cribOffsets.length];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = TrialScorer.crib(_alphabet, _crib, _cribOffsets[i],
+                                         _cipher.length);
+        }
+        return result;
+    }
+
+    /** Return the number of work units. */
+    int units() {
+        return _units.size();
+    }
+
+    /** Return the number of trials in each work unit. */
+    long trialsPerUnit() {
+        return _positions;
+    }
+
+    /** Return a new, empty collection for my best trials. */
+    TopK newTopK() {
+        return new TopK(_top, _floor);
+    }
+
+    /** Return a string identifying this job, which differs between jobs
+     *  that would give different results: it is a digest of the whole
+     *  configuration, the ciphertext, the crib and its offsets, and the
+     *  top count. */
+    String id() {
+        return Configuration.digest(_config.id() + "|" + _ciphertext + "|"
+                                    + _crib + "|"
+                                    + Arrays.toString(_cribOffsets) + "|"
+                                    + _top);
+    }
+
+    /** Try every trial of work unit UNIT, using the threshold of GLOBAL,
+     *  which may be shared with other threads, to abandon hopeless trials
+     *  early.  Returns the best trials of the unit that beat GLOBAL's
+     *  threshold, without offering them to GLOBAL. */
+    TopK runUnit(int unit, TopK global) {
+        Machine machine = _config.newMachine();
+        machine.insertRotors(_units.get(unit));
+        machine.setRingSetting(repeat(_alphabet.toChar(0),
+                                      machine.numRotors() - 1));
+        if (_streams) {
+            return runStreams(unit, machine, global);
+        }
+        PositionTables tables = _tablesDir == null ? null
+            : PositionTables.find(machine, _tablesDir);
+        TrialEnumerator trials = new TrialEnumerator(machine,
+                                                     _cipher.length, tables);
+        TrialScorer[] scorers = scorers();
+        TopK local = newTopK();
+        long base = unit * _positions, index = 0;
+        do {
+            int threshold = Math.max(local.threshold(), global.threshold());
+            int score = TrialScorer.REJECTED;
+            for (TrialScorer scorer : scorers) {
+                int placed = scorer.score(trials, _cipher,
+                                          Math.max(threshold, score));
+                if (placed != TrialScorer.REJECTED) {
+                    score = placed;
+                }
+            }
+            if (score != TrialScorer.REJECTED) {
+                local.offer(score, base + index);
+            }
+            index += 1;
+        } while (trials.next());
+        return local;
+    }
+
+    /** As for runUnit, but decrypting the trials of UNIT, whose rotors
+     *  and ring settings are those of MACHINE, with a StreamEngine, one
+     *  trial per stream, in batches of STREAM_BATCH streams per lane.
+     *  Only the prefix of the ciphertext that my scorers weigh is
+     *  decrypted.  The trials are scored and offered in order, so the
+     *  result is that of runUnit without streams. */
+    private TopK runStreams(int unit, Machine machine, TopK global) {
+        StreamEngine engine = StreamEngine.create(machine);
+        TrialScorer[] scorers = scorers();
+        TopK local = newTopK();
+        int k = machine.numRotors() - 1, n = _alphabet.size();
+        int prefix = _cipher.length;
+        if (_crib != null) {
+            prefix = _cribOffsets[_cribOffsets.length - 1] + _crib.length();
+        }
+        int batch = (int) Math.min(_positions,
+                                   (long) engine.lanes() * STREAM_BATCH);
+        int[][] plain = new int[batch][prefix], settings = new int[batch][k];
+        long base = unit * _positions;
+        for (long first = 0; first < _positions; first += batch) {
+            int count = (int) Math.min(batch, _positions - first);
+            if (count < batch) {
+                plain = Arrays.copyOf(plain, count);
+                settings = Arrays.copyOf(settings, count);
+            }
+            for (int i = 0; i < count; i += 1) {
+                System.arraycopy(_cipher, 0, plain[i], 0, prefix);
+                long index = first + i;
+                for (int j = k - 1; j >= 0; j -= 1) {
+                    settings[i][j] = (int) (index % n);
+                    index /= n;
+                }
+            }
+            engine.convert(plain, settings);
+            for (int i = 0; i < count; i += 1) {
+                int threshold =
+                    Math.max(local.threshold(), global.threshold());
+                int score = TrialScorer.REJECTED;
+                for (TrialScorer scorer : scorers) {
+                    int placed = scorer.score(plain[i],
+                                              Math.max(threshold, score));
+                    if (placed != TrialScorer.REJECTED) {
+                        score = placed;
+                    }
+                }
+                if (score != TrialScorer.REJECTED) {
+                    local.offer(score, base + first + i);
+                }
+            }
+        }
+        return local;
+    }
+
+    /** Decrypt trials with a StreamEngine iff STREAMS, rather than with
+     *  a TrialEnumerator.  The results are the same either way. */
+    void setStreams(boolean streams) {
+        _streams = streams;
+    }
+
+    /** Have the TrialEnumerator of each unit read the composites of its
+     *  slow rotors from PositionTables kept in directory DIR (built there
+     *  as needed), if DIR is not null.  The results are the same either
+     *  way. */
+    void setTables(File dir) {
+        _tablesDir = dir;
+    }
+
+    /** Return the settings line, in the format read by Main, of the trial
+     *  with the given KEY. */
+    String describe(long key) {
+        return _config.settings(_units.get((int) (key / _positions)),
+                                key % _positions);
+    }
+
+    /** Return the decryption of my ciphertext by the trial with KEY. */
+    String decrypt(long key) {
+        Machine machine = _config.newMachine();
+        _config.setUp(machine, describe(key));
+        return machine.convert(_ciphertext);
+    }
+
+    /** Return a string of N copies of C. */
+    private static String repeat(char c, int n) {
+        return String.valueOf(c).repeat(n);
+    }
+
+    /** Number of trials per vector lane decrypted at once by
+     *  runStreams. */
+    private static final int STREAM_BATCH = 256;
+
+    /** Crib offset standing for every offset where the crib can lie. */
+    static final int ANY_OFFSET = -1;
+
+    /** Fraction by which the floor for English scoring falls below the
+     *  expected score of a correct decryption. */
+    private static final double FLOOR_SLACK = 0.1;
+
+    /** The configuration searched. */
+    private final Configuration _config;
+
+    /** Its alphabet. */
+    private final Alphabet _alphabet;
+
+    /** The ciphertext. */
+    private final String _ciphertext;
+
+    /** The letter indices of the ciphertext. */
+    private final int[] _cipher;
+
+    /** The crib, or null. */
+    private final String _crib;
+
+    /** Offsets at which the crib is tried. */
+    private final int[] _cribOffsets;
+
+    /** Number of best trials kept. */
+    private final int _top;
+
+    /** Rotor names, reflector first, of each work unit. */
+    private final List<String[]> _units;
+
+    /** Number of start positions in each unit. */
+    private final long _positions;
+
+    /** Score every kept trial must exceed. */
+    private final int _floor;
+
+    /** True iff trials are decrypted with a StreamEngine. */
+    private boolean _streams;
+
+    /** Directory of PositionTables for the TrialEnumerator, or null. */
+    private File _tablesDir;
+}
@@ -0,0 +1,199 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+/** Tests of SearchJob and SearchJournal.
+ *  @author Sahil Gupta
+ */
+public class SearchJobTest {
+
+    /** Settings used to encrypt the test message. */
+    static final String SETTINGS = "* B Beta IV I III QRST";
+
+    /** The test message. */
+    static final String PLAIN =
+        "WEATHERREPORTFORTHENORTHSEASECTORWINDSFROMTHEWESTRISING";
+
+    /** Known plaintext at the start of PLAIN. */
+    static final String CRIB = "WEATHERREPORT";
+
+    /** Return a configuration for the tests. */
+    static Configuration config() {
+        return new Configuration(new Scanner(EnigmaProcessorTest.CONFIG));
+    }
+
+    /** Return the encryption of PLAIN under SETTINGS. */
+    static String cipher() {
+        Configuration config = config();
+        Machine M = config.newMachine();
+        config.setUp(M, SETTINGS);
+        return M.convert(PLAIN);
+    }
+
+    /** Return a job finding the key of cipher() from CRIB. */
+    static SearchJob job() {
+        return new SearchJob(config(), cipher(), CRIB, 0, 3);
+    }
+
+    /** Return the best trials found by running each unit of JOB, from
+     *  unit FIRST onward, into BEST, recording them in JOURNAL if not
+     *  null. */
+    static TopK run(SearchJob job, int first, TopK best,
+                    SearchJournal journal) {
+        for (int unit = first; unit < job.units(); unit += 1) {
+            TopK found = job.runUnit(unit, best);
+            if (journal != null) {
+                journal.record(unit, found);
+            }
+            best.addAll(found);
+        }
+        return best;
+    }
+
+    @Test
+    public void testUnits() {
+        SearchJob job = job();
+        assertEquals(6, job.units());
+        assertEquals(26 * 26 * 26 * 26, job.trialsPerUnit());
+    }
+
+    @Test
+    public void testFindsKey() {
+        SearchJob job = job();
+        TopK best = run(job, 0, job.newTopK(), null);
+        assertEquals(SETTINGS, job.describe(best.keys()[0]));
+        assertEquals(PLAIN, job.decrypt(best.keys()[0]));
+    }
+
+    @Test
+    public void testAnyCribOffset() {
+        long key = run(job(), 0, job().newTopK(), null).keys()[0];
+        SearchJob job = new SearchJob(config(), cipher(), "NORTHSEA",
+                                      SearchJob.ANY_OFFSET, 3);
+        assertNotEquals(job().id(), job.id());
+        TopK best = job.runUnit((int) (key / job.trialsPerUnit()),
+                                job.newTopK());
+        assertEquals(SETTINGS, job.describe(best.keys()[0]));
+        assertEquals(PLAIN, job.decrypt(best.keys()[0]));
+    }
+
+    @Test
+    public void testStreams() {
+        for (SearchJob job : new SearchJob[] {
+                job(), new SearchJob(config(), cipher(), "NORTHSEA",
+                                     SearchJob.ANY_OFFSET, 3) }) {
+            TopK plain = job.runUnit(1, job.newTopK());
+            job.setStreams(true);
+            TopK streamed = job.runUnit(1, job.newTopK());
+            assertArrayEquals(plain.scores(), streamed.scores());
+            assertArrayEquals(plain.keys(), streamed.keys());
+        }
+    }
+
+    @Test
+    public void testTables() throws IOException {
+        File dir = Files.createTempDirectory("tables").toFile();
+        try {
+            SearchJob job = job();
+            TopK plain = job.runUnit(1, job.newTopK());
+            job.setTables(dir);
+            for (int round = 0; round < 2; round += 1) {
+                TopK mapped = job.runUnit(1, job.newTopK());
+                assertArrayEquals(plain.scores(), mapped.scores());
+                assertArrayEquals(plain.keys(), mapped.keys());
+                assertEquals(1, dir.list().length);
+            }
+        } finally {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        SearchJob job = job();
+        TopK full = run(job, 0, job.newTopK(), null);
+        File file = File.createTempFile("search", ".journal");
+        file.delete();
+        try {
+            TopK first = job.newTopK();
+            SearchJournal journal = new SearchJournal(file, job.id(), first);
+            run(job, job.units() - 2, first, journal);
+            journal.close();
+            try (FileWriter torn = new FileWriter(file, true)) {
+                torn.write("done 0 12:3");
+            }
+
+            TopK resumed = job.newTopK();
+            journal = new SearchJournal(file, job.id(), resumed);
+            assertEquals(2, journal.done().cardinality());
+            assertTrue(journal.done().get(job.units() - 1));
+            assertFalse(journal.done().get(0));
+            for (int unit = 0; unit < job.units(); unit += 1) {
+                if (!journal.done().get(unit)) {
+                    TopK found = job.runUnit(unit, resumed);
+                    journal.record(unit, found);
+                    resumed.addAll(found);
+                }
+            }
+            journal.close();
+            assertEquals(job.units(), new SearchJournal(file, job.id(),
+                                                        job.newTopK())
+                         .done().cardinality());
+            assertArrayEquals(full.scores(), resumed.scores());
+            assertEquals(full.keys()[0], resumed.keys()[0]);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void testWrongJob() throws IOException {
+        File file = File.createTempFile("search", ".journal");
+        try {
+            new SearchJournal(file, "a", new TopK(1)).close();
+            new SearchJournal(file, "b", new TopK(1));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testTornHeader() throws IOException {
+        SearchJob job = job();
+        File file = File.createTempFile("search", ".journal");
+        try {
+            try (FileWriter out = new FileWriter(file)) {
+                out.write("job " + job.id().substring(0, 5));
+            }
+            new SearchJournal(file, job.id(), new TopK(1)).close();
+            SearchJournal journal =
+                new SearchJournal(file, job.id(), new TopK(1));
+            assertTrue(journal.done().isEmpty());
+            journal.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testIdCoversWiring() {
+        String edited = EnigmaProcessorTest.CONFIG.replace("(BKNW)", "(BKWN)");
+        SearchJob other = new SearchJob(new Configuration(new Scanner(edited)),
+                                        cipher(), CRIB, 0, 3);
+        assertEquals(job().id(), job().id());
+        assertNotEquals(job().id(), other.id());
+        assertEquals(Configuration.ID_LENGTH, config().id().length());
+    }
+
+}
@@ -0,0 +1,157 @@
+package enigma;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+import static enigma.EnigmaException.*;
+
+/** An append-only record of the progress of a SearchJob.  The first line
+ *  names the job; each later line records one finished work unit and the
+ *  trials it found worth keeping:
+ *
+ *      done UNIT SCORE:KEY SCORE:KEY ...
+ *
+ *  Each line is written in a single call and forced to disk before the
+ *  unit counts as finished, so a crash loses at most the units being
+ *  worked on.  A torn last line is discarded on restart; a journal whose
+ *  first line is torn is begun afresh.
+ *  @author Sahil Gupta
+ */
+class SearchJournal {
+
+    /** A journal in FILE for the job identified by JOBID.  If FILE
+     *  already records progress on that job, mark its finished units in
+     *  done() and offer the trials it records to BEST. */
+    SearchJournal(File file, String jobId, TopK best) {
+        _done = new BitSet();
+        try {
+            long length = file.exists() ? readExisting(file, jobId, best)
+                : 0;
+            boolean fresh = length == 0;
+            _channel = FileChannel.open(file.toPath(),
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.WRITE);
+            _channel.truncate(length);
+            _channel.position(length);
+            if (fresh) {
+                append("job " + jobId);
+            }
+        } catch (IOException excp) {
+            throw error("could not open journal %s", file);
+        }
+    }
+
+    /** Read the journal FILE for job JOBID, recording its finished units
+     *  and offering its trials to BEST.  Returns the length of the
+     *  complete lines of FILE, which is 0 if not even the first line is
+     *  complete (a crash while the header was being written). */
+    private long readExisting(File file, String jobId, TopK best)
+        throws IOException {
+        String text = new String(Files.readAllBytes(file.toPath()),
+                                 StandardCharsets.UTF_8);
+        String[] lines = text.split("\n", -1);
+        if (lines.length == 1) {
+            return 0;
+        }
+        if (!lines[0].equals("job " + jobId)) {
+            throw error("journal %s belongs to a different job", file);
+        }
+        for (int i = 1; i < lines.length - 1; i += 1) {
+            int unit = parseUnit(lines[i], best);
+            if (unit >= 0) {
+                _done.set(unit);
+            }
+        }
+        return text.length() - lines[lines.length - 1].length();
+    }
+
+    /** Return the line recording that UNIT finished, having found the
+     *  trials in FOUND. */
+    static String unitLine(int unit, TopK found) {
+        StringBuilder line = new StringBuilder("done ").append(unit);
+        int[] scores = found.scores();
+        long[] keys = found.keys();
+        for (int i = 0; i < scores.length; i += 1) {
+            line.append(' ').append(scores[i]).append(':').append(keys[i]);
+        }
+        return line.toString();
+    }
+
+    /** Offer the trials recorded on LINE, as written by unitLine, to BEST
+     *  and return its unit, or return -1 without offering anything if
+     *  LINE is malformed. */
+    static int parseUnit(String line, TopK best) {
+        String[] fields = line.trim().split(" ");
+        if (fields.length < 2 || !fields[0].equals("done")) {
+            return -1;
+        }
+        int unit;
+        int[] scores = new int[fields.length - 2];
+        long[] keys = new long[fields.length - 2];
+        try {
+            for (int i = 2; i < fields.length; i += 1) {
+                int colon = fields[i].indexOf(':');
+                scores[i - 2] = Integer.parseInt(fields[i]
+                                                 .substring(0, colon));
+                keys[i - 2] = Long.parseLong(fields[i]
+                                             .substring(colon + 1));
+            }
+            unit = Integer.parseInt(fields[1]);
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            return -1;
+        }
+        if (unit < 0) {
+            return -1;
+        }
+        for (int i = 0; i < scores.length; i += 1) {
+            best.offer(scores[i], keys[i]);
+        }
+        return unit;
+    }
+
+    /** Return the set of units recorded as finished. */
+    synchronized BitSet done() {
+        return (BitSet) _done.clone();
+    }
+
+    /** Record that UNIT is finished, having found the trials in FOUND. */
+    synchronized void record(int unit, TopK found) {
+        try {
+            append(unitLine(unit, found));
+        } catch (IOException excp) {
+            throw error("could not write journal: %s", excp.getMessage());
+        }
+        _done.set(unit);
+    }
+
+    /** Append LINE and a newline to the journal and force it to disk. */
+    private void append(String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((line + "\n")
+                                           .getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            _channel.write(bytes);
+        }
+        _channel.force(false);
+    }
+
+    /** Close the journal. */
+    synchronized void close() {
+        try {
+            _channel.close();
+        } catch (IOException excp) {
+            throw error("could not close journal");
+        }
+    }
+
+    /** Units recorded as finished. */
+    private final BitSet _done;
+
+    /** Channel appending to the journal. */
+    private FileChannel _channel;
+}
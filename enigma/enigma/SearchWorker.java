@@ -0,0 +1,74 @@
+package enigma;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static enigma.EnigmaException.*;
+
+/** Runs work units of a SearchJob handed out by a SearchCoordinator.
+ *  @author Sahil Gupta
+ */
+class SearchWorker {
+
+    /** A worker on JOB for the coordinator at HOST:PORT.  JOB must have
+     *  the same configuration, ciphertext, crib, and top count as the
+     *  coordinator's. */
+    SearchWorker(SearchJob job, String host, int port) {
+        _job = job;
+        _host = host;
+        _port = port;
+    }
+
+    /** Run units until the coordinator says to quit, and return the
+     *  number run. */
+    int run() {
+        int count = 0;
+        try (Socket socket = new Socket(_host, _port);
+             BufferedReader in = new BufferedReader(
+                 new InputStreamReader(socket.getInputStream(),
+                                       StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(
+                 new OutputStreamWriter(socket.getOutputStream(),
+                                        StandardCharsets.UTF_8))) {
+            out.print("hello " + _job.id() + "\n");
+            out.flush();
+            while (true) {
+                String line = in.readLine();
+                if (line == null) {
+                    throw error("coordinator closed connection");
+                } else if (line.equals("quit")) {
+                    return count;
+                }
+                String[] fields = line.split(" ");
+                if (fields.length != 3 || !fields[0].equals("unit")) {
+                    throw error("coordinator: %s", line);
+                }
+                int unit = Integer.parseInt(fields[1]);
+                TopK bound = new TopK(1, Integer.parseInt(fields[2]));
+                TopK found = _job.runUnit(unit, bound);
+                out.print(SearchJournal.unitLine(unit, found) + "\n");
+                out.flush();
+                count += 1;
+            }
+        } catch (NumberFormatException excp) {
+            throw error("bad unit from coordinator");
+        } catch (IOException excp) {
+            throw error("lost coordinator at %s:%d: %s", _host, _port,
+                        excp.getMessage());
+        }
+    }
+
+    /** The job. */
+    private final SearchJob _job;
+
+    /** Coordinator host. */
+    private final String _host;
+
+    /** Coordinator port. */
+    private final int _port;
+}
@@ -0,0 +1,249 @@
+package enigma;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static enigma.EnigmaException.*;
+
+/** Converts the segments of a message file (each a settings line and the
+ *  message lines after it) as the streams of a StreamEngine, for Main's
+ *  --streams option.  Consecutive segments whose machines differ only in
+ *  their rotor positions are collected into a group and converted
+ *  together, one segment per stream, and their lines are then printed in
+ *  input order, in groups of five.  A group is converted when the next
+ *  segment needs another machine, or when it holds MAX_SEGMENTS segments
+ *  or MAX_CHARS characters; a segment longer than that is converted in
+ *  pieces, each continuing from the rotor positions the last left.
+ *  @author Sahil Gupta
+ */
+class SegmentStreams {
+
+    /** Streams printing to OUTPUT.  Characters that CLASSIFIER, if not
+     *  null, does not take as letters are copied unchanged, as for
+     *  --passthrough; otherwise, every character must be in the
+     *  alphabet. */
+    SegmentStreams(PrintStream output, CharClassifier classifier) {
+        _output = output;
+        _classifier = classifier;
+        _segments = new ArrayList<>();
+        _engines = new HashMap<>();
+    }
+
+    /** Begin a new segment, to be converted by M as it is now set. */
+    void start(Machine M) {
+        String key = M.wiringKey();
+        if (!key.equals(_key) || _segments.size() == MAX_SEGMENTS) {
+            flush();
+        }
+        if (!key.equals(_key)) {
+            if (_engines.size() == MAX_ENGINES) {
+                _engines.clear();
+            }
+            _engine = _engines.computeIfAbsent(key,
+                                               k -> StreamEngine.create(M));
+            _key = key;
+            _alphabet = M.alphabet();
+        }
+        int[] settings = new int[M.numRotors() - 1];
+        for (int j = 1; j < M.numRotors(); j += 1) {
+            settings[j - 1] = M.rotor(j).setting();
+        }
+        _segments.add(new Segment(settings));
+    }
+
+    /** Add the first N characters of BUF, which contain no blanks, to the
+     *  current message line of the current segment. */
+    void add(char[] buf, int n) {
+        Segment segment = _segments.get(_segments.size() - 1);
+        char[] chars = Arrays.copyOf(buf, n);
+        if (_indices.length < n) {
+            _indices = new int[n];
+        }
+        int k;
+        if (_classifier == null) {
+            for (int i = 0; i < n; i += 1) {
+                _indices[i] = _alphabet.index(chars[i]);
+                if (_indices[i] == -1) {
+                    throw error("Character \"%c\" is not in the alphabet.",
+                                chars[i]);
+                }
+            }
+            k = n;
+        } else {
+            k = _classifier.letters(chars, n, _indices);
+        }
+        segment.add(chars, _indices, k);
+        _chars += n;
+        if (_chars >= MAX_CHARS) {
+            flush();
+            segment.clear();
+            _segments.add(segment);
+        }
+    }
+
+    /** End the current message line of the current segment. */
+    void endLine() {
+        _segments.get(_segments.size() - 1).add(null, _indices, 0);
+    }
+
+    /** Convert and print every segment added so far. */
+    void flush() {
+        if (_segments.isEmpty()) {
+            return;
+        }
+        int[][] messages = new int[_segments.size()][];
+        int[][] settings = new int[_segments.size()][];
+        for (int i = 0; i < messages.length; i += 1) {
+            messages[i] = _segments.get(i).letters();
+            settings[i] = _segments.get(i).settings();
+        }
+        _engine.convert(messages, settings);
+        for (int i = 0; i < messages.length; i += 1) {
+            print(_segments.get(i), messages[i]);
+        }
+        _segments.clear();
+        _chars = 0;
+    }
+
+    /** Print the lines of SEGMENT, whose letters have been converted to
+     *  those in CONVERTED. */
+    private void print(Segment segment, int[] converted) {
+        int p = 0;
+        for (char[] chars : segment.pieces()) {
+            if (chars == null) {
+                _output.println();
+                _group = 0;
+                continue;
+            }
+            if (_classifier == null) {
+                for (int i = 0; i < chars.length; i += 1) {
+                    chars[i] = _alphabet.toChar(converted[p + i]);
+                }
+                p += chars.length;
+            } else {
+                int k = _classifier.letters(chars, chars.length, _indices);
+                System.arraycopy(converted, p, _indices, 0, k);
+                _classifier.merge(chars, chars.length, _indices);
+                p += k;
+            }
+            _grouped.setLength(0);
+            for (char c : chars) {
+                if (_group == GROUP_SIZE) {
+                    _grouped.append(' ');
+                    _group = 0;
+                }
+                _grouped.append(c);
+                _group += 1;
+            }
+            _output.append(_grouped);
+        }
+    }
+
+    /** The message text of one segment not yet converted. */
+    private static final class Segment {
+
+        /** A segment whose rotors (not counting the reflector) start at
+         *  core settings SETTINGS. */
+        Segment(int[] settings) {
+            _settings = settings;
+            _pieces = new ArrayList<>();
+            _letters = new int[INITIAL_LETTERS];
+        }
+
+        /** Add the characters CHARS, whose letters have the alphabet
+         *  indices in the first K elements of INDICES, or, if CHARS is
+         *  null, an end of line. */
+        void add(char[] chars, int[] indices, int k) {
+            _pieces.add(chars);
+            if (_count + k > _letters.length) {
+                _letters = Arrays.copyOf(_letters,
+                                         Math.max(2 * _letters.length,
+                                                  _count + k));
+            }
+            System.arraycopy(indices, 0, _letters, _count, k);
+            _count += k;
+        }
+
+        /** Drop the text added so far, keeping the settings. */
+        void clear() {
+            _pieces.clear();
+            _count = 0;
+        }
+
+        /** Return the characters added, with null for each end of
+         *  line. */
+        ArrayList<char[]> pieces() {
+            return _pieces;
+        }
+
+        /** Return a new array of the letters added. */
+        int[] letters() {
+            return Arrays.copyOf(_letters, _count);
+        }
+
+        /** Return the core settings at which the letters not yet
+         *  converted start.  The array is updated in place when they are
+         *  converted. */
+        int[] settings() {
+            return _settings;
+        }
+
+        /** Core settings at the start of the text. */
+        private final int[] _settings;
+        /** Characters added, with null for each end of line. */
+        private final ArrayList<char[]> _pieces;
+        /** Alphabet indices of the letters added. */
+        private int[] _letters;
+        /** Number of letters added. */
+        private int _count;
+    }
+
+    /** Largest number of segments converted at once. */
+    static final int MAX_SEGMENTS = 1 << 10;
+
+    /** Number of characters collected before a group is converted. */
+    static final int MAX_CHARS = 1 << 20;
+
+    /** Largest number of engines kept for reuse. */
+    private static final int MAX_ENGINES = 16;
+
+    /** Initial room for the letters of a segment. */
+    private static final int INITIAL_LETTERS = 64;
+
+    /** Number of characters per group in output messages. */
+    private static final int GROUP_SIZE = 5;
+
+    /** Destination of converted lines. */
+    private final PrintStream _output;
+
+    /** Classifies characters for --passthrough, or null. */
+    private final CharClassifier _classifier;
+
+    /** Segments collected for the current group, in order. */
+    private final ArrayList<Segment> _segments;
+
+    /** Engines built so far, by Machine.wiringKey. */
+    private final HashMap<String, StreamEngine> _engines;
+
+    /** Machine.wiringKey of the current group. */
+    private String _key;
+    /** Engine converting the current group. */
+    private StreamEngine _engine;
+    /** Alphabet of the current group. */
+    private Alphabet _alphabet;
+
+    /** Number of characters added to the current group. */
+    private long _chars;
+
+    /** Number of characters in the last group printed of the current
+     *  line. */
+    private int _group;
+
+    /** Scratch space for alphabet indices. */
+    private int[] _indices = new int[0];
+
+    /** Reusable buffer for formatting output. */
+    private final StringBuilder _grouped = new StringBuilder();
+}
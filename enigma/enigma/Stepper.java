@@ -0,0 +1,93 @@
+package enigma;
+
+import java.util.Arrays;
+
+import static enigma.Rotor.mod;
+
+/** The stepping rule of a machine's inserted rotors, applied to arrays
+ *  of core settings rather than to the rotors themselves, so that tools
+ *  can follow the rotors through a message without disturbing the
+ *  machine.  A core setting is a rotor's position less its ring setting,
+ *  as kept by Rotor.setting() after Machine.setRingSetting.
+ *  @author Sahil Gupta
+ */
+class Stepper {
+
+    /** A stepper for the rotors currently inserted in MACHINE. */
+    Stepper(Machine machine) {
+        _k = machine.numRotors();
+        _n = machine.alphabet().size();
+        _rotates = new boolean[_k];
+        _notch = new boolean[_k][_n];
+        for (int j = 0; j < _k; j += 1) {
+            Rotor rotor = machine.rotor(j);
+            _rotates[j] = rotor.rotates();
+            for (int notch : rotor.notches()) {
+                _notch[j][notch] = true;
+            }
+        }
+        _moved = new boolean[_k];
+    }
+
+    /** Return the number of rotor slots, including the reflector. */
+    int numRotors() {
+        return _k;
+    }
+
+    /** Return true iff slot J has a pawl. */
+    boolean rotates(int j) {
+        return _rotates[j];
+    }
+
+    /** Return true iff slot J has at least one notch. */
+    boolean hasNotches(int j) {
+        for (boolean b : _notch[j]) {
+            if (b) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return true iff slot J, at core setting S with ring setting R, is
+     *  at one of its notches. */
+    boolean atNotch(int j, int s, int r) {
+        return _notch[j][mod(s + r, _n)];
+    }
+
+    /** Advance the core settings S (indexed by slot, S[0] being the
+     *  reflector's) by one step, where RINGS[j - 1] is the ring setting of
+     *  slot J.  Mirrors Machine.rotate. */
+    void step(int[] s, int[] rings) {
+        Arrays.fill(_moved, false);
+        for (int i = 0; i < _k - 1; i += 1) {
+            if (_rotates[i] && !_moved[i]
+                && atNotch(i + 1, s[i + 1], rings[i])) {
+                s[i] = (s[i] + 1) % _n;
+                _moved[i] = true;
+                if (_rotates[i + 1]) {
+                    s[i + 1] = (s[i + 1] + 1) % _n;
+                    _moved[i + 1] = true;
+                }
+            }
+        }
+        if (!_moved[_k - 1] && _rotates[_k - 1]) {
+            s[_k - 1] = (s[_k - 1] + 1) % _n;
+        }
+    }
+
+    /** Number of rotor slots, including the reflector. */
+    private final int _k;
+
+    /** Alphabet size. */
+    private final int _n;
+
+    /** _rotates[j] is true iff slot J has a pawl. */
+    private final boolean[] _rotates;
+
+    /** _notch[j][c] is true iff slot J has a notch at letter C. */
+    private final boolean[][] _notch;
+
+    /** Slots moved during the current step. */
+    private final boolean[] _moved;
+}
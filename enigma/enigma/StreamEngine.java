@@ -0,0 +1,94 @@
+package enigma;
+
+/** Converts many independent streams of letter indices with one machine
+ *  configuration (rotors, ring settings, and plugboard), each stream
+ *  starting from its own rotor positions, as for batches of short
+ *  messages or for trial decryptions in a search.  Use create to get the
+ *  fastest engine this JVM supports: one that converts a stream per
+ *  vector lane when the jdk.incubator.vector module is present (run with
+ *  --add-modules jdk.incubator.vector), and otherwise one that converts
+ *  the streams one after another.
+ *  @author Sahil Gupta
+ */
+abstract class StreamEngine {
+
+    /** Return an engine for the rotors, ring settings, and plugboard
+     *  currently set in MACHINE. */
+    static StreamEngine create(Machine machine) {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (StreamEngine) Class.forName(VECTOR_ENGINE)
+                    .getDeclaredConstructor(Machine.class)
+                    .newInstance(machine);
+            } catch (ReflectiveOperationException | LinkageError excp) {
+                /* Fall back to the scalar engine. */
+            }
+        }
+        return new ScalarStreamEngine(machine);
+    }
+
+    /** Tables for the configuration of MACHINE. */
+    StreamEngine(Machine machine) {
+        _k = machine.numRotors();
+        _n = machine.alphabet().size();
+        _plug = machine.plugboard().table();
+        _plugInv = Permutation.inverse(_plug, new int[_n]);
+        _reflector = new int[_n];
+        for (int c = 0; c < _n; c += 1) {
+            _reflector[c] = machine.rotor(0).convertForward(c);
+        }
+        _fwd = new int[_k][];
+        _bwd = new int[_k][];
+        _rotates = new boolean[_k];
+        _notches = new int[_k][];
+        for (int j = 0; j < _k; j += 1) {
+            Rotor rotor = machine.rotor(j);
+            _rotates[j] = rotor.rotates();
+            _notches[j] = rotor.notchSettings();
+            if (j > 0) {
+                _fwd[j] = rotor.permutation().shifts(false);
+                _bwd[j] = rotor.permutation().shifts(true);
+            }
+        }
+    }
+
+    /** Convert each of MESSAGES in place, which may differ in length.
+     *  SETTINGS[i] holds the core settings (Rotor.setting()) of the
+     *  rotors, leftmost first and not counting the reflector, at the
+     *  start of MESSAGES[i]; it is updated to their settings at the
+     *  end. */
+    abstract void convert(int[][] messages, int[][] settings);
+
+    /** Return the number of streams converted at once. */
+    abstract int lanes();
+
+    /** Name of the module providing the Vector API. */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /** Name of the engine that uses it, loaded only when it is present. */
+    private static final String VECTOR_ENGINE = "enigma.VectorStreamEngine";
+
+    /** Number of rotor slots, including the reflector. */
+    final int _k;
+
+    /** Alphabet size. */
+    final int _n;
+
+    /** The plugboard and its inverse. */
+    final int[] _plug, _plugInv;
+
+    /** The reflector at its setting. */
+    final int[] _reflector;
+
+    /** _fwd[j][s * _n + c] and _bwd[j][s * _n + c] are the forward and
+     *  backward conversions of C by slot J (J > 0) at core setting S,
+     *  shared with the slot's Permutation. */
+    final int[][] _fwd, _bwd;
+
+    /** _rotates[j] is true iff slot J has a pawl. */
+    final boolean[] _rotates;
+
+    /** _notches[j] holds the core settings at which slot J is at a
+     *  notch. */
+    final int[][] _notches;
+}
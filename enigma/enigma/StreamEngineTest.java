@@ -0,0 +1,77 @@
+package enigma;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+import static enigma.TestUtils.*;
+
+/** Tests of StreamEngine and its implementations.
+ *  @author Sahil Gupta
+ */
+public class StreamEngineTest {
+
+    /** Check that ENGINE, built from M, converts a batch of random
+     *  messages of random lengths and start positions as M does. */
+    private void checkBatch(Machine M, StreamEngine engine) {
+        Random random = new Random(engine.lanes());
+        int streams = 3 * engine.lanes() + 1, size = M.alphabet().size();
+        int[][] messages = new int[streams][], settings = new int[streams][];
+        int[][] expected = new int[streams][];
+        for (int m = 0; m < streams; m += 1) {
+            messages[m] = new int[random.nextInt(200)];
+            expected[m] = new int[messages[m].length];
+            settings[m] = new int[M.numRotors() - 1];
+            for (int j = 1; j < M.numRotors(); j += 1) {
+                settings[m][j - 1] = M.rotor(j).rotates()
+                    ? random.nextInt(size) : M.rotor(j).setting();
+                M.rotor(j).set(settings[m][j - 1]);
+            }
+            for (int t = 0; t < messages[m].length; t += 1) {
+                messages[m][t] = random.nextInt(size);
+                expected[m][t] = M.convert(messages[m][t]);
+            }
+            int[] end = new int[M.numRotors() - 1];
+            for (int j = 1; j < M.numRotors(); j += 1) {
+                end[j - 1] = M.rotor(j).setting();
+            }
+            expected[m] = concat(expected[m], end);
+        }
+        engine.convert(messages, settings);
+        for (int m = 0; m < streams; m += 1) {
+            assertArrayEquals("stream " + m, expected[m],
+                              concat(messages[m], settings[m]));
+        }
+    }
+
+    /** Return A followed by B. */
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /** Return the naval machine with ring settings and a plugboard. */
+    private Machine machine() {
+        Machine M = navalMachine();
+        M.setRingSetting("BCDE");
+        M.setPlugboard(new Permutation("(YF) (ZH) (AQ)", UPPER));
+        return M;
+    }
+
+    @Test
+    public void testScalar() {
+        Machine M = machine();
+        checkBatch(M, new ScalarStreamEngine(M));
+    }
+
+    @Test
+    public void testCreate() {
+        Machine M = machine();
+        checkBatch(M, StreamEngine.create(M));
+    }
+
+}
@@ -0,0 +1,111 @@
+package enigma;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** The K best-scoring trials of a search, each identified by a long key
+ *  such as a packed machine state (see Machine.encode).  Safe for use by
+ *  many search threads: the threshold a new trial must beat is read
+ *  without locking, so threads only synchronize when they actually have
+ *  a trial good enough to keep.
+ *  @author Sahil Gupta
+ */
+class TopK {
+
+    /** An empty collection of the best K > 0 trials scoring more than
+     *  FLOOR. */
+    TopK(int k, int floor) {
+        if (k <= 0) {
+            throw new EnigmaException("K must be positive.");
+        }
+        _scores = new int[k];
+        _keys = new long[k];
+        _floor = floor;
+        _threshold = new AtomicInteger(floor);
+    }
+
+    /** An empty collection of the best K > 0 trials. */
+    TopK(int k) {
+        this(k, TrialScorer.REJECTED);
+    }
+
+    /** Return the score a trial must exceed to be kept: the worst score
+     *  kept once I am full, and my floor before then. */
+    int threshold() {
+        return _threshold.get();
+    }
+
+    /** Keep the trial KEY with SCORE if it beats my threshold.  Returns
+     *  true iff it was kept. */
+    boolean offer(int score, long key) {
+        if (score <= _threshold.get()) {
+            return false;
+        }
+        synchronized (this) {
+            int i;
+            if (_size < _scores.length) {
+                i = _size;
+                _size += 1;
+            } else if (score > _scores[_size - 1]) {
+                i = _size - 1;
+            } else {
+                return false;
+            }
+            while (i > 0 && _scores[i - 1] < score) {
+                _scores[i] = _scores[i - 1];
+                _keys[i] = _keys[i - 1];
+                i -= 1;
+            }
+            _scores[i] = score;
+            _keys[i] = key;
+            if (_size == _scores.length) {
+                _threshold.set(_scores[_size - 1]);
+            }
+            return true;
+        }
+    }
+
+    /** Offer all of OTHER's trials to me. */
+    void addAll(TopK other) {
+        int[] scores = other.scores();
+        long[] keys = other.keys();
+        for (int i = 0; i < scores.length; i += 1) {
+            offer(scores[i], keys[i]);
+        }
+    }
+
+    /** Return the number of trials kept. */
+    synchronized int size() {
+        return _size;
+    }
+
+    /** Return the scores kept, best first. */
+    synchronized int[] scores() {
+        return Arrays.copyOf(_scores, _size);
+    }
+
+    /** Return the keys kept, in the order of scores(). */
+    synchronized long[] keys() {
+        return Arrays.copyOf(_keys, _size);
+    }
+
+    /** Return the score a trial must exceed to be kept at all. */
+    int floor() {
+        return _floor;
+    }
+
+    /** Scores kept, best first; the first _size are in use. */
+    private final int[] _scores;
+
+    /** Keys parallel to _scores. */
+    private final long[] _keys;
+
+    /** Number of trials kept. */
+    private int _size;
+
+    /** Score every kept trial exceeds. */
+    private final int _floor;
+
+    /** Score a new trial must exceed. */
+    private final AtomicInteger _threshold;
+}
@@ -0,0 +1,257 @@
+package enigma;
+
+import static enigma.Rotor.mod;
+
+/** Enumerates the start positions of a machine's inserted rotors in
+ *  odometer order (rightmost rotor fastest) and gives, for each trial,
+ *  the substitution the machine applies at each offset of a message.
+ *
+ *  The signal passes through the fast rotor, then the slow-moving rest
+ *  of the stack (the other rotors and the reflector), then back through
+ *  the fast rotor.  I keep one composite table per depth of the slow
+ *  part, the reflector alone, then the reflector with its right-hand
+ *  neighbour, and so on, each built from the one below it.  When the
+ *  rotors move, only the depths at and above the leftmost rotor that
+ *  changed are rebuilt.  Finished composites of the whole slow part are
+ *  also kept in a cache keyed by its core settings, since a trial's
+ *  slow rotors usually return to the settings the previous trial
+ *  started from.  As the left rotors move rarely, most offsets cost
+ *  just two lookups per letter through the fast rotor's tables.
+ *
+ *  Given PositionTables for the machine's rotors, I read the composite
+ *  of the slow part from them instead, building nothing.
+ *
+ *  The ring settings and plugboard are those of the machine when I am
+ *  created.
+ *  @author Sahil Gupta
+ */
+class TrialEnumerator {
+
+    /** An enumerator over the start positions of the rotors inserted in
+     *  MACHINE, with its current ring settings and plugboard, for
+     *  messages of LENGTH characters.  Starts at all positions 0. */
+    TrialEnumerator(Machine machine, int length) {
+        this(machine, length, null);
+    }
+
+    /** As for TrialEnumerator(MACHINE, LENGTH), but taking the composites
+     *  of the slow part from TABLES, which must have been built for the
+     *  rotors of MACHINE, unless TABLES is null. */
+    TrialEnumerator(Machine machine, int length, PositionTables tables) {
+        _tables = tables;
+        _k = machine.numRotors();
+        _n = machine.alphabet().size();
+        _length = length;
+        _stepper = new Stepper(machine);
+        _fwd = new int[_k][];
+        _bwd = new int[_k][];
+        _rings = new int[_k - 1];
+        for (int j = 0; j < _k; j += 1) {
+            Rotor rotor = machine.rotor(j);
+            _fwd[j] = rotor.permutation().shifts(false);
+            _bwd[j] = rotor.permutation().shifts(true);
+            if (j > 0) {
+                _rings[j - 1] = rotor.ringSetting();
+            }
+        }
+        _plug = machine.plugboard().table();
+        _plugInv = Permutation.inverse(_plug, new int[_n]);
+        _levels = new int[_k - 1][_n];
+        _levelSettings = new int[_k - 1];
+        _built = 0;
+        System.arraycopy(_fwd[0], 0, _levels[0], 0, _n);
+        _positions = new int[_k - 1];
+        _s = new int[_k];
+        _table = new int[_n];
+        _offset = -1;
+    }
+
+    /** Return the start positions of the current trial, leftmost rotor
+     *  (not counting the reflector) first.  The array is reused. */
+    int[] positions() {
+        return _positions;
+    }
+
+    /** Make POSITIONS (indexed as by positions()) the current trial. */
+    void setPositions(int[] positions) {
+        System.arraycopy(positions, 0, _positions, 0, _positions.length);
+        _offset = -1;
+    }
+
+    /** Advance to the next trial.  Returns false, and returns to all
+     *  positions 0, after the last one. */
+    boolean next() {
+        _offset = -1;
+        for (int i = _positions.length - 1; i >= 0; i -= 1) {
+            _positions[i] += 1;
+            if (_positions[i] < _n) {
+                return true;
+            }
+            _positions[i] = 0;
+        }
+        return false;
+    }
+
+    /** Return the number of composite tables rebuilt so far. */
+    long rebuilds() {
+        return _rebuilds;
+    }
+
+    /** Return the substitution applied at offset T (0 <= T < message
+     *  length) in the current trial: element C is the conversion of
+     *  letter C.  The array is reused; offsets are cheapest in
+     *  increasing order. */
+    int[] table(int t) {
+        advanceTo(t);
+        int base = _s[_k - 1] * _n;
+        int[] fwd = _fwd[_k - 1], bwd = _bwd[_k - 1];
+        if (_tables != null) {
+            long index = PositionTables.index(_s, _k, _n);
+            for (int c = 0; c < _n; c += 1) {
+                int x = _tables.get(index, fwd[base + _plug[c]]);
+                _table[c] = _plugInv[bwd[base + x]];
+            }
+            return _table;
+        }
+        int[] inner = inner();
+        for (int c = 0; c < _n; c += 1) {
+            _table[c] = _plugInv[bwd[base + inner[fwd[base + _plug[c]]]]];
+        }
+        return _table;
+    }
+
+    /** Return the conversion of letter C at offset T (0 <= T < message
+     *  length) in the current trial, without building the whole table.
+     *  Offsets are cheapest in increasing order. */
+    int convert(int t, int c) {
+        advanceTo(t);
+        int base = _s[_k - 1] * _n;
+        int[] fwd = _fwd[_k - 1], bwd = _bwd[_k - 1];
+        if (_tables != null) {
+            int x = _tables.get(PositionTables.index(_s, _k, _n),
+                                fwd[base + _plug[c]]);
+            return _plugInv[bwd[base + x]];
+        }
+        int[] inner = inner();
+        return _plugInv[bwd[base + inner[fwd[base + _plug[c]]]]];
+    }
+
+    /** Put the core settings for offset T of the current trial in _s. */
+    private void advanceTo(int t) {
+        if (t < 0 || t >= _length) {
+            throw new EnigmaException("Offset out of range.");
+        }
+        if (t < _offset) {
+            _offset = -1;
+        }
+        if (_offset == -1) {
+            _s[0] = 0;
+            for (int i = 0; i < _positions.length; i += 1) {
+                _s[i + 1] = mod(_positions[i] - _rings[i], _n);
+            }
+        }
+        while (_offset < t) {
+            _stepper.step(_s, _rings);
+            _offset += 1;
+        }
+    }
+
+    /** Return the composite of the reflector and all rotors but the
+     *  rightmost at the core settings in _s. */
+    private int[] inner() {
+        int top = _k - 2;
+        long key = 0;
+        for (int m = 1; m <= top; m += 1) {
+            key = key * _n + _s[m];
+        }
+        int[] result = _cache.get(key);
+        if (result == null) {
+            rebuild(top);
+            if (_cache.size() >= CACHE_LIMIT) {
+                _cache.clear();
+            }
+            result = _levels[top].clone();
+            _cache.put(key, result);
+        }
+        return result;
+    }
+
+    /** Make _levels[0 .. TOP] match the core settings in _s. */
+    private void rebuild(int top) {
+        int m = 1;
+        while (m <= top && m <= _built && _levelSettings[m] == _s[m]) {
+            m += 1;
+        }
+        for (; m <= top; m += 1) {
+            int[] below = _levels[m - 1], level = _levels[m];
+            int base = _s[m] * _n;
+            int[] fwd = _fwd[m], bwd = _bwd[m];
+            for (int c = 0; c < _n; c += 1) {
+                level[c] = bwd[base + below[fwd[base + c]]];
+            }
+            _levelSettings[m] = _s[m];
+            _rebuilds += 1;
+        }
+        _built = top;
+    }
+
+    /** Largest number of composites cached. */
+    private static final int CACHE_LIMIT = 1 << 16;
+
+    /** Composites of the slow part, read from files, or null. */
+    private final PositionTables _tables;
+
+    /** Composites of the slow part, keyed by its core settings. */
+    private final LongMap<int[]> _cache = new LongMap<>();
+
+    /** Number of rotor slots, including the reflector. */
+    private final int _k;
+
+    /** Alphabet size. */
+    private final int _n;
+
+    /** Message length. */
+    private final int _length;
+
+    /** The stepping rule of the rotors. */
+    private final Stepper _stepper;
+
+    /** _fwd[j][s * n + c] is the forward conversion of C by slot J at
+     *  core setting S. */
+    private final int[][] _fwd;
+
+    /** _bwd[j][s * n + c] is the backward conversion of C by slot J at
+     *  core setting S. */
+    private final int[][] _bwd;
+
+    /** Ring settings, leftmost rotor (not the reflector) first. */
+    private final int[] _rings;
+
+    /** The plugboard and its inverse. */
+    private final int[] _plug, _plugInv;
+
+    /** _levels[m] is the composite of slots 0 .. M at the core settings
+     *  _levelSettings[1 .. M]. */
+    private final int[][] _levels;
+
+    /** Core settings at which each level was built. */
+    private final int[] _levelSettings;
+
+    /** Highest level built so far. */
+    private int _built;
+
+    /** Start positions of the current trial. */
+    private final int[] _positions;
+
+    /** Core settings at offset _offset of the current trial. */
+    private final int[] _s;
+
+    /** Offset whose settings are in _s, or -1 before the first. */
+    private int _offset;
+
+    /** The table returned by table(). */
+    private final int[] _table;
+
+    /** Number of levels rebuilt. */
+    private long _rebuilds;
+}
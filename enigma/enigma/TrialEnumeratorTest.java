@@ -0,0 +1,38 @@
+package enigma;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of TrialEnumerator.
+ *  @author Sahil Gupta
+ */
+public class TrialEnumeratorTest {
+
+    @Test
+    public void testTablesMatchMachine() {
+        Machine machine = TestUtils.navalMachine();
+        machine.setRingSetting("ABCD");
+        machine.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)",
+                                             TestUtils.UPPER));
+        String msg = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        TrialEnumerator trials = new TrialEnumerator(machine, msg.length());
+        trials.setPositions(new int[] {0, 23, 20, 0});
+        for (int trial = 0; trial < 800; trial += 1) {
+            StringBuilder setting = new StringBuilder();
+            for (int p : trials.positions()) {
+                setting.append(TestUtils.UPPER.toChar(p));
+            }
+            machine.setRotors(setting.toString());
+            machine.setRingSetting("ABCD");
+            String expected = machine.convert(msg);
+            for (int t = 0; t < msg.length(); t += 1) {
+                int c = TestUtils.UPPER.toInt(msg.charAt(t));
+                assertEquals(expected.charAt(t),
+                             TestUtils.UPPER.toChar(trials.table(t)[c]));
+            }
+            assertTrue(trials.next());
+        }
+        assertTrue(trials.rebuilds() < 800);
+    }
+}
@@ -0,0 +1,254 @@
+package enigma;
+
+import static enigma.EnigmaException.*;
+
+/** Scores trial decryptions letter by letter, abandoning a trial as soon
+ *  as it can no longer beat a threshold.
+ *
+ *  A trial's score is the sum of a weight for each letter of its
+ *  plaintext, where the weights may differ from one offset to the next.
+ *  After each letter, the score so far plus the largest weights of the
+ *  offsets left is an upper bound on the final score.  Once that bound
+ *  is no better than the threshold (for example, the worst score in a
+ *  TopK that is already full), the rest of the trial is skipped.  With
+ *  crib weights, a trial is usually dropped after its first few
+ *  mismatches; with letter frequencies alone, after somewhat more than
+ *  half its letters.
+ *  @author Sahil Gupta
+ */
+class TrialScorer {
+
+    /** A scorer giving letter C of ALPHABET the weight WEIGHTS[C], where
+     *  the letters of a correct decryption are expected to weigh TYPICAL
+     *  on average. */
+    TrialScorer(Alphabet alphabet, int[] weights, double typical) {
+        this(alphabet, new int[][] { weights }, typical);
+    }
+
+    /** A scorer giving letter C of ALPHABET the weight ROWS[I][C] at
+     *  offset I of a message, taking ROWS[I % ROWS.length] for offsets
+     *  past the end of ROWS.  The letters of a correct decryption are
+     *  expected to weigh TYPICAL on average. */
+    TrialScorer(Alphabet alphabet, int[][] rows, double typical) {
+        _rows = new int[rows.length][];
+        _rowMax = new int[rows.length];
+        for (int i = 0; i < rows.length; i += 1) {
+            if (rows[i].length != alphabet.size()) {
+                throw new EnigmaException("Need one weight per letter.");
+            }
+            _rows[i] = rows[i].clone();
+            _rowMax[i] = Integer.MIN_VALUE;
+            for (int w : rows[i]) {
+                _rowMax[i] = Math.max(_rowMax[i], w);
+            }
+        }
+        _typical = typical;
+        _suffix = new long[1];
+    }
+
+    /** A scorer giving letter C of ALPHABET the weight WEIGHTS[C], where
+     *  all letters are taken to be equally likely in a correct
+     *  decryption. */
+    TrialScorer(Alphabet alphabet, int[] weights) {
+        this(alphabet, weights, mean(weights));
+    }
+
+    /** Return a scorer for messages of LENGTH letters of ALPHABET that
+     *  counts the letters matching CRIB placed at OFFSET. */
+    static TrialScorer crib(Alphabet alphabet, CharSequence crib,
+                            int offset, int length) {
+        if (offset < 0 || offset + crib.length() > length) {
+            throw new EnigmaException("Crib does not fit in message.");
+        }
+        int[][] rows = new int[length][alphabet.size()];
+        int[] letters = letters(alphabet, crib);
+        for (int i = 0; i < letters.length; i += 1) {
+            rows[offset + i][letters[i]] = 1;
+        }
+        return new TrialScorer(alphabet, rows,
+                               (double) crib.length() / length);
+    }
+
+    /** Return the mean of WEIGHTS. */
+    private static double mean(int[] weights) {
+        double sum = 0;
+        for (int w : weights) {
+            sum += w;
+        }
+        return sum / weights.length;
+    }
+
+    /** Return a scorer for ALPHABET weighting each letter by the
+     *  logarithm of its frequency in English text.  Characters of
+     *  ALPHABET that are not letters get the weight of the rarest
+     *  letter. */
+    static TrialScorer english(Alphabet alphabet) {
+        int[] weights = new int[alphabet.size()];
+        double typical = 0, total = 0;
+        for (int c = 0; c < weights.length; c += 1) {
+            char ch = Character.toUpperCase(alphabet.toChar(c));
+            double freq = MIN_FREQUENCY;
+            if (ch >= 'A' && ch <= 'Z') {
+                freq = ENGLISH[ch - 'A'];
+            }
+            weights[c] = (int) Math.round(SCALE * Math.log(freq));
+            typical += freq * weights[c];
+            total += freq;
+        }
+        return new TrialScorer(alphabet, weights, typical / total);
+    }
+
+    /** Return a score that a correct decryption of LENGTH letters should
+     *  comfortably beat: the expected score of such a decryption, less
+     *  SLACK (for example 0.1) times its magnitude.  Starting a TopK at
+     *  this floor lets hopeless trials be abandoned from the very start
+     *  of a search, rather than only once good trials have been found. */
+    int floor(int length, double slack) {
+        double expected = _typical * length;
+        return (int) (expected - slack * Math.abs(expected));
+    }
+
+    /** Return the weight of letter C at offset I. */
+    int weight(int i, int c) {
+        return _rows[i % _rows.length][c];
+    }
+
+    /** Return an array whose element I is the largest score the letters
+     *  at offsets I .. LENGTH - 1 can add. */
+    private long[] suffix(int length) {
+        if (_suffix.length != length + 1) {
+            long[] suffix = new long[length + 1];
+            for (int i = length - 1; i >= 0; i -= 1) {
+                suffix[i] = suffix[i + 1] + _rowMax[i % _rows.length];
+            }
+            _suffix = suffix;
+        }
+        return _suffix;
+    }
+
+    /** Decrypt CIPHER (letter indices) with M, starting from M's current
+     *  state, and return the score of the result if it is greater than
+     *  THRESHOLD.  Otherwise, return REJECTED, possibly having stopped
+     *  early; M is then left part way through the message.  Works with
+     *  any machine configuration, since it only calls M.convert. */
+    int score(Machine M, int[] cipher, int threshold) {
+        long[] suffix = suffix(cipher.length);
+        int score = 0;
+        for (int i = 0; i < cipher.length; i += 1) {
+            score += _rows[i % _rows.length][M.convert(cipher[i])];
+            if (score + suffix[i + 1] <= threshold) {
+                _abandoned += 1;
+                _skipped += cipher.length - i - 1;
+                return REJECTED;
+            }
+        }
+        return score;
+    }
+
+    /** As for score(Machine, int[], int), but decrypting CIPHER with the
+     *  current trial of TRIALS, whose message length must be that of
+     *  CIPHER. */
+    int score(TrialEnumerator trials, int[] cipher, int threshold) {
+        long[] suffix = suffix(cipher.length);
+        int score = 0;
+        for (int i = 0; i < cipher.length; i += 1) {
+            score += _rows[i % _rows.length][trials.convert(i, cipher[i])];
+            if (score + suffix[i + 1] <= threshold) {
+                _abandoned += 1;
+                _skipped += cipher.length - i - 1;
+                return REJECTED;
+            }
+        }
+        return score;
+    }
+
+    /** Return the score of PLAIN, a decryption (letter indices) of a
+     *  message of at least its length, if it is greater than THRESHOLD,
+     *  and otherwise REJECTED.  Offsets of the message past the end of
+     *  PLAIN are taken to add nothing, as they do for a crib scorer if
+     *  PLAIN reaches the end of the crib. */
+    int score(int[] plain, int threshold) {
+        long[] suffix = suffix(plain.length);
+        int score = 0;
+        for (int i = 0; i < plain.length; i += 1) {
+            score += _rows[i % _rows.length][plain[i]];
+            if (score + suffix[i + 1] <= threshold) {
+                _abandoned += 1;
+                _skipped += plain.length - i - 1;
+                return REJECTED;
+            }
+        }
+        return score;
+    }
+
+    /** Decrypt CIPHER with M and return its score if it is greater than
+     *  the threshold of BEST, offering it to BEST under KEY.  Otherwise,
+     *  return REJECTED. */
+    int score(Machine M, int[] cipher, TopK best, long key) {
+        int result = score(M, cipher, best.threshold());
+        if (result != REJECTED) {
+            best.offer(result, key);
+        }
+        return result;
+    }
+
+    /** Return the letter indices of TEXT, whose characters must be in
+     *  ALPHABET. */
+    static int[] letters(Alphabet alphabet, CharSequence text) {
+        int[] result = new int[text.length()];
+        for (int i = 0; i < result.length; i += 1) {
+            char c = text.charAt(i);
+            result[i] = alphabet.index(c);
+            if (result[i] == -1) {
+                throw error("Character \"%c\" is not in the alphabet.", c);
+            }
+        }
+        return result;
+    }
+
+    /** Return the number of trials abandoned early. */
+    long abandoned() {
+        return _abandoned;
+    }
+
+    /** Return the number of letters not decrypted because trials were
+     *  abandoned. */
+    long skipped() {
+        return _skipped;
+    }
+
+    /** Result of score for a trial that cannot beat its threshold. */
+    static final int REJECTED = Integer.MIN_VALUE;
+
+    /** Multiplier applied to log frequencies. */
+    private static final double SCALE = 100;
+
+    /** Frequency assumed for non-letters. */
+    private static final double MIN_FREQUENCY = 0.0007;
+
+    /** Relative frequencies of A-Z in English text. */
+    private static final double[] ENGLISH = {
+        0.0817, 0.0149, 0.0278, 0.0425, 0.1270, 0.0223, 0.0202, 0.0609,
+        0.0697, 0.0015, 0.0077, 0.0403, 0.0241, 0.0675, 0.0751, 0.0193,
+        0.0010, 0.0599, 0.0633, 0.0906, 0.0276, 0.0098, 0.0236, 0.0015,
+        0.0197, 0.0007,
+    };
+
+    /** Weight of each letter at each offset. */
+    private final int[][] _rows;
+
+    /** Largest weight in each of _rows. */
+    private final int[] _rowMax;
+
+    /** The bounds computed by the last call to suffix. */
+    private long[] _suffix;
+
+    /** Expected weight of a letter of a correct decryption. */
+    private final double _typical;
+
+    /** Trials abandoned early. */
+    private long _abandoned;
+
+    /** Letters skipped by abandoning trials. */
+    private long _skipped;
+}
@@ -0,0 +1,62 @@
+package enigma;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of TrialScorer and TopK.
+ *  @author Sahil Gupta
+ */
+public class TrialScorerTest {
+
+    /** The plaintext of the test message. */
+    private static final String PLAIN =
+        "THEREISNOTHINGEITHERGOODORBADBUTTHINKINGMAKESITSO"
+        + "WHATAPIECEOFWORKISAMAN";
+
+    @Test
+    public void testPruningKeepsBest() {
+        Machine machine = TestUtils.navalMachine();
+        machine.setRotors("AKEY");
+        int[] cipher = TrialScorer.letters(TestUtils.UPPER,
+                                           machine.convert(PLAIN));
+        TrialScorer scorer = TrialScorer.english(TestUtils.UPPER);
+
+        TopK pruned = new TopK(5, scorer.floor(cipher.length, 0.1));
+        TopK full = new TopK(5, pruned.floor());
+        for (int p = 0; p < 26 * 26 * 26; p += 1) {
+            String setting = "A" + TestUtils.UPPER.toChar(p / 676)
+                + TestUtils.UPPER.toChar(p / 26 % 26)
+                + TestUtils.UPPER.toChar(p % 26);
+            machine.setRotors(setting);
+            scorer.score(machine, cipher, pruned, p);
+            machine.setRotors(setting);
+            full.offer(scorer.score(machine, cipher, TrialScorer.REJECTED),
+                       p);
+        }
+        assertArrayEquals(full.scores(), pruned.scores());
+        assertEquals(10 * 26 * 26 + 4 * 26 + 24, pruned.keys()[0]);
+        assertTrue(scorer.skipped() > 26 * 26 * 26 * cipher.length / 4);
+    }
+
+    @Test
+    public void testCribPruning() {
+        Machine machine = TestUtils.navalMachine();
+        machine.setRotors("AKEY");
+        int[] cipher = TrialScorer.letters(TestUtils.UPPER,
+                                           machine.convert(PLAIN));
+        TrialScorer scorer =
+            TrialScorer.crib(TestUtils.UPPER, "THEREISNOTHING", 0,
+                             PLAIN.length());
+        TopK best = new TopK(1, 10);
+        for (int p = 0; p < 26 * 26 * 26; p += 1) {
+            machine.setRotors("A" + TestUtils.UPPER.toChar(p / 676)
+                              + TestUtils.UPPER.toChar(p / 26 % 26)
+                              + TestUtils.UPPER.toChar(p % 26));
+            scorer.score(machine, cipher, best, p);
+        }
+        assertEquals(10 * 26 * 26 + 4 * 26 + 24, best.keys()[0]);
+        assertEquals(14, best.scores()[0]);
+        assertTrue(scorer.skipped() > 26 * 26 * 26 * cipher.length * 9 / 10);
+    }
+}
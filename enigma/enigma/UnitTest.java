@@ -1,21 +1,42 @@
-package enigma;
-
-import ucb.junit.textui;
-
-/** The suite of all JUnit tests for the enigma package.
- *  @author Sahil Gupta
- */
-public class UnitTest {
-
-    /** Run the JUnit tests in this package. Add xxxTest.class entries to
-     *  the arguments of runClasses to run other JUnit tests. */
-    public static void main(String[] ignored) {
-        System.exit(textui.runClasses(PermutationTest.class,
-                                      MovingRotorTest.class,
-                                      MachineTest.class,
-                                      AlphabetTest.class));
-    }
-
-}
-
-
+package enigma;
+
+import ucb.junit.textui;
+
+/** The suite of all JUnit tests for the enigma package.
+ *  @author Sahil Gupta
+ */
+public class UnitTest {
+
+    /** Run the JUnit tests in this package. Add xxxTest.class entries to
+     *  the arguments of runClasses to run other JUnit tests. */
+    public static void main(String[] ignored) {
+        System.exit(textui.runClasses(PermutationTest.class,
+                                      MovingRotorTest.class,
+                                      MachineTest.class,
+                                      AlphabetTest.class,
+                                      EnigmaStreamTest.class,
+                                      EnigmaProcessorTest.class,
+                                      LongHashTest.class,
+                                      CribFinderTest.class,
+                                      KeySpaceTest.class,
+                                      TrialEnumeratorTest.class,
+                                      TrialScorerTest.class,
+                                      SearchJobTest.class,
+                                      SearchCoordinatorTest.class,
+                                      CycleCatalogTest.class,
+                                      MachineCompilerTest.class,
+                                      StreamEngineTest.class,
+                                      PositionTablesTest.class,
+                                      ChunkedLineReaderTest.class,
+                                      BlockRingTest.class,
+                                      BatchTest.class,
+                                      LoadGeneratorTest.class,
+                                      CharClassifierTest.class,
+                                      EnigmaEngineTest.class,
+                                      EngineRegistryTest.class,
+                                      MainTest.class));
+    }
+
+}
+
+
@@ -0,0 +1,150 @@
+package enigma;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/** A StreamEngine converting one stream per lane of the preferred int
+ *  vector shape.  Each slot's rotor positions are a vector (held as
+ *  offsets into the flattened tables, premultiplied by the alphabet
+ *  size); stepping is done with lane masks and masked adds, and each
+ *  table lookup is a gather.  Only loaded by StreamEngine.create when
+ *  the jdk.incubator.vector module is present.
+ *  @author Sahil Gupta
+ */
+class VectorStreamEngine extends StreamEngine {
+
+    /** An engine for the configuration of MACHINE. */
+    VectorStreamEngine(Machine machine) {
+        super(machine);
+        int lanes = SPECIES.length();
+        _s = new IntVector[_k];
+        _moved = masks(_k);
+        _lanes = new int[lanes];
+        _index = new int[lanes];
+        _lengths = new int[lanes];
+    }
+
+    @Override
+    void convert(int[][] messages, int[][] settings) {
+        int lanes = SPECIES.length();
+        for (int g = 0; g < messages.length; g += lanes) {
+            int count = Math.min(lanes, messages.length - g);
+            VectorMask<Integer> valid = SPECIES.indexInRange(0, count);
+            int longest = 0;
+            for (int l = 0; l < lanes; l += 1) {
+                _lengths[l] = l < count ? messages[g + l].length : 0;
+                longest = Math.max(longest, _lengths[l]);
+            }
+            IntVector lengths = IntVector.fromArray(SPECIES, _lengths, 0);
+            for (int j = 1; j < _k; j += 1) {
+                for (int l = 0; l < lanes; l += 1) {
+                    _lanes[l] = l < count ? settings[g + l][j - 1] * _n : 0;
+                }
+                _s[j] = IntVector.fromArray(SPECIES, _lanes, 0);
+            }
+            for (int t = 0; t < longest; t += 1) {
+                VectorMask<Integer> active =
+                    lengths.compare(VectorOperators.GT, t).and(valid);
+                for (int l = 0; l < count; l += 1) {
+                    _lanes[l] = t < _lengths[l] ? messages[g + l][t] : 0;
+                }
+                step(active);
+                IntVector x = gather(_plug, IntVector.fromArray(SPECIES,
+                                                                _lanes, 0));
+                for (int j = _k - 1; j > 0; j -= 1) {
+                    x = gather(_fwd[j], _s[j].add(x));
+                }
+                x = gather(_reflector, x);
+                for (int j = 1; j < _k; j += 1) {
+                    x = gather(_bwd[j], _s[j].add(x));
+                }
+                gather(_plugInv, x).intoArray(_lanes, 0);
+                for (int l = 0; l < count; l += 1) {
+                    if (t < _lengths[l]) {
+                        messages[g + l][t] = _lanes[l];
+                    }
+                }
+            }
+            for (int j = 1; j < _k; j += 1) {
+                _s[j].intoArray(_lanes, 0);
+                for (int l = 0; l < count; l += 1) {
+                    settings[g + l][j - 1] = _lanes[l] / _n;
+                }
+            }
+        }
+    }
+
+    @Override
+    int lanes() {
+        return SPECIES.length();
+    }
+
+    /** Advance the positions in _s of the lanes in ACTIVE by one step,
+     *  as Stepper.step does for each. */
+    private void step(VectorMask<Integer> active) {
+        VectorMask<Integer> none = SPECIES.maskAll(false);
+        for (int j = 0; j < _k; j += 1) {
+            _moved[j] = none;
+        }
+        for (int i = 1; i < _k - 1; i += 1) {
+            if (!_rotates[i] || _notches[i + 1].length == 0) {
+                continue;
+            }
+            VectorMask<Integer> atNotch = none;
+            for (int notch : _notches[i + 1]) {
+                atNotch = atNotch.or(_s[i + 1].compare(VectorOperators.EQ,
+                                                       notch * _n));
+            }
+            VectorMask<Integer> hit = atNotch.and(active).andNot(_moved[i]);
+            advance(i, hit);
+            if (_rotates[i + 1]) {
+                advance(i + 1, hit);
+            }
+        }
+        if (_rotates[_k - 1]) {
+            advance(_k - 1, active.andNot(_moved[_k - 1]));
+        }
+    }
+
+    /** Advance the position of slot J by one in the lanes in LANES, and
+     *  mark them moved. */
+    private void advance(int j, VectorMask<Integer> lanes) {
+        IntVector s = _s[j].add(_n, lanes);
+        _s[j] = s.blend(0, s.compare(VectorOperators.EQ, _n * _n));
+        _moved[j] = _moved[j].or(lanes);
+    }
+
+    /** Return a new array for N masks of SPECIES, all null.  The cast is
+     *  safe since only such masks are ever stored in it. */
+    @SuppressWarnings("unchecked")
+    private static VectorMask<Integer>[] masks(int n) {
+        return (VectorMask<Integer>[]) new VectorMask<?>[n];
+    }
+
+    /** Return the vector of TABLE's elements at INDICES. */
+    private IntVector gather(int[] table, IntVector indices) {
+        indices.intoArray(_index, 0);
+        return IntVector.fromArray(SPECIES, table, 0, _index, 0);
+    }
+
+    /** The vector shape used. */
+    private static final VectorSpecies<Integer> SPECIES =
+        IntVector.SPECIES_PREFERRED;
+
+    /** Position offsets of each slot, one stream per lane. */
+    private final IntVector[] _s;
+
+    /** Lanes in which each slot has moved during the current step. */
+    private final VectorMask<Integer>[] _moved;
+
+    /** Scratch space for loading and storing lanes. */
+    private final int[] _lanes;
+
+    /** Scratch space for gather indices. */
+    private final int[] _index;
+
+    /** Lengths of the messages in the current group of lanes. */
+    private final int[] _lengths;
+}